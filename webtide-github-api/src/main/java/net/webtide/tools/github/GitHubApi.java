@@ -21,6 +21,7 @@ import java.net.URI;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.file.Files;
@@ -28,12 +29,16 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -58,6 +63,14 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class GitHubApi
 {
     private static final Logger LOG = LoggerFactory.getLogger(GitHubApi.class);
+    /**
+     * The default GitHub API URI, unless overridden by the {@code github.api.url} system property
+     * or the {@code GITHUB_API_URL} environment variable (eg: GitHub Enterprise, or a local stand-in).
+     */
+    public static final String DEFAULT_API_URL = "https://api.github.com";
+    // the attempts of a request failing with a server error or a secondary rate limit
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long MAX_RETRY_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
     private final URI apiURI;
     private final HttpClient client;
     private final HttpRequest.Builder baseRequest;
@@ -65,12 +78,14 @@ public class GitHubApi
     private final GitHubProjectsApi gitHubProjectsApi;
     private final GitHubColumnsApi gitHubColumnsApi;
     private final GitHubCardsApi gitHubCardsApi;
-    private Cache cache;
-    private RateLeft rateLeft;
+    private final RateBudget rateBudget;
+    private final String consumer;
+    private final GitHubMetrics metrics = new GitHubMetrics();
+    private volatile Cache cache;
 
-    private GitHubApi(String oauthToken)
+    private GitHubApi(URI apiURI, String oauthToken)
     {
-        this.apiURI = URI.create("https://api.github.com");
+        this.apiURI = apiURI;
 
         this.client = HttpClient.newBuilder()
             .connectTimeout(Duration.of(2, ChronoUnit.SECONDS))
@@ -81,12 +96,51 @@ public class GitHubApi
             .header("X-GitHub-Api-Version", "2022-11-28");
         this.gson = newGson();
         this.cache = new MemoryCache();
+        this.rateBudget = new RateBudget();
+        this.consumer = "default";
+        gitHubProjectsApi = new GitHubProjectsApi(this);
+        gitHubColumnsApi = new GitHubColumnsApi(this);
+        gitHubCardsApi = new GitHubCardsApi(this);
+    }
+
+    private GitHubApi(GitHubApi shared, String consumer)
+    {
+        this.apiURI = shared.apiURI;
+        this.client = shared.client;
+        this.baseRequest = shared.baseRequest;
+        this.gson = shared.gson;
+        this.cache = shared.cache;
+        this.rateBudget = shared.rateBudget;
+        this.consumer = consumer;
         gitHubProjectsApi = new GitHubProjectsApi(this);
         gitHubColumnsApi = new GitHubColumnsApi(this);
         gitHubCardsApi = new GitHubCardsApi(this);
     }
 
     public static GitHubApi connect()
+    {
+        return connect(getDefaultApiURI());
+    }
+
+    /**
+     * @return the GitHub API URI, from the {@code github.api.url} system property,
+     * the {@code GITHUB_API_URL} environment variable, or else {@link #DEFAULT_API_URL}
+     */
+    public static URI getDefaultApiURI()
+    {
+        String url = System.getProperty("github.api.url");
+        if (Strings.isNullOrEmpty(url))
+            url = System.getenv("GITHUB_API_URL");
+        return URI.create(Strings.isNullOrEmpty(url) ? DEFAULT_API_URL : url);
+    }
+
+    /**
+     * Connect to the GitHub API at the URI, with the token of the environment or the user configuration.
+     *
+     * @param apiURI the GitHub API URI (eg: {@code https://api.github.com})
+     * @return the GitHubApi
+     */
+    public static GitHubApi connect(URI apiURI)
     {
         String githubAppToken = System.getenv("GITHUB_TOKEN");
         if (Strings.isNullOrEmpty(githubAppToken))
@@ -98,7 +152,7 @@ public class GitHubApi
         if (!Strings.isNullOrEmpty(githubAppToken))
         {
             LOG.info("Connecting to GitHub with AppInstallation Token");
-            return new GitHubApi(githubAppToken);
+            return new GitHubApi(apiURI, githubAppToken);
         }
 
         String[] configLocations = {
@@ -121,7 +175,7 @@ public class GitHubApi
                     if (!Strings.isNullOrEmpty(oauthToken))
                     {
                         LOG.info("Connecting to GitHub with {} Token", configPath);
-                        return new GitHubApi(oauthToken);
+                        return new GitHubApi(apiURI, oauthToken);
                     }
                 }
                 catch (IOException e)
@@ -132,7 +186,7 @@ public class GitHubApi
         }
 
         LOG.info("Connecting to GitHub with anonymous (no token)");
-        return new GitHubApi(null);
+        return new GitHubApi(apiURI, null);
     }
 
     protected static List<CrossReference> loadCrossReferences(String body)
@@ -163,6 +217,27 @@ public class GitHubApi
         return crossReferences;
     }
 
+    /**
+     * @return the login of the GitHub user that authored the commit, or null if the author is not a GitHub user
+     * @throws GitHubResourceNotFoundException if the commit is unknown
+     */
+    protected static String loadCommitAuthorLogin(String body) throws GitHubResourceNotFoundException
+    {
+        JsonObject jsonObj = new Gson().fromJson(body, JsonObject.class);
+        JsonElement login = jsonObj.getAsJsonObject("data")
+            .getAsJsonObject("repository")
+            .get("object");
+        if (login == null || login.isJsonNull())
+            throw new GitHubResourceNotFoundException("commit");
+        for (String member : new String[]{"author", "user", "login"})
+        {
+            if (login == null || !login.isJsonObject())
+                return null;
+            login = login.getAsJsonObject().get(member);
+        }
+        return (login == null || login.isJsonNull()) ? null : login.getAsString();
+    }
+
     public static String loadQuery(String templatePath, Map<String, String> optionMap) throws IOException
     {
         URL url = GitHubApi.class.getResource(templatePath);
@@ -217,6 +292,23 @@ public class GitHubApi
         return gson.fromJson(body, Commit.class);
     }
 
+    /**
+     * Get the login of the GitHub user that authored a commit, without fetching the whole commit (and its file diffs).
+     *
+     * @return the login, or null if the commit author is not a GitHub user
+     * @throws GitHubResourceNotFoundException if the commit is unknown
+     */
+    public String commitAuthorLogin(String repoOwner, String repoName, String commitId) throws IOException, InterruptedException
+    {
+        Map<String, String> optionMap = new HashMap<>();
+        optionMap.put("OWNER", repoOwner);
+        optionMap.put("REPOSITORY", repoName);
+        optionMap.put("COMMIT", commitId);
+        String query = loadQuery("/graphql-templates/query-commit-author.graphql", optionMap);
+        String body = graphql(query);
+        return loadCommitAuthorLogin(body);
+    }
+
     public PullRequests commitPullRequests(String repoOwner, String repoName, String commit) throws IOException, InterruptedException
     {
         String path = String.format("/repos/%s/%s/commits/%s/pulls", repoOwner, repoName, commit);
@@ -227,6 +319,25 @@ public class GitHubApi
         return gson.fromJson(body, PullRequests.class);
     }
 
+    /**
+     * Create a view of this GitHubApi for a consumer (eg: a repository being processed),
+     * sharing the connection, cache and rate limit budget, but with its own fair share of the budget.
+     * The consumer should be unregistered from the {@link #getRateBudget() rate budget} once done.
+     *
+     * @param consumer the name of the consumer
+     * @return the GitHubApi for the consumer
+     */
+    public GitHubApi forConsumer(String consumer)
+    {
+        rateBudget.register(consumer);
+        return new GitHubApi(this, consumer);
+    }
+
+    public URI getApiURI()
+    {
+        return apiURI;
+    }
+
     public Cache getCache()
     {
         return cache;
@@ -242,6 +353,19 @@ public class GitHubApi
         return this.gitHubCardsApi;
     }
 
+    public RateBudget getRateBudget()
+    {
+        return rateBudget;
+    }
+
+    /**
+     * @return the usage metrics of this GitHubApi (not shared with the other consumers)
+     */
+    public GitHubMetrics getMetrics()
+    {
+        return metrics;
+    }
+
     public GitHubColumnsApi getGitHubColumnsApi()
     {
         return this.gitHubColumnsApi;
@@ -261,13 +385,13 @@ public class GitHubApi
 
     public RateLimits getRateLimits() throws IOException, InterruptedException
     {
-        URI endpointURI = apiURI.resolve("/rate_limit");
+        URI endpointURI = toURI("/rate_limit");
         HttpRequest request = baseRequest.copy()
             .GET()
             .uri(endpointURI)
             .header("Accept", "application/vnd.github.v3+json")
             .build();
-        HttpResponse<String> response = client.send(request, responseInfo -> HttpResponse.BodySubscribers.ofString(UTF_8));
+        HttpResponse<String> response = send(request, "/rate_limit", null);
         if (response.statusCode() != 200)
             throw new GitHubApiException("Unable to get rate limits: status code: " + response.statusCode());
         return gson.fromJson(response.body(), RateLimits.class);
@@ -292,14 +416,16 @@ public class GitHubApi
 
         String jsonQuery = gson.toJson(map);
 
-        URI endpointURI = apiURI.resolve("/graphql");
+        rateBudget.acquire(consumer, "graphql", this::getRateLimits);
+        URI endpointURI = toURI("/graphql");
         HttpRequest request = baseRequest.copy()
             .POST(HttpRequest.BodyPublishers.ofString(jsonQuery))
             .header("Content-Type", "application/json")
             .uri(endpointURI)
             .header("Accept", "application/vnd.github.v3+json")
             .build();
-        HttpResponse<String> response = client.send(request, responseInfo -> HttpResponse.BodySubscribers.ofString(UTF_8));
+        HttpResponse<String> response = send(request, "/graphql", "graphql");
+        updateRateBudget(response);
         if (response.statusCode() != 200)
         {
             LOG.warn("Failed Response: {}", response.body());
@@ -481,19 +607,33 @@ public class GitHubApi
     {
         try
         {
-            String body = cache.getCached(path);
+            GitHubRequestEvent cacheEvent = GitHubRequestEvent.start("GET", path);
+            String body;
+            try
+            {
+                body = cache.getCached(path);
+            }
+            catch (GitHubResourceNotFoundException e)
+            {
+                cacheEvent.finish(404, null, true);
+                metrics.recordCacheHit(path);
+                throw e;
+            }
             if (body != null)
             {
                 LOG.debug("Returning Cached from {}", path);
+                cacheEvent.finish(200, body, true);
+                metrics.recordCacheHit(path);
                 return body;
             }
+            metrics.recordCacheMiss(path);
 
-            RateLeft rateLeft = getRateLeft();
-            int remainingRate = rateLeft.applyRequest("core");
-            URI uri = apiURI.resolve(path);
+            int remainingRate = rateBudget.acquire(consumer, "core", this::getRateLimits);
+            URI uri = toURI(path);
             LOG.debug("Issuing API Request {} ({} remaining limit)", uri, remainingRate);
             HttpRequest request = requestBuilder.apply(baseRequest.copy().uri(uri));
-            HttpResponse<String> response = client.send(request, responseInfo -> HttpResponse.BodySubscribers.ofString(UTF_8));
+            HttpResponse<String> response = send(request, path, "core");
+            updateRateBudget(response);
             switch (response.statusCode())
             {
                 case 200:
@@ -523,14 +663,119 @@ public class GitHubApi
         return this.gson;
     }
 
-    private RateLeft getRateLeft() throws IOException, InterruptedException
+    /**
+     * @param path the request path (with its query), relative to the API URI (which may have a path,
+     * eg: {@code https://github.example.com/api/v3}), or an absolute URL
+     * @return the request URI
+     */
+    private URI toURI(String path)
+    {
+        if (path.startsWith("http:") || path.startsWith("https:"))
+            return URI.create(path);
+        String base = apiURI.toString();
+        if (base.endsWith("/"))
+            base = base.substring(0, base.length() - 1);
+        return URI.create(base + path);
+    }
+
+    /**
+     * Send a request, recording its metrics and JFR event.
+     * <p>
+     * Requests failing with a server error ({@code 500}, {@code 502}, {@code 503}, {@code 504}) or a
+     * secondary rate limit ({@code 403} or {@code 429} with a {@code Retry-After} header) are retried.
+     * </p>
+     *
+     * @param request the request
+     * @param path the request path
+     * @param resource the rate limit resource used by the request, or null if not rate limited
+     * @return the response
+     */
+    private HttpResponse<String> send(HttpRequest request, String path, String resource) throws IOException, InterruptedException
+    {
+        for (int attempt = 1; ; attempt++)
+        {
+            GitHubRequestEvent event = GitHubRequestEvent.start(request.method(), path);
+            long start = System.nanoTime();
+            HttpResponse<String> response = client.send(request, responseInfo -> HttpResponse.BodySubscribers.ofString(UTF_8));
+            long latency = System.nanoTime() - start;
+            event.finish(response.statusCode(), response.body(), false);
+            metrics.recordRequest(path, resource, response.statusCode(), GitHubMetrics.utf8Length(response.body()), latency);
+
+            long retryDelay = getRetryDelay(response, attempt);
+            if (retryDelay < 0 || attempt >= MAX_ATTEMPTS)
+                return response;
+            LOG.info("Retrying {} {} in {} ms: status code: {}", request.method(), path, retryDelay, response.statusCode());
+            Thread.sleep(retryDelay);
+        }
+    }
+
+    /**
+     * @return the delay before retrying the request, or -1 if the response is final
+     */
+    private static long getRetryDelay(HttpResponse<?> response, int attempt)
     {
-        if ((rateLeft == null) || (rateLeft.isExpired()))
+        OptionalLong retryAfter = response.headers().firstValue("retry-after")
+            .map((value) -> parseRetryAfter(value, System.currentTimeMillis()))
+            .orElse(OptionalLong.empty());
+        switch (response.statusCode())
         {
-            RateLimits rateLimits = getRateLimits();
-            rateLeft = new RateLeft(rateLimits);
+            case 403:
+            case 429:
+                if (retryAfter.isEmpty())
+                    return response.statusCode() == 429 ? 1000L << attempt : -1;
+                break;
+            case 500:
+            case 502:
+            case 503:
+            case 504:
+                if (retryAfter.isEmpty())
+                    return 250L << attempt;
+                break;
+            default:
+                return -1;
         }
-        return rateLeft;
+        return Math.min(MAX_RETRY_DELAY_MS, retryAfter.getAsLong());
+    }
+
+    /**
+     * Parse a {@code Retry-After} header, either delay-seconds or an HTTP-date.
+     *
+     * @param value the header value
+     * @param now the current time, in milliseconds since the epoch
+     * @return the delay in milliseconds, or empty if the value is not valid (to fall back to the backoff)
+     */
+    static OptionalLong parseRetryAfter(String value, long now)
+    {
+        String retryAfter = value.trim();
+        try
+        {
+            long seconds = Long.parseLong(retryAfter);
+            return seconds < 0 ? OptionalLong.empty() : OptionalLong.of(TimeUnit.SECONDS.toMillis(seconds));
+        }
+        catch (NumberFormatException e)
+        {
+            // not delay-seconds
+        }
+        try
+        {
+            long date = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return OptionalLong.of(Math.max(0, date - now));
+        }
+        catch (DateTimeParseException e)
+        {
+            LOG.debug("Invalid Retry-After: {}", value);
+            return OptionalLong.empty();
+        }
+    }
+
+    private void updateRateBudget(HttpResponse<?> response)
+    {
+        HttpHeaders headers = response.headers();
+        String resource = headers.firstValue("x-ratelimit-resource").orElse(null);
+        OptionalLong remaining = headers.firstValueAsLong("x-ratelimit-remaining");
+        OptionalLong reset = headers.firstValueAsLong("x-ratelimit-reset");
+        if (resource != null && remaining.isPresent() && reset.isPresent())
+            rateBudget.update(resource, (int)remaining.getAsLong(), reset.getAsLong());
     }
 
     static class Query extends HashMap<String, String>
@@ -0,0 +1,314 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.github;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The usage metrics of a {@link GitHubApi}: the requests per endpoint, answered by the {@link Cache}
+ * or sent over HTTP, with their latencies and sizes, the rate limit used per resource, and the
+ * requests per {@link RequestAttribution source}.
+ * <p>
+ * The counters only grow, use {@link #snapshot()} and {@link Snapshot#since(Snapshot)} to get
+ * the metrics of a part of the run (eg: one range of a batch).
+ * </p>
+ */
+public class GitHubMetrics
+{
+    private final Map<String, Endpoint> endpoints = new TreeMap<>();
+    // rate limit resource -> requests sent
+    private final Map<String, Integer> rateUsed = new TreeMap<>();
+    private final Map<String, Source> sources = new HashMap<>();
+
+    /**
+     * @param path the request path
+     */
+    synchronized void recordCacheHit(String path)
+    {
+        endpoint(path).cacheHits++;
+        Source source = source();
+        if (source != null)
+            source.cacheHits++;
+    }
+
+    /**
+     * @param path the request path
+     */
+    synchronized void recordCacheMiss(String path)
+    {
+        endpoint(path).cacheMisses++;
+    }
+
+    /**
+     * @param path the request path
+     * @param resource the rate limit resource used by the request, or null if not rate limited
+     * @param status the HTTP status code
+     * @param bytes the size of the response body
+     * @param latencyNanos the latency of the request
+     */
+    synchronized void recordRequest(String path, String resource, int status, long bytes, long latencyNanos)
+    {
+        Endpoint endpoint = endpoint(path);
+        endpoint.requests++;
+        if (status >= 400)
+            endpoint.errors++;
+        endpoint.bytes += bytes;
+        if (endpoint.latencyCount == endpoint.latencies.length)
+            endpoint.latencies = Arrays.copyOf(endpoint.latencies, endpoint.latencies.length * 2);
+        endpoint.latencies[endpoint.latencyCount++] = latencyNanos;
+        if (resource != null)
+            rateUsed.merge(resource, 1, Integer::sum);
+        Source source = source();
+        if (source != null)
+        {
+            source.requests++;
+            if (resource != null)
+                source.rateUsed++;
+        }
+    }
+
+    /**
+     * @return the source of the current request, or null if unattributed
+     */
+    private Source source()
+    {
+        RequestAttribution attribution = RequestAttribution.current();
+        if (attribution == null)
+            return null;
+        Source source = sources.computeIfAbsent(attribution.source(), (key) -> new Source(attribution.depth()));
+        source.depth = Math.min(source.depth, attribution.depth());
+        return source;
+    }
+
+    private Endpoint endpoint(String path)
+    {
+        return endpoints.computeIfAbsent(toEndpoint(path), (key) -> new Endpoint());
+    }
+
+    public synchronized Snapshot snapshot()
+    {
+        Map<String, EndpointSnapshot> snapshots = new TreeMap<>();
+        endpoints.forEach((name, endpoint) -> snapshots.put(name, new EndpointSnapshot(endpoint.requests, endpoint.cacheHits,
+            endpoint.cacheMisses, endpoint.errors, endpoint.bytes, Arrays.copyOf(endpoint.latencies, endpoint.latencyCount))));
+        Map<String, SourceSnapshot> sourceSnapshots = new HashMap<>();
+        sources.forEach((name, source) -> sourceSnapshots.put(name, new SourceSnapshot(source.depth, source.requests, source.cacheHits, source.rateUsed)));
+        return new Snapshot(snapshots, new TreeMap<>(rateUsed), sourceSnapshots);
+    }
+
+    /**
+     * The endpoint of a request path, without the query and with the variable segments
+     * replaced (eg: {@code /repos/{owner}/{repo}/issues/{num}/timeline}).
+     *
+     * @param path the request path
+     * @return the endpoint
+     */
+    public static String toEndpoint(String path)
+    {
+        int query = path.indexOf('?');
+        String[] segments = (query < 0 ? path : path.substring(0, query)).split("/");
+        StringBuilder endpoint = new StringBuilder();
+        for (int i = 1; i < segments.length; i++)
+        {
+            String segment = segments[i];
+            endpoint.append('/');
+            if (i == 2 && "repos".equals(segments[1]))
+                endpoint.append("{owner}");
+            else if (i == 3 && "repos".equals(segments[1]))
+                endpoint.append("{repo}");
+            else if (!segment.isEmpty() && segment.chars().allMatch(Character::isDigit))
+                endpoint.append("{num}");
+            else if (segment.length() == 40 && segment.chars().allMatch((c) -> Character.digit(c, 16) >= 0))
+                endpoint.append("{sha}");
+            else
+                endpoint.append(segment);
+        }
+        return endpoint.isEmpty() ? "/" : endpoint.toString();
+    }
+
+    /**
+     * @return the UTF-8 encoded length of the string, without encoding it
+     */
+    static long utf8Length(String str)
+    {
+        long length = 0;
+        for (int i = 0; i < str.length(); i++)
+        {
+            char c = str.charAt(i);
+            if (c < 0x80)
+                length++;
+            else if (c < 0x800)
+                length += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < str.length() && Character.isLowSurrogate(str.charAt(i + 1)))
+            {
+                length += 4;
+                i++;
+            }
+            else
+                length += 3;
+        }
+        return length;
+    }
+
+    private static class Endpoint
+    {
+        private int requests;
+        private int cacheHits;
+        private int cacheMisses;
+        private int errors;
+        private long bytes;
+        private long[] latencies = new long[16];
+        private int latencyCount;
+    }
+
+    private static class Source
+    {
+        private int depth;
+        private int requests;
+        private int cacheHits;
+        private int rateUsed;
+
+        private Source(int depth)
+        {
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * The requests caused by a source.
+     *
+     * @param depth the (lowest) discovery depth of the source
+     * @param requests the requests sent over HTTP
+     * @param cacheHits the requests answered by the cache
+     * @param rateUsed the requests counted against a rate limit
+     */
+    public record SourceSnapshot(int depth, int requests, int cacheHits, int rateUsed)
+    {
+        SourceSnapshot since(SourceSnapshot earlier)
+        {
+            if (earlier == null)
+                return this;
+            return new SourceSnapshot(depth, requests - earlier.requests, cacheHits - earlier.cacheHits, rateUsed - earlier.rateUsed);
+        }
+    }
+
+    /**
+     * The metrics of an endpoint.
+     *
+     * @param requests the requests sent over HTTP
+     * @param cacheHits the requests answered by the cache
+     * @param cacheMisses the requests not found in the cache (not counting the uncached ones, eg: GraphQL)
+     * @param errors the requests that failed (status 400 and above)
+     * @param bytes the size of the HTTP responses
+     * @param latencies the latencies (in nanoseconds) of the HTTP requests, in request order
+     */
+    public record EndpointSnapshot(int requests, int cacheHits, int cacheMisses, int errors, long bytes, long[] latencies)
+    {
+        EndpointSnapshot since(EndpointSnapshot earlier)
+        {
+            if (earlier == null)
+                return this;
+            return new EndpointSnapshot(requests - earlier.requests, cacheHits - earlier.cacheHits,
+                cacheMisses - earlier.cacheMisses, errors - earlier.errors,
+                bytes - earlier.bytes, Arrays.copyOfRange(latencies, earlier.latencies.length, latencies.length));
+        }
+    }
+
+    /**
+     * The metrics at a point of the run.
+     *
+     * @param endpoints the metrics per endpoint
+     * @param rateUsed the requests sent per rate limit resource
+     * @param sources the requests per source
+     */
+    public record Snapshot(Map<String, EndpointSnapshot> endpoints, Map<String, Integer> rateUsed, Map<String, SourceSnapshot> sources)
+    {
+        public static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), Map.of());
+
+        /**
+         * @param earlier an earlier snapshot of the same metrics
+         * @return the metrics since the earlier snapshot
+         */
+        public Snapshot since(Snapshot earlier)
+        {
+            Map<String, EndpointSnapshot> delta = new TreeMap<>();
+            endpoints.forEach((name, endpoint) ->
+            {
+                EndpointSnapshot since = endpoint.since(earlier.endpoints.get(name));
+                if (since.requests() > 0 || since.cacheHits() > 0)
+                    delta.put(name, since);
+            });
+            Map<String, Integer> rateDelta = new TreeMap<>();
+            rateUsed.forEach((resource, used) ->
+            {
+                int since = used - earlier.rateUsed.getOrDefault(resource, 0);
+                if (since > 0)
+                    rateDelta.put(resource, since);
+            });
+            Map<String, SourceSnapshot> sourceDelta = new HashMap<>();
+            sources.forEach((name, source) ->
+            {
+                SourceSnapshot since = source.since(earlier.sources.get(name));
+                if (since.requests() > 0 || since.cacheHits() > 0)
+                    sourceDelta.put(name, since);
+            });
+            return new Snapshot(delta, rateDelta, sourceDelta);
+        }
+
+        public int getRequests()
+        {
+            return endpoints.values().stream().mapToInt(EndpointSnapshot::requests).sum();
+        }
+
+        public int getCacheHits()
+        {
+            return endpoints.values().stream().mapToInt(EndpointSnapshot::cacheHits).sum();
+        }
+
+        public int getCacheMisses()
+        {
+            return endpoints.values().stream().mapToInt(EndpointSnapshot::cacheMisses).sum();
+        }
+
+        public long getBytes()
+        {
+            return endpoints.values().stream().mapToLong(EndpointSnapshot::bytes).sum();
+        }
+
+        /**
+         * @return the latencies (in nanoseconds) of all the HTTP requests, sorted
+         */
+        public long[] getSortedLatencies()
+        {
+            return endpoints.values().stream()
+                .flatMapToLong((endpoint) -> Arrays.stream(endpoint.latencies()))
+                .sorted()
+                .toArray();
+        }
+    }
+
+    /**
+     * @param sorted the sorted values
+     * @param percentile the percentile (eg: 99)
+     * @return the nearest-rank percentile of the values, or 0 if there are no values
+     */
+    public static long percentile(long[] sorted, double percentile)
+    {
+        if (sorted.length == 0)
+            return 0;
+        int rank = (int)Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+    }
+}
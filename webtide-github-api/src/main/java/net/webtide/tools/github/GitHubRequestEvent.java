@@ -0,0 +1,92 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.github;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for a GitHub API request, either answered by the
+ * {@link Cache} or sent over HTTP.
+ * <p>
+ * The duration of the event is the latency of the request, excluding any rate limit wait
+ * (see {@link RateLimitWaitEvent}).
+ * </p>
+ */
+@Name("net.webtide.tools.github.GitHubRequest")
+@Label("GitHub Request")
+@Category({"Webtide Release Tools", "GitHub"})
+@Description("A GitHub API request")
+@StackTrace(false)
+class GitHubRequestEvent extends Event
+{
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("Status")
+    @Description("The HTTP status code (200 or 404 for a cache hit)")
+    int status;
+
+    @Label("Response Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Cache Hit")
+    boolean cacheHit;
+
+    @Label("Source")
+    @Description("The commit or issue that caused the request, if attributed")
+    String source;
+
+    @Label("Depth")
+    @Description("The discovery depth of the source, -1 if unattributed")
+    int depth;
+
+    static GitHubRequestEvent start(String method, String path)
+    {
+        GitHubRequestEvent event = new GitHubRequestEvent();
+        event.begin();
+        event.method = method;
+        event.path = path;
+        return event;
+    }
+
+    /**
+     * End the request event, and commit it if enabled.
+     *
+     * @param status the HTTP status code
+     * @param body the response body (may be null)
+     * @param cacheHit true if the response came from the cache
+     */
+    void finish(int status, String body, boolean cacheHit)
+    {
+        if (shouldCommit())
+        {
+            this.status = status;
+            this.bytes = body == null ? 0 : GitHubMetrics.utf8Length(body);
+            this.cacheHit = cacheHit;
+            RequestAttribution attribution = RequestAttribution.current();
+            this.source = attribution == null ? null : attribution.source();
+            this.depth = attribution == null ? -1 : attribution.depth();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.github;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The GitHub API rate limit budget, shared by several consumers (eg: one per repository)
+ * using the same token concurrently.
+ * <p>
+ * Each active consumer is entitled to a fair share of the requests available in the
+ * current rate limit window.  A consumer that used its share can keep going as long as the
+ * unspent shares of the other consumers are still covered, otherwise it waits until another
+ * consumer is done, or the rate limit is reset.
+ * </p>
+ */
+public class RateBudget
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RateBudget.class);
+    /**
+     * The number of requests always left untouched in the rate limit.
+     */
+    public static final int RESERVE = 10;
+
+    // active consumers -> requests used in the current window
+    private final Map<String, Integer> used = new HashMap<>();
+    private RateLimits limits;
+
+    public synchronized void register(String consumer)
+    {
+        used.putIfAbsent(consumer, 0);
+    }
+
+    public synchronized void unregister(String consumer)
+    {
+        used.remove(consumer);
+        notifyAll();
+    }
+
+    /**
+     * Acquire a request, waiting for the consumer's share of the budget (or the rate limit reset) if needed.
+     *
+     * @param consumer the consumer making the request
+     * @param resource the rate limit resource (eg: {@code core} or {@code graphql})
+     * @param source the source of fresh rate limits, used when the current window expired
+     * @return the remaining requests of the resource
+     */
+    public synchronized int acquire(String consumer, String resource, RateLimitsSource source) throws IOException, InterruptedException
+    {
+        while (true)
+        {
+            int remaining = tryAcquire(consumer, resource, source);
+            if (remaining >= 0)
+                return remaining;
+
+            long waitMs = Math.max(1, getLimits(source).getRate().getReset() * 1000 - System.currentTimeMillis() + 1000);
+            boolean rateLimited = getRate(resource, source).remaining <= RESERVE;
+            if (rateLimited)
+                LOG.warn("Rate Limit applied.  Waiting {} ms", waitMs);
+            else
+                LOG.debug("Rate Limit share of {} used.  Waiting up to {} ms", consumer, waitMs);
+            RateLimitWaitEvent event = new RateLimitWaitEvent();
+            event.begin();
+            try
+            {
+                wait(waitMs);
+            }
+            finally
+            {
+                if (event.shouldCommit())
+                {
+                    event.consumer = consumer;
+                    event.resource = resource;
+                    event.requestedWait = waitMs;
+                    event.rateLimited = rateLimited;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Acquire a request, without waiting.
+     *
+     * @return the remaining requests of the resource, or -1 if the request cannot be made now
+     */
+    synchronized int tryAcquire(String consumer, String resource, RateLimitsSource source) throws IOException, InterruptedException
+    {
+        used.putIfAbsent(consumer, 0);
+        RateLimits.Rate rate = getRate(resource, source);
+        if (rate.remaining <= RESERVE || !hasShare(consumer, rate.remaining))
+            return -1;
+        rate.remaining--;
+        used.merge(consumer, 1, Integer::sum);
+        return rate.remaining;
+    }
+
+    /**
+     * Update the rate limit from the {@code X-RateLimit-*} headers of a response.
+     */
+    public synchronized void update(String resource, int remaining, long reset)
+    {
+        if (limits == null)
+            return;
+        RateLimits.Rate rate = limits.getResourceLimit(resource);
+        if (rate == null)
+            return;
+        if (reset > rate.reset)
+        {
+            rate.reset = reset;
+            rate.remaining = remaining;
+        }
+        else
+        {
+            // requests still in flight are already accounted for locally
+            rate.remaining = Math.min(rate.remaining, remaining);
+        }
+        notifyAll();
+    }
+
+    private boolean hasShare(String consumer, int remaining)
+    {
+        int active = used.size();
+        if (active <= 1)
+            return true;
+
+        int totalUsed = used.values().stream().mapToInt(Integer::intValue).sum();
+        int fairShare = (totalUsed + remaining - RESERVE) / active;
+        if (used.get(consumer) < fairShare)
+            return true;
+
+        // work conserving: go ahead if the unspent shares of the others are still covered
+        int owed = 0;
+        for (Map.Entry<String, Integer> entry : used.entrySet())
+        {
+            if (!entry.getKey().equals(consumer))
+                owed += Math.max(0, fairShare - entry.getValue());
+        }
+        return remaining - RESERVE - owed > 0;
+    }
+
+    private RateLimits getLimits(RateLimitsSource source) throws IOException, InterruptedException
+    {
+        if (limits == null || System.currentTimeMillis() >= limits.getRate().getReset() * 1000)
+        {
+            limits = source.getRateLimits();
+            // a new window, everybody starts over
+            used.replaceAll((consumer, count) -> 0);
+            notifyAll();
+        }
+        return limits;
+    }
+
+    private RateLimits.Rate getRate(String resource, RateLimitsSource source) throws IOException, InterruptedException
+    {
+        RateLimits.Rate rate = getLimits(source).getResourceLimit(resource);
+        if (rate == null)
+            throw new GitHubApiException("Unrecognized Rate Limit Type: " + resource);
+        return rate;
+    }
+
+    @FunctionalInterface
+    public interface RateLimitsSource
+    {
+        RateLimits getRateLimits() throws IOException, InterruptedException;
+    }
+}
@@ -45,7 +45,7 @@ public class RateLeft
         if (rate.remaining <= 10)
         {
             // we need to block requests until the reset time
-            long waitMs = (System.currentTimeMillis() - rate.reset) + 1000;
+            long waitMs = (rate.reset * 1000 - System.currentTimeMillis()) + 1000;
             LOG.warn("Rate Limit applied.  Waiting {} ms", waitMs);
             try
             {
@@ -61,6 +61,7 @@ public class RateLeft
 
     public boolean isExpired()
     {
-        return System.currentTimeMillis() > this.limits.rate.reset;
+        // the reset is in epoch seconds
+        return System.currentTimeMillis() > this.limits.rate.reset * 1000;
     }
 }
@@ -0,0 +1,48 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.github;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event for a wait of the {@link RateBudget}, either for the
+ * share of a consumer or for the reset of the rate limit.
+ */
+@Name("net.webtide.tools.github.RateLimitWait")
+@Label("Rate Limit Wait")
+@Category({"Webtide Release Tools", "GitHub"})
+@Description("A wait for the GitHub API rate limit budget")
+@StackTrace(false)
+class RateLimitWaitEvent extends Event
+{
+    @Label("Consumer")
+    String consumer;
+
+    @Label("Resource")
+    @Description("The rate limit resource (eg: core or graphql)")
+    String resource;
+
+    @Label("Requested Wait")
+    @Timespan(Timespan.MILLISECONDS)
+    long requestedWait;
+
+    @Label("Rate Limited")
+    @Description("True if the rate limit itself is exhausted, false if only the share of the consumer is used")
+    boolean rateLimited;
+}
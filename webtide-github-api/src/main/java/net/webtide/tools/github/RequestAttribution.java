@@ -0,0 +1,83 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.github;
+
+import java.util.concurrent.Callable;
+
+/**
+ * The cause of the GitHub API requests made by the current thread (eg: the commit or issue being
+ * resolved), recorded in the {@link GitHubMetrics} and the {@link GitHubRequestEvent}.
+ *
+ * @param source the cause of the requests (eg: a commit sha or an issue number)
+ * @param depth the discovery depth of the source (0 for the commits in range)
+ */
+public record RequestAttribution(String source, int depth)
+{
+    private static final ThreadLocal<RequestAttribution> CURRENT = new ThreadLocal<>();
+
+    /**
+     * @return the attribution of the requests of the current thread, or null if unattributed
+     */
+    public static RequestAttribution current()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+     * Call a task, attributing its requests to this source.
+     *
+     * @param task the task
+     * @param <T> the type of the result
+     * @return the result of the task
+     */
+    public <T> T call(Callable<T> task) throws Exception
+    {
+        RequestAttribution previous = CURRENT.get();
+        CURRENT.set(this);
+        try
+        {
+            return task.call();
+        }
+        finally
+        {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Run a task, attributing its requests to this source.
+     *
+     * @param task the task
+     */
+    public void run(Runnable task)
+    {
+        RequestAttribution previous = CURRENT.get();
+        CURRENT.set(this);
+        try
+        {
+            task.run();
+        }
+        finally
+        {
+            restore(previous);
+        }
+    }
+
+    private static void restore(RequestAttribution previous)
+    {
+        if (previous == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(previous);
+    }
+}
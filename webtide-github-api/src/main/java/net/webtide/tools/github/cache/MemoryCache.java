@@ -13,18 +13,17 @@
 package net.webtide.tools.github.cache;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.webtide.tools.github.Cache;
 import net.webtide.tools.github.GitHubResourceNotFoundException;
 
 public class MemoryCache implements Cache
 {
-    private Set<String> notFoundSet = new HashSet<>();
-    private Map<String, String> cached = new HashMap<>();
+    private Set<String> notFoundSet = ConcurrentHashMap.newKeySet();
+    private Map<String, String> cached = new ConcurrentHashMap<>();
 
     @Override
     public String getCached(String path) throws IOException
@@ -16,7 +16,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import net.webtide.tools.github.Cache;
 import net.webtide.tools.github.GitHubResourceNotFoundException;
@@ -25,7 +26,10 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class PersistentCache implements Cache
 {
+    private static final String GENERATION_FILE = "generation.txt";
+
     private final Path root;
+    private final AtomicBoolean modified = new AtomicBoolean();
 
     public PersistentCache()
     {
@@ -69,11 +73,58 @@ public class PersistentCache implements Cache
     {
         Path destFile = toJsonPath(path);
         Path parentDir = destFile.getParent();
-        if (!Files.exists(parentDir))
+        Files.createDirectories(parentDir);
+        // write to a temporary file first, so that concurrent readers never see a partial (or stale tail of a) body
+        Path tmpFile = Files.createTempFile(parentDir, destFile.getFileName().toString(), ".tmp");
+        try
+        {
+            Files.writeString(tmpFile, body, UTF_8);
+            Files.move(tmpFile, destFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(tmpFile);
+        }
+        // the first change of this cache instance starts a new generation
+        if (modified.compareAndSet(false, true))
+            nextGeneration(root);
+    }
+
+    /**
+     * The generation of a cache directory changes whenever entries are saved, once per {@link PersistentCache}
+     * instance (eg: once per run), allowing to tell whether the cache has changed since.
+     *
+     * @param cacheDir the cache directory
+     * @return the generation, 0 if the cache was never modified
+     */
+    public static long getGeneration(Path cacheDir)
+    {
+        Path generationFile = cacheDir.resolve(GENERATION_FILE);
+        try
+        {
+            if (Files.isRegularFile(generationFile))
+                return Long.parseLong(Files.readString(generationFile, UTF_8).trim());
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            // start over
+        }
+        return 0;
+    }
+
+    private static synchronized void nextGeneration(Path cacheDir) throws IOException
+    {
+        Path generationFile = cacheDir.resolve(GENERATION_FILE);
+        Path tmpFile = Files.createTempFile(cacheDir, GENERATION_FILE, ".tmp");
+        try
+        {
+            Files.writeString(tmpFile, Long.toString(getGeneration(cacheDir) + 1), UTF_8);
+            Files.move(tmpFile, generationFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
         {
-            Files.createDirectories(parentDir);
+            Files.deleteIfExists(tmpFile);
         }
-        Files.writeString(toJsonPath(path), body, UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
     }
 
     public void saveNotFound(String path) throws IOException
@@ -23,6 +23,8 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class CommitTest
 {
@@ -51,4 +53,16 @@ public class CommitTest
             assertEquals(4, commit.files.size());
         }
     }
+
+    @Test
+    public void testLoadCommitAuthorLogin() throws IOException
+    {
+        Path json = MavenTestingUtils.getTestResourcePathFile("github/graphql-result-commit-author.json");
+        assertEquals("joakime", GitHubApi.loadCommitAuthorLogin(Files.readString(json)));
+        // author without a GitHub user
+        assertNull(GitHubApi.loadCommitAuthorLogin("{\"data\":{\"repository\":{\"object\":{\"author\":{\"user\":null}}}}}"));
+        // unknown commit
+        assertThrows(GitHubResourceNotFoundException.class,
+            () -> GitHubApi.loadCommitAuthorLogin("{\"data\":{\"repository\":{\"object\":null}}}"));
+    }
 }
@@ -24,6 +24,8 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import net.webtide.tools.github.cache.PersistentCache;
 import net.webtide.tools.github.gson.ISO8601TypeAdapter;
+import net.webtide.tools.github.standin.GitHubStandIn;
+import net.webtide.tools.github.standin.GitHubStandInExtension;
 import org.eclipse.jetty.toolchain.test.MavenPaths;
 import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
 import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
@@ -35,7 +37,7 @@ import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
-@ExtendWith(WorkDirExtension.class)
+@ExtendWith({WorkDirExtension.class, GitHubStandInExtension.class})
 public class CrossReferenceTest
 {
     @Test
@@ -73,11 +75,13 @@ public class CrossReferenceTest
     }
 
     @Test
-    public void testIssueCrossReference(WorkDir workDir) throws IOException, InterruptedException
+    public void testIssueCrossReference(WorkDir workDir, GitHubStandIn standIn) throws IOException, InterruptedException
     {
-        GitHubApi github = GitHubApi.connect();
+        GitHubApi github = GitHubApi.connect(standIn.getURI());
         github.setCache(new PersistentCache(workDir.getEmptyPathDir()));
         List<CrossReference> crossReferences = github.issueCrossReferences("jetty", "jetty.project", 10330);
         assertNotNull(crossReferences);
+        assertEquals(1, crossReferences.size());
+        assertEquals("MERGED", crossReferences.get(0).getState());
     }
 }
@@ -13,26 +13,53 @@
 package net.webtide.tools.github;
 
 import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.OptionalLong;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import net.webtide.tools.github.standin.GitHubStandIn;
+import net.webtide.tools.github.standin.GitHubStandInExtension;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
+@ExtendWith(GitHubStandInExtension.class)
 public class GitHubApiTest
 {
     @Test
-    public void testRaw() throws IOException, InterruptedException
+    public void testRaw(GitHubStandIn standIn) throws IOException, InterruptedException
     {
-        GitHubApi api = GitHubApi.connect();
+        GitHubApi api = GitHubApi.connect(standIn.getURI());
         String path = "/repos/jetty/jetty.project/pulls/5676/commits";
         String body = api.raw(path, (requestBuilder) ->
             requestBuilder.GET()
                 .header("Accept", "application/vnd.github.v3+json")
                 .build()
         );
+        JsonArray commits = JsonParser.parseString(body).getAsJsonArray();
+        assertEquals(8, commits.size());
+        assertEquals(1, standIn.getRequestCount(path));
+    }
+
+    @Test
+    public void testParseRetryAfter()
+    {
+        long now = ZonedDateTime.parse("Wed, 21 Oct 2015 07:28:00 GMT", DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        assertEquals(OptionalLong.of(120_000), GitHubApi.parseRetryAfter("120", now));
+        assertEquals(OptionalLong.of(0), GitHubApi.parseRetryAfter(" 0 ", now));
+        assertEquals(OptionalLong.of(90_000), GitHubApi.parseRetryAfter("Wed, 21 Oct 2015 07:29:30 GMT", now));
+        // a date in the past
+        assertEquals(OptionalLong.of(0), GitHubApi.parseRetryAfter("Wed, 21 Oct 2015 07:00:00 GMT", now));
+        // invalid, falling back to the backoff
+        assertEquals(OptionalLong.empty(), GitHubApi.parseRetryAfter("-1", now));
+        assertEquals(OptionalLong.empty(), GitHubApi.parseRetryAfter("soon", now));
     }
 
     @Test
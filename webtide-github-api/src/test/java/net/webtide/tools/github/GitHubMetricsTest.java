@@ -0,0 +1,102 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.github;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class GitHubMetricsTest
+{
+    @Test
+    public void testEndpoint()
+    {
+        assertThat(GitHubMetrics.toEndpoint("/repos/jetty/jetty.project/issues/12345/timeline?per_page=100&page=2"),
+            is("/repos/{owner}/{repo}/issues/{num}/timeline"));
+        assertThat(GitHubMetrics.toEndpoint("/repos/jetty/jetty.project/commits/03984b49615e1cec8ba7edf82f0117a35dc0869a/pulls"),
+            is("/repos/{owner}/{repo}/commits/{sha}/pulls"));
+        assertThat(GitHubMetrics.toEndpoint("/graphql"), is("/graphql"));
+        assertThat(GitHubMetrics.toEndpoint("/"), is("/"));
+    }
+
+    @Test
+    public void testSnapshotSince()
+    {
+        GitHubMetrics metrics = new GitHubMetrics();
+        metrics.recordCacheHit("/repos/o/r/issues/1");
+        metrics.recordCacheMiss("/repos/o/r/issues/2");
+        metrics.recordRequest("/repos/o/r/issues/2", "core", 200, 100, TimeUnit.MILLISECONDS.toNanos(10));
+        GitHubMetrics.Snapshot before = metrics.snapshot();
+
+        for (int i = 1; i <= 100; i++)
+        {
+            metrics.recordCacheMiss("/repos/o/r/issues/" + (100 + i));
+            metrics.recordRequest("/repos/o/r/issues/" + (100 + i), "core", i == 100 ? 404 : 200, 10, TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        metrics.recordRequest("/graphql", "graphql", 200, 5, 1);
+        metrics.recordRequest("/rate_limit", null, 200, 5, 1);
+
+        GitHubMetrics.Snapshot since = metrics.snapshot().since(before);
+        assertThat(since.getRequests(), is(102));
+        assertThat(since.getCacheHits(), is(0));
+        assertThat(since.getCacheMisses(), is(100));
+        assertThat(since.getBytes(), is(1010L));
+        assertThat(since.rateUsed(), is(Map.of("core", 100, "graphql", 1)));
+
+        GitHubMetrics.EndpointSnapshot issues = since.endpoints().get("/repos/{owner}/{repo}/issues/{num}");
+        assertThat(issues.errors(), is(1));
+        long[] latencies = issues.latencies().clone();
+        Arrays.sort(latencies);
+        assertThat(GitHubMetrics.percentile(latencies, 50), is(TimeUnit.MILLISECONDS.toNanos(50)));
+        assertThat(GitHubMetrics.percentile(latencies, 99), is(TimeUnit.MILLISECONDS.toNanos(99)));
+        assertThat(GitHubMetrics.percentile(new long[0], 99), is(0L));
+    }
+
+    @Test
+    public void testUtf8Length()
+    {
+        String str = "aé€😀";
+        assertThat(GitHubMetrics.utf8Length(str), is((long)str.getBytes(UTF_8).length));
+    }
+
+    @Test
+    public void testAttribution() throws Exception
+    {
+        GitHubMetrics metrics = new GitHubMetrics();
+        metrics.recordRequest("/rate_limit", null, 200, 5, 1);
+        new RequestAttribution("#100", 1).call(() ->
+        {
+            metrics.recordCacheMiss("/repos/o/r/issues/100");
+            metrics.recordRequest("/repos/o/r/issues/100", "core", 200, 5, 1);
+            metrics.recordRequest("/graphql", "graphql", 200, 5, 1);
+            // nested attribution, restored afterwards
+            new RequestAttribution("#200", 2).run(() -> metrics.recordCacheHit("/repos/o/r/issues/200"));
+            metrics.recordRequest("/repos/o/r/issues/100/timeline", "core", 200, 5, 1);
+            return null;
+        });
+        // the same source found at a lower depth
+        new RequestAttribution("#200", 0).run(() -> metrics.recordCacheHit("/repos/o/r/issues/200"));
+        assertThat(RequestAttribution.current(), is((RequestAttribution)null));
+
+        Map<String, GitHubMetrics.SourceSnapshot> sources = metrics.snapshot().sources();
+        assertThat(sources, is(Map.of(
+            "#100", new GitHubMetrics.SourceSnapshot(1, 3, 0, 3),
+            "#200", new GitHubMetrics.SourceSnapshot(0, 0, 2, 0))));
+    }
+}
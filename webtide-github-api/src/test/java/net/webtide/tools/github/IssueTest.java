@@ -18,6 +18,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 import com.google.gson.Gson;
+import net.webtide.tools.github.standin.GitHubStandIn;
+import net.webtide.tools.github.standin.GitHubStandInExtension;
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
 import org.junit.jupiter.api.Test;
@@ -27,13 +29,13 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
-@ExtendWith(WorkDirExtension.class)
+@ExtendWith({WorkDirExtension.class, GitHubStandInExtension.class})
 public class IssueTest
 {
     @Test
-    public void testIssue5675() throws IOException, InterruptedException
+    public void testIssue5675(GitHubStandIn standIn) throws IOException, InterruptedException
     {
-        GitHubApi github = GitHubApi.connect();
+        GitHubApi github = GitHubApi.connect(standIn.getURI());
         Issue issue = github.issue("jetty", "jetty.project", 5675);
 
         assertNotNull(issue);
@@ -44,9 +46,9 @@ public class IssueTest
     }
 
     @Test
-    public void testPullRequest5676() throws IOException, InterruptedException
+    public void testPullRequest5676(GitHubStandIn standIn) throws IOException, InterruptedException
     {
-        GitHubApi github = GitHubApi.connect();
+        GitHubApi github = GitHubApi.connect(standIn.getURI());
         Issue issue = github.issue("jetty", "jetty.project", 5676);
 
         assertNotNull(issue);
@@ -0,0 +1,84 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.github;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+public class RateBudgetTest
+{
+    private static RateLimits newRateLimits(int remaining)
+    {
+        RateLimits.Rate rate = new RateLimits.Rate();
+        rate.limit = 5000;
+        rate.remaining = remaining;
+        rate.reset = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + TimeUnit.HOURS.toSeconds(1);
+        RateLimits rateLimits = new RateLimits();
+        rateLimits.rate = rate;
+        rateLimits.resources.put("core", rate);
+        return rateLimits;
+    }
+
+    @Test
+    public void testFairShare() throws IOException, InterruptedException
+    {
+        RateBudget budget = new RateBudget();
+        RateBudget.RateLimitsSource source = () -> newRateLimits(100 + RateBudget.RESERVE);
+        budget.register("a");
+        budget.register("b");
+
+        // "a" can use its half of the budget, but not more while "b" has not used its share
+        for (int i = 0; i < 50; i++)
+        {
+            assertThat(budget.tryAcquire("a", "core", source), greaterThanOrEqualTo(0));
+        }
+        assertThat(budget.tryAcquire("a", "core", source), is(-1));
+
+        // "b" still has its share
+        for (int i = 0; i < 10; i++)
+        {
+            assertThat(budget.tryAcquire("b", "core", source), greaterThanOrEqualTo(0));
+        }
+
+        // once "b" is done, "a" can use the rest
+        budget.unregister("b");
+        for (int i = 0; i < 40; i++)
+        {
+            assertThat(budget.tryAcquire("a", "core", source), greaterThanOrEqualTo(0));
+        }
+        // only the reserve is left
+        assertThat(budget.tryAcquire("a", "core", source), is(-1));
+    }
+
+    @Test
+    public void testSingleConsumer() throws IOException, InterruptedException
+    {
+        RateBudget budget = new RateBudget();
+        RateBudget.RateLimitsSource source = () -> newRateLimits(20 + RateBudget.RESERVE);
+        for (int i = 0; i < 20; i++)
+        {
+            assertThat(budget.acquire("default", "core", source), is(20 + RateBudget.RESERVE - i - 1));
+        }
+        assertThat(budget.tryAcquire("default", "core", source), is(-1));
+
+        // a response shows a new window
+        budget.update("core", 4999, TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + TimeUnit.HOURS.toSeconds(2));
+        assertThat(budget.tryAcquire("default", "core", source), is(4998));
+    }
+}
@@ -0,0 +1,367 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.github.standin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A local stand-in for the GitHub API, replaying recorded responses, for offline tests and benchmarks.
+ * <p>
+ * The responses are read from a fixture directory using the layout of the
+ * {@link net.webtide.tools.github.cache.PersistentCache} ({@code <path>.json}, with {@code -} for a
+ * resource not found), so a cache directory of a real run can be replayed as is.
+ * GraphQL queries are answered from {@code graphql/<sha-256 of the request body>.json}, or else {@code graphql.json}.
+ * </p>
+ * <p>
+ * The stand-in simulates the latency of the requests, the rate limit (with the {@code X-RateLimit-*}
+ * headers, and {@code /rate_limit}), the {@code ETag} revalidations ({@code 304}), server errors
+ * ({@code 502}) and secondary rate limits ({@code 403} with {@code Retry-After}), and counts the
+ * requests per path (see {@link #getRequestCount(String)}) and the maximum concurrent requests.
+ * </p>
+ */
+public class GitHubStandIn implements AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(GitHubStandIn.class);
+    public static final String NOT_FOUND = "-";
+
+    private final Path fixtures;
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger replayed = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    // rate limit resource -> remaining requests
+    private final Map<String, Integer> remaining = new TreeMap<>();
+    private Duration latency = Duration.ZERO;
+    private int rateLimit = 5000;
+    private long rateLimitReset;
+    private int serverErrorEvery;
+    private int secondaryLimitEvery;
+    private long retryAfterSeconds = 1;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param fixtures the directory of the recorded responses
+     */
+    public GitHubStandIn(Path fixtures)
+    {
+        this.fixtures = fixtures.toAbsolutePath().normalize();
+    }
+
+    /**
+     * @param latency the latency added to every request
+     */
+    public void setLatency(Duration latency)
+    {
+        this.latency = latency;
+    }
+
+    /**
+     * @param rateLimit the requests allowed per rate limit resource ({@code core} and {@code graphql}) in the window
+     */
+    public synchronized void setRateLimit(int rateLimit)
+    {
+        this.rateLimit = rateLimit;
+        this.remaining.clear();
+    }
+
+    /**
+     * @param serverErrorEvery fail every n-th request with a {@code 502}, 0 to never fail
+     */
+    public void setServerErrorEvery(int serverErrorEvery)
+    {
+        this.serverErrorEvery = serverErrorEvery;
+    }
+
+    /**
+     * @param secondaryLimitEvery reject every n-th request with a secondary rate limit {@code 403}, 0 to never reject
+     */
+    public void setSecondaryLimitEvery(int secondaryLimitEvery)
+    {
+        this.secondaryLimitEvery = secondaryLimitEvery;
+    }
+
+    /**
+     * @param retryAfterSeconds the {@code Retry-After} of the secondary rate limit responses
+     */
+    public void setRetryAfterSeconds(long retryAfterSeconds)
+    {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Start on an ephemeral port of the loopback interface.
+     *
+     * @return the URI of the stand-in API
+     */
+    public URI start() throws IOException
+    {
+        return start(0);
+    }
+
+    /**
+     * @param port the port, 0 for an ephemeral port
+     * @return the URI of the stand-in API
+     */
+    public URI start(int port) throws IOException
+    {
+        rateLimitReset = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + TimeUnit.HOURS.toSeconds(1);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        LOG.info("GitHub stand-in for {} on {}", fixtures, getURI());
+        return getURI();
+    }
+
+    public URI getURI()
+    {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort());
+    }
+
+    @Override
+    public void close()
+    {
+        if (server != null)
+            server.stop(0);
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * @param path the request path, with its query
+     * @return the number of requests of the path
+     */
+    public int getRequestCount(String path)
+    {
+        AtomicInteger count = requestCounts.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @return the number of requests, excluding {@code /rate_limit}
+     */
+    public int getRequestCount()
+    {
+        return replayed.get();
+    }
+
+    /**
+     * @return the maximum number of requests handled concurrently
+     */
+    public int getMaxConcurrentRequests()
+    {
+        return maxInFlight.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try (exchange)
+        {
+            byte[] requestBody;
+            try (InputStream in = exchange.getRequestBody())
+            {
+                requestBody = in.readAllBytes();
+            }
+
+            String path = exchange.getRequestURI().getRawPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query != null)
+                path += "?" + query;
+            requestCounts.computeIfAbsent(path, (key) -> new AtomicInteger()).incrementAndGet();
+
+            if (!latency.isZero())
+                Thread.sleep(latency.toMillis());
+
+            if ("/rate_limit".equals(path))
+            {
+                send(exchange, 200, getRateLimits());
+                return;
+            }
+
+            int count = replayed.incrementAndGet();
+            if (secondaryLimitEvery > 0 && count % secondaryLimitEvery == 0)
+            {
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(retryAfterSeconds));
+                send(exchange, 403, message("You have exceeded a secondary rate limit. Please wait a few minutes before you try again."));
+                return;
+            }
+            if (serverErrorEvery > 0 && count % serverErrorEvery == 0)
+            {
+                send(exchange, 502, message("Server Error"));
+                return;
+            }
+
+            boolean graphql = "POST".equals(exchange.getRequestMethod()) && "/graphql".equals(path);
+            String body = graphql ? loadGraphQl(requestBody) : load(path);
+            String etag = body == null ? null : "\"" + sha256(body.getBytes(UTF_8)) + "\"";
+            if (etag != null && etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+            {
+                // revalidations do not count against the rate limit
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            String resource = graphql ? "graphql" : "core";
+            int left = consume(resource);
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("X-RateLimit-Limit", Integer.toString(rateLimit));
+            headers.set("X-RateLimit-Remaining", Integer.toString(Math.max(0, left)));
+            headers.set("X-RateLimit-Used", Integer.toString(rateLimit - Math.max(0, left)));
+            headers.set("X-RateLimit-Reset", Long.toString(rateLimitReset));
+            headers.set("X-RateLimit-Resource", resource);
+            if (left < 0)
+                send(exchange, 403, message("API rate limit exceeded"));
+            else if (body == null)
+                send(exchange, 404, message("Not Found"));
+            else
+            {
+                headers.set("ETag", etag);
+                send(exchange, 200, body);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the remaining requests of the resource after this one, or -1 if the rate limit is exceeded
+     */
+    private synchronized int consume(String resource)
+    {
+        int left = remaining.getOrDefault(resource, rateLimit);
+        if (left <= 0)
+            return -1;
+        remaining.put(resource, --left);
+        return left;
+    }
+
+    private synchronized String getRateLimits()
+    {
+        StringBuilder json = new StringBuilder("{\"resources\":{");
+        String core = null;
+        for (String resource : new String[]{"core", "graphql"})
+        {
+            int left = remaining.getOrDefault(resource, rateLimit);
+            String rate = String.format("{\"limit\":%d,\"used\":%d,\"remaining\":%d,\"reset\":%d}", rateLimit, rateLimit - left, left, rateLimitReset);
+            if (core == null)
+                core = rate;
+            else
+                json.append(',');
+            json.append('"').append(resource).append("\":").append(rate);
+        }
+        return json.append("},\"rate\":").append(core).append('}').toString();
+    }
+
+    /**
+     * @return the recorded response of the path, or null if not found
+     */
+    private String load(String path) throws IOException
+    {
+        Path file = fixtures.resolve(path.substring(1) + ".json").normalize();
+        if (!file.startsWith(fixtures) || !Files.isRegularFile(file))
+            return null;
+        String body = Files.readString(file, UTF_8);
+        return NOT_FOUND.equals(body) ? null : body;
+    }
+
+    private String loadGraphQl(byte[] query) throws IOException
+    {
+        String body = load("/graphql/" + sha256(query));
+        return body == null ? load("/graphql") : body;
+    }
+
+    private static String message(String message)
+    {
+        return "{\"message\":\"" + message + "\",\"documentation_url\":\"https://docs.github.com/rest\"}";
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException
+    {
+        byte[] bytes = body.getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+
+    static String sha256(byte[] bytes)
+    {
+        try
+        {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Run a stand-in from the test classpath: {@code GitHubStandIn <fixtures-dir> [port] [latency-ms]}, then point
+     * the tools to it with {@code -Dgithub.api.url=<uri>} (or the {@code GITHUB_API_URL} environment variable).
+     */
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: GitHubStandIn <fixtures-dir> [port] [latency-ms]");
+            System.exit(1);
+        }
+        GitHubStandIn standIn = new GitHubStandIn(Path.of(args[0]));
+        if (args.length > 2)
+            standIn.setLatency(Duration.ofMillis(Long.parseLong(args[2])));
+        URI uri = standIn.start(args.length > 1 ? Integer.parseInt(args[1]) : 0);
+        System.out.printf("GitHub stand-in running on %s%n", uri);
+        Runtime.getRuntime().addShutdownHook(new Thread(standIn::close));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,58 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.github.standin;
+
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+/**
+ * Run a {@link GitHubStandIn} replaying the {@code github-standin} test resources for the tests of a class,
+ * and inject it in the test methods with a {@link GitHubStandIn} parameter.
+ */
+public class GitHubStandInExtension implements BeforeAllCallback, AfterAllCallback, ParameterResolver
+{
+    public static final String FIXTURES = "github-standin";
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(GitHubStandInExtension.class);
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws Exception
+    {
+        GitHubStandIn standIn = new GitHubStandIn(MavenTestingUtils.getTestResourcePathDir(FIXTURES));
+        standIn.start();
+        context.getStore(NAMESPACE).put(context.getRequiredTestClass(), standIn);
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context)
+    {
+        GitHubStandIn standIn = context.getStore(NAMESPACE).remove(context.getRequiredTestClass(), GitHubStandIn.class);
+        if (standIn != null)
+            standIn.close();
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext)
+    {
+        return parameterContext.getParameter().getType() == GitHubStandIn.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext)
+    {
+        return extensionContext.getStore(NAMESPACE).get(extensionContext.getRequiredTestClass(), GitHubStandIn.class);
+    }
+}
@@ -0,0 +1,166 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.github.standin;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.webtide.tools.github.GitHubApi;
+import net.webtide.tools.github.GitHubResourceNotFoundException;
+import net.webtide.tools.github.Issue;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GitHubStandInTest
+{
+    /**
+     * @return a fixture directory (in the PersistentCache layout) with the issues 1000 to 1000 + count - 1, and a not found issue 1
+     */
+    private static Path newFixtures(String name, int count) throws IOException
+    {
+        Path fixtures = MavenTestingUtils.getTargetTestingPath(name);
+        FS.ensureEmpty(fixtures);
+        Path issues = fixtures.resolve("repos/jetty/jetty.project/issues");
+        Files.createDirectories(issues);
+        String issue = Files.readString(MavenTestingUtils.getTestResourcePathFile("github/issue-eclipse-jetty.project-5676.json"), UTF_8);
+        for (int i = 0; i < count; i++)
+        {
+            Files.writeString(issues.resolve((1000 + i) + ".json"), issue, UTF_8);
+        }
+        Files.writeString(issues.resolve("1.json"), GitHubStandIn.NOT_FOUND, UTF_8);
+        return fixtures;
+    }
+
+    @Test
+    public void testReplay() throws Exception
+    {
+        try (GitHubStandIn standIn = new GitHubStandIn(newFixtures("testReplay", 1)))
+        {
+            standIn.setRateLimit(100);
+            GitHubApi github = GitHubApi.connect(standIn.start());
+
+            Issue issue = github.issue("jetty", "jetty.project", 1000);
+            assertThat(issue.getNumber(), is(5676));
+            // answered by the cache of the GitHubApi
+            github.issue("jetty", "jetty.project", 1000);
+            assertThat(standIn.getRequestCount("/repos/jetty/jetty.project/issues/1000"), is(1));
+
+            assertThrows(GitHubResourceNotFoundException.class, () -> github.issue("jetty", "jetty.project", 1));
+            assertThrows(GitHubResourceNotFoundException.class, () -> github.issue("jetty", "jetty.project", 2));
+
+            // every replayed request (found or not) used the rate limit
+            assertThat(github.getRateLimits().getResourceLimit("core").getRemaining(), is(97));
+            assertThat(github.getMetrics().snapshot().rateUsed().get("core"), is(3));
+        }
+    }
+
+    @Test
+    public void testRevalidation() throws Exception
+    {
+        try (GitHubStandIn standIn = new GitHubStandIn(newFixtures("testRevalidation", 1)))
+        {
+            URI uri = standIn.start().resolve("/repos/jetty/jetty.project/issues/1000");
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode(), is(200));
+            String etag = response.headers().firstValue("ETag").orElseThrow();
+            int remaining = Integer.parseInt(response.headers().firstValue("X-RateLimit-Remaining").orElseThrow());
+
+            response = client.send(HttpRequest.newBuilder(uri).header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode(), is(304));
+            assertThat(response.body(), is(""));
+
+            response = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+            // the revalidation did not use the rate limit
+            assertThat(Integer.parseInt(response.headers().firstValue("X-RateLimit-Remaining").orElseThrow()), is(remaining - 1));
+        }
+    }
+
+    @Test
+    public void testRetries() throws Exception
+    {
+        int count = 12;
+        try (GitHubStandIn standIn = new GitHubStandIn(newFixtures("testRetries", count)))
+        {
+            standIn.setServerErrorEvery(5);
+            standIn.setSecondaryLimitEvery(3);
+            standIn.setRetryAfterSeconds(0);
+            GitHubApi github = GitHubApi.connect(standIn.start());
+
+            for (int i = 0; i < count; i++)
+            {
+                assertThat(github.issue("jetty", "jetty.project", 1000 + i).getNumber(), is(5676));
+            }
+            // the failed requests were retried, and not cached as not found
+            assertThat(standIn.getRequestCount(), greaterThan(count));
+            for (int i = 0; i < count; i++)
+            {
+                github.issue("jetty", "jetty.project", 1000 + i);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception
+    {
+        int count = 16;
+        try (GitHubStandIn standIn = new GitHubStandIn(newFixtures("testConcurrentRequests", count)))
+        {
+            standIn.setLatency(Duration.ofMillis(50));
+            GitHubApi github = GitHubApi.connect(standIn.start());
+
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try
+            {
+                List<Future<Issue>> futures = new ArrayList<>();
+                for (int i = 0; i < count; i++)
+                {
+                    int num = 1000 + i;
+                    futures.add(executor.submit(() -> github.issue("jetty", "jetty.project", num)));
+                }
+                for (Future<Issue> future : futures)
+                {
+                    assertThat(future.get().getNumber(), is(5676));
+                }
+            }
+            finally
+            {
+                executor.shutdownNow();
+            }
+
+            assertThat(standIn.getMaxConcurrentRequests(), greaterThan(1));
+            for (int i = 0; i < count; i++)
+            {
+                assertThat(standIn.getRequestCount("/repos/jetty/jetty.project/issues/" + (1000 + i)), is(1));
+            }
+        }
+    }
+}
@@ -45,9 +45,12 @@ public class Args extends HashMap<String, String>
 
     public boolean getBoolean(String key, boolean defaultVal)
     {
+        if (!containsKey(key))
+            return defaultVal;
         String boolStr = get(key);
+        // a flag without value (eg: --prefetch)
         if (boolStr == null)
-            return defaultVal;
+            return true;
         return Boolean.parseBoolean(boolStr);
     }
 
@@ -69,6 +72,47 @@ public class Args extends HashMap<String, String>
         }
     }
 
+    /**
+     * Get a size in bytes, with an optional {@code k}, {@code m} or {@code g} suffix (eg: {@code 256m}).
+     */
+    public Long getSize(String key, Long defaultVal)
+    {
+        String value = get(key);
+        if (value == null)
+            return defaultVal;
+
+        try
+        {
+            return parseSize(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new ArgException("Invalid size value for option --%s=%s", key, value);
+        }
+    }
+
+    /**
+     * Parse a size in bytes, with an optional {@code k}, {@code m} or {@code g} suffix (eg: {@code 256m}).
+     *
+     * @param value the size
+     * @return the size in bytes
+     * @throws NumberFormatException if the size is not valid
+     */
+    public static long parseSize(String value)
+    {
+        String num = value.trim().toLowerCase();
+        long multiplier = 1;
+        if (num.endsWith("k"))
+            multiplier = 1024L;
+        else if (num.endsWith("m"))
+            multiplier = 1024L * 1024;
+        else if (num.endsWith("g"))
+            multiplier = 1024L * 1024 * 1024;
+        if (multiplier > 1)
+            num = num.substring(0, num.length() - 1);
+        return Long.parseLong(num) * multiplier;
+    }
+
     public String getOptional(String key)
     {
         return get(key);
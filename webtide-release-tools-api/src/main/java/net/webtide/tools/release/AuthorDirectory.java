@@ -0,0 +1,194 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The persistent directory of the email to GitHub login mappings learned at runtime,
+ * so that each unknown author email is looked up (at most) once, ever.
+ * <p>
+ * Emails looked up without finding a GitHub user are recorded as well (with an empty login).
+ * The {@code users.noreply.github.com} emails never need a lookup, see {@link #parseNoReplyLogin(String)}.
+ * </p>
+ */
+public class AuthorDirectory
+{
+    private static final Logger LOG = LoggerFactory.getLogger(AuthorDirectory.class);
+    // eg: 12345+login@users.noreply.github.com, or login@users.noreply.github.com
+    private static final Pattern NOREPLY_EMAIL = Pattern.compile("^(?:\\d+\\+)?([A-Za-z0-9-]+)@users\\.noreply\\.github\\.com$", Pattern.CASE_INSENSITIVE);
+    private static final Type MAP_TYPE = new TypeToken<Map<String, String>>()
+    {
+    }.getType();
+    private static final String NO_LOGIN = "";
+
+    private final Path file;
+    private final Map<String, String> logins = new TreeMap<>();
+    private boolean dirty;
+
+    private AuthorDirectory(Path file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * @return the default location of the directory, shared by every repository
+     */
+    public static Path getDefaultFile()
+    {
+        return Paths.get(System.getProperty("user.home"), ".cache", "git-changelog", "author-directory.json");
+    }
+
+    /**
+     * Load the directory.
+     *
+     * @param file the directory file (does not need to exist)
+     * @return the directory
+     */
+    public static AuthorDirectory load(Path file)
+    {
+        AuthorDirectory directory = new AuthorDirectory(file);
+        directory.logins.putAll(read(file));
+        LOG.debug("Loaded {} author logins: {}", directory.logins.size(), file);
+        return directory;
+    }
+
+    /**
+     * Get the GitHub login from a GitHub noreply email, without any lookup.
+     *
+     * @param email the email
+     * @return the login, or null if not a GitHub noreply email
+     */
+    public static String parseNoReplyLogin(String email)
+    {
+        if (email == null)
+            return null;
+        Matcher matcher = NOREPLY_EMAIL.matcher(email);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /**
+     * @param email the email
+     * @return true if the email was already looked up (with or without finding a login)
+     */
+    public synchronized boolean contains(String email)
+    {
+        return logins.containsKey(toKey(email));
+    }
+
+    /**
+     * @param email the email
+     * @return the login, or null if the email is unknown or not a GitHub user
+     */
+    public synchronized String getLogin(String email)
+    {
+        String login = logins.get(toKey(email));
+        return NO_LOGIN.equals(login) ? null : login;
+    }
+
+    /**
+     * Record the result of a lookup.
+     *
+     * @param email the email
+     * @param login the login, or null if the email is not a GitHub user
+     */
+    public synchronized void put(String email, String login)
+    {
+        logins.put(toKey(email), login == null ? NO_LOGIN : login);
+        dirty = true;
+    }
+
+    public synchronized int size()
+    {
+        return logins.size();
+    }
+
+    /**
+     * Save the directory if anything was learned, merged with the current content of the file
+     * (which may have been updated by another run meanwhile).
+     */
+    public synchronized void save()
+    {
+        if (!dirty || file == null)
+            return;
+
+        Map<String, String> merged = new TreeMap<>(read(file));
+        merged.putAll(logins);
+        try
+        {
+            Path parent = file.toAbsolutePath().getParent();
+            FS.ensureDirectoryExists(parent);
+            // the directory is shared by concurrent runs, each writes its own temporary file
+            Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, UTF_8))
+            {
+                newGson().toJson(merged, MAP_TYPE, writer);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+            LOG.debug("Saved {} author logins: {}", merged.size(), file);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Unable to save: {}", file, e);
+        }
+    }
+
+    private static Map<String, String> read(Path file)
+    {
+        if (file == null || !Files.isRegularFile(file))
+            return Map.of();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, UTF_8))
+        {
+            Map<String, String> logins = newGson().fromJson(reader, MAP_TYPE);
+            return logins == null ? Map.of() : logins;
+        }
+        catch (IOException | JsonParseException e)
+        {
+            LOG.warn("Unable to read: {}", file, e);
+            return Map.of();
+        }
+    }
+
+    private static Gson newGson()
+    {
+        return new GsonBuilder().setPrettyPrinting().create();
+    }
+
+    private static String toKey(String email)
+    {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
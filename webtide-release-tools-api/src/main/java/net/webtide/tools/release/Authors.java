@@ -17,8 +17,12 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 import com.google.gson.Gson;
 
@@ -26,7 +30,9 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class Authors extends ArrayList<Author>
 {
-    private Map<String, Integer> emailMap = new HashMap<>();
+    // indexes, kept up to date as authors (and their emails) are added
+    private final Map<String, Author> emailMap = new HashMap<>();
+    private final Map<String, Author> loginMap = new HashMap<>();
 
     public Authors()
     {
@@ -48,40 +54,78 @@ public class Authors extends ArrayList<Author>
     public boolean add(Author author)
     {
         boolean ret = super.add(author);
-        updateEmailMap();
+        index(author);
         return ret;
     }
 
+    @Override
+    public boolean addAll(Collection<? extends Author> authors)
+    {
+        boolean ret = super.addAll(authors);
+        authors.forEach(this::index);
+        return ret;
+    }
+
+    /**
+     * Add an email to a known author.
+     *
+     * @param author the author (already added)
+     * @param email the additional email of the author
+     */
+    public void addEmail(Author author, String email)
+    {
+        if (!author.emails().contains(email))
+            author.email(email);
+        emailMap.put(toKey(email), author);
+    }
+
+    /**
+     * @return a snapshot of the emails of the authors known so far, that can be tested from any thread
+     */
+    public Predicate<String> knownEmails()
+    {
+        Set<String> emails = Set.copyOf(emailMap.keySet());
+        return (email) -> email != null && emails.contains(toKey(email));
+    }
+
     public Author find(String email)
     {
-        Integer idx = emailMap.get(email);
-        if (idx == null)
+        if (email == null)
+            return null;
+        return emailMap.get(toKey(email));
+    }
+
+    /**
+     * @param login the GitHub login
+     * @return the author with the GitHub login, or null if unknown
+     */
+    public Author findByLogin(String login)
+    {
+        if (login == null)
             return null;
-        return get(idx);
+        return loginMap.get(toKey(login));
     }
 
     public boolean isCommitter(String email)
     {
-        Integer idx = emailMap.get(email);
-        if (idx == null)
-            return false;
-        Author author = get(idx);
+        Author author = find(email);
         if (author == null)
             return false;
         return author.committer();
     }
 
-    private void updateEmailMap()
+    private void index(Author author)
     {
-        emailMap.clear();
-        int size = this.size();
-        for (int i = 0; i < size; i++)
+        for (String email : author.emails())
         {
-            Author author = this.get(i);
-            for (String email : author.emails())
-            {
-                emailMap.put(email, i);
-            }
+            emailMap.put(toKey(email), author);
         }
+        if (author.github() != null)
+            loginMap.putIfAbsent(toKey(author.github()), author);
+    }
+
+    private static String toKey(String str)
+    {
+        return str.toLowerCase(Locale.ROOT);
     }
 }
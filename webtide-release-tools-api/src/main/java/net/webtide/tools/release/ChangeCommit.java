@@ -15,49 +15,53 @@ package net.webtide.tools.release;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+
+import com.google.gson.annotations.JsonAdapter;
+import org.eclipse.jgit.lib.ObjectId;
 
 public class ChangeCommit extends ChangeRef
 {
-    private String sha;
+    @JsonAdapter(ObjectIdTypeAdapter.class)
+    private ObjectId sha;
     private Author author;
     private String title;
     private String body;
     private ZonedDateTime commitTime;
     private List<String> files;
     private List<String> branches;
-    private Set<Integer> issueRefs;
-    private Set<Integer> pullRequestRefs;
+    @JsonAdapter(IntSetTypeAdapter.class)
+    private IntSet issueRefs;
+    @JsonAdapter(IntSetTypeAdapter.class)
+    private IntSet pullRequestRefs;
 
     public void addIssueRef(int ref)
     {
         if (issueRefs == null)
-            issueRefs = new HashSet<>();
+            issueRefs = new IntSet();
         issueRefs.add(ref);
     }
 
-    public void addIssueRefs(Collection<Integer> refs)
+    public void addIssueRefs(IntSet refs)
     {
         if (issueRefs == null)
-            issueRefs = new HashSet<>();
+            issueRefs = new IntSet(refs.size());
         issueRefs.addAll(refs);
     }
 
     public void addPullRequestRef(int ref)
     {
         if (pullRequestRefs == null)
-            pullRequestRefs = new HashSet<>();
+            pullRequestRefs = new IntSet();
         pullRequestRefs.add(ref);
     }
 
-    public void addPullRequestRefs(Collection<Integer> refs)
+    public void addPullRequestRefs(IntSet refs)
     {
         if (refs.isEmpty())
             return;
         if (pullRequestRefs == null)
-            pullRequestRefs = new HashSet<>();
+            pullRequestRefs = new IntSet(refs.size());
         pullRequestRefs.addAll(refs);
     }
 
@@ -123,24 +127,37 @@ public class ChangeCommit extends ChangeRef
         }
     }
 
-    public Set<Integer> getIssueRefs()
+    public IntSet getIssueRefs()
     {
         return issueRefs;
     }
 
-    public Set<Integer> getPullRequestRefs()
+    public IntSet getPullRequestRefs()
     {
         return pullRequestRefs;
     }
 
-    public String getSha()
+    public ObjectId getId()
     {
         return sha;
     }
 
+    public void setId(ObjectId id)
+    {
+        this.sha = id == null ? null : id.copy();
+    }
+
+    /**
+     * @return the (lowercase) hex SHA of the commit
+     */
+    public String getSha()
+    {
+        return sha == null ? null : sha.name();
+    }
+
     public void setSha(String sha)
     {
-        this.sha = sha;
+        this.sha = ObjectId.fromString(sha);
     }
 
     public String getTitle()
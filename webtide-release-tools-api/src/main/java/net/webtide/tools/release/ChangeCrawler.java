@@ -0,0 +1,324 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Work-queue crawler of the commit/issue graph.
+ * <p>
+ * Each commit or issue is submitted once, as soon as it is discovered, and resolved right away
+ * by the workers of two stages: the git stage (local analysis, each worker with its own RevWalk)
+ * and the GitHub stage (network lookups).  The resolutions are applied by the crawling thread only,
+ * in the order the commits and issues were submitted, and applying a resolution submits the
+ * commits and issues it discovers.  The crawl is done (quiescent) once the source of commits
+ * is exhausted and every submitted resolution was applied.
+ * </p>
+ * <p>
+ * The commits of the source (eg: a {@link CommitProducer}) are only taken while fewer than the
+ * window of source commits are in flight, and at deterministic points of the crawl.
+ * As the resolutions are also applied in a deterministic order, the resulting graph is the same
+ * regardless of the number of workers.
+ * </p>
+ */
+class ChangeCrawler implements AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeCrawler.class);
+    private static final int PROGRESS_INTERVAL = 250;
+
+    private final Repository repository;
+    private final ExecutorService gitExecutor;
+    private final ExecutorService githubExecutor;
+    private final int window;
+    private final ThreadLocal<RevWalk> walks;
+    private final Queue<RevWalk> allWalks = new ConcurrentLinkedQueue<>();
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    private final Set<String> submittedCommits = new HashSet<>();
+    private final Set<Integer> submittedIssues = new HashSet<>();
+    private boolean feeding;
+    private int sourceInFlight;
+    private int resolvedCommits;
+    private int resolvedIssues;
+
+    /**
+     * @param repository the repository
+     * @param threads the number of GitHub stage workers (the git stage is also limited to the number of processors)
+     */
+    ChangeCrawler(Repository repository, int threads)
+    {
+        int githubThreads = Math.max(1, threads);
+        int gitThreads = Math.min(githubThreads, Runtime.getRuntime().availableProcessors());
+        this.repository = repository;
+        this.gitExecutor = Executors.newFixedThreadPool(gitThreads);
+        this.githubExecutor = Executors.newFixedThreadPool(githubThreads);
+        // enough source commits in flight to keep both stages busy
+        this.window = Math.max(64, 8 * githubThreads);
+        this.walks = ThreadLocal.withInitial(this::newRevWalk);
+    }
+
+    @Override
+    public void close()
+    {
+        gitExecutor.shutdownNow();
+        githubExecutor.shutdownNow();
+        try
+        {
+            if (!gitExecutor.awaitTermination(30, TimeUnit.SECONDS) || !githubExecutor.awaitTermination(30, TimeUnit.SECONDS))
+                LOG.warn("Resolve workers did not terminate");
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        allWalks.forEach(RevWalk::close);
+    }
+
+    /**
+     * Run a task on the git stage.
+     *
+     * @param task the task, given the RevWalk of the worker
+     * @param <T> the type of the result
+     * @return the future result
+     */
+    <T> CompletableFuture<T> git(GitTask<T> task)
+    {
+        return supply(gitExecutor, () -> task.run(walks.get()));
+    }
+
+    /**
+     * Run a task on the GitHub stage.
+     *
+     * @param task the task
+     * @param <T> the type of the result
+     * @return the future result
+     */
+    <T> CompletableFuture<T> github(Callable<T> task)
+    {
+        return supply(githubExecutor, task);
+    }
+
+    /**
+     * Submit a commit for resolution, unless it was already submitted.
+     *
+     * @param sha the commit
+     * @param resolver starts the resolution of the commit (see {@link #git(GitTask)} and {@link #github(Callable)})
+     */
+    void submitCommit(String sha, Supplier<CompletableFuture<Resolution>> resolver)
+    {
+        if (submittedCommits.add(sha))
+            submit(true, resolver);
+    }
+
+    /**
+     * Submit an issue (or pull request) for resolution, unless it was already submitted.
+     *
+     * @param num the issue number
+     * @param resolver starts the resolution of the issue (see {@link #github(Callable)})
+     */
+    void submitIssue(int num, Supplier<CompletableFuture<Resolution>> resolver)
+    {
+        if (submittedIssues.add(num))
+            submit(false, resolver);
+    }
+
+    /**
+     * Apply the resolutions, in submission order, until there is nothing left to resolve.
+     */
+    void run() throws IOException, InterruptedException
+    {
+        run(Collections.emptyIterator(), (sha) ->
+        {
+        });
+    }
+
+    /**
+     * Apply the resolutions, in submission order, until the source is exhausted and there is nothing left to resolve.
+     *
+     * @param source the source of commits (which may block until the next commit is available)
+     * @param discover called with each commit of the source, expected to submit the commit
+     */
+    void run(Iterator<String> source, Consumer<String> discover) throws IOException, InterruptedException
+    {
+        while (true)
+        {
+            while (sourceInFlight < window && source.hasNext())
+            {
+                feeding = true;
+                try
+                {
+                    discover.accept(source.next());
+                }
+                finally
+                {
+                    feeding = false;
+                }
+            }
+
+            Pending next = pending.poll();
+            if (next == null)
+                break;
+
+            Resolution resolution;
+            try
+            {
+                resolution = next.future().get();
+            }
+            catch (ExecutionException e)
+            {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException ioe)
+                    throw ioe;
+                if (cause instanceof InterruptedException ie)
+                    throw ie;
+                if (cause instanceof RuntimeException re)
+                    throw re;
+                throw new ChangelogException("Unable to resolve changes", cause);
+            }
+
+            resolution.apply();
+            if (next.fromSource())
+                sourceInFlight--;
+            if (next.commit())
+                resolvedCommits++;
+            else
+                resolvedIssues++;
+
+            if ((resolvedCommits + resolvedIssues) % PROGRESS_INTERVAL == 0)
+                LOG.info("Crawl progress: {}", this);
+        }
+    }
+
+    /**
+     * @return the number of commits submitted for resolution
+     */
+    int getDiscoveredCommits()
+    {
+        return submittedCommits.size();
+    }
+
+    /**
+     * @return the number of issues (and pull requests) submitted for resolution
+     */
+    int getDiscoveredIssues()
+    {
+        return submittedIssues.size();
+    }
+
+    /**
+     * @return the number of resolved commits
+     */
+    int getResolvedCommits()
+    {
+        return resolvedCommits;
+    }
+
+    /**
+     * @return the number of resolved issues (and pull requests)
+     */
+    int getResolvedIssues()
+    {
+        return resolvedIssues;
+    }
+
+    /**
+     * @return the number of submitted commits and issues not yet applied
+     */
+    int getPending()
+    {
+        return pending.size();
+    }
+
+    private void submit(boolean commit, Supplier<CompletableFuture<Resolution>> resolver)
+    {
+        pending.add(new Pending(commit, feeding, resolver.get()));
+        if (feeding)
+            sourceInFlight++;
+    }
+
+    private static <T> CompletableFuture<T> supply(ExecutorService executor, Callable<T> task)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() ->
+        {
+            try
+            {
+                future.complete(task.call());
+            }
+            catch (Throwable x)
+            {
+                future.completeExceptionally(x);
+            }
+        });
+        return future;
+    }
+
+    private RevWalk newRevWalk()
+    {
+        RevWalk walk = new RevWalk(repository);
+        allWalks.add(walk);
+        return walk;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("commits %d/%d, issues %d/%d, pending %d",
+            resolvedCommits, getDiscoveredCommits(),
+            resolvedIssues, getDiscoveredIssues(),
+            getPending());
+    }
+
+    /**
+     * A task of the git stage, using the RevWalk of the worker.
+     */
+    @FunctionalInterface
+    interface GitTask<T>
+    {
+        T run(RevWalk walk) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Apply a resolved commit or issue to the model, on the crawling thread.
+     */
+    @FunctionalInterface
+    interface Resolution
+    {
+        void apply();
+    }
+
+    private record Pending(boolean commit, boolean fromSource, Future<Resolution> future)
+    {
+    }
+}
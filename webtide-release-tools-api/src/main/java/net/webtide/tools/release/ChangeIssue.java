@@ -14,10 +14,12 @@ package net.webtide.tools.release;
 
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Locale;
 import java.util.Set;
 import java.util.TreeSet;
 
+import com.google.gson.annotations.JsonAdapter;
+import org.eclipse.jgit.lib.ObjectId;
+
 public class ChangeIssue extends ChangeRef
 {
     private final int num;
@@ -26,8 +28,10 @@ public class ChangeIssue extends ChangeRef
     private String baseRef;
     private String state;
     private IssueType type = IssueType.UNKNOWN;
-    private Set<Integer> referencedIssues = new HashSet<>();
-    private Set<String> commits = new HashSet<>();
+    @JsonAdapter(IntSetTypeAdapter.class)
+    private IntSet referencedIssues = new IntSet();
+    @JsonAdapter(ObjectIdSetTypeAdapter.class)
+    private Set<ObjectId> commits = new HashSet<>();
     private Set<String> labels = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
 
     public ChangeIssue(int num)
@@ -35,9 +39,18 @@ public class ChangeIssue extends ChangeRef
         this.num = num;
     }
 
+    public void addCommit(ObjectId commitId)
+    {
+        this.commits.add(commitId.copy());
+    }
+
+    /**
+     * @param commitId the hex SHA of the commit (anything else is ignored)
+     */
     public void addCommit(String commitId)
     {
-        this.commits.add(commitId.toLowerCase(Locale.US));
+        if (ObjectId.isId(commitId))
+            addCommit(ObjectId.fromString(commitId));
     }
 
     public void addLabels(Collection<String> labels)
@@ -45,7 +58,7 @@ public class ChangeIssue extends ChangeRef
         this.labels.addAll(labels);
     }
 
-    public void addReferencedIssues(Collection<Integer> issueNums)
+    public void addReferencedIssues(IntSet issueNums)
     {
         this.referencedIssues.addAll(issueNums);
     }
@@ -70,7 +83,7 @@ public class ChangeIssue extends ChangeRef
         this.body = body;
     }
 
-    public Set<String> getCommits()
+    public Set<ObjectId> getCommits()
     {
         return commits;
     }
@@ -85,7 +98,7 @@ public class ChangeIssue extends ChangeRef
         return num;
     }
 
-    public Set<Integer> getReferencedIssues()
+    public IntSet getReferencedIssues()
     {
         return referencedIssues;
     }
@@ -125,6 +138,36 @@ public class ChangeIssue extends ChangeRef
         return labels.contains(label);
     }
 
+    /**
+     * Take the details of an issue resolved separately (eg: by a crawler worker),
+     * keeping the commits and references already known.
+     */
+    void update(ChangeIssue resolved)
+    {
+        this.title = resolved.title;
+        this.body = resolved.body;
+        this.baseRef = resolved.baseRef;
+        this.state = resolved.state;
+        this.type = resolved.type;
+        this.labels.addAll(resolved.labels);
+        this.referencedIssues.addAll(resolved.referencedIssues);
+        this.commits.addAll(resolved.commits);
+        resolved.getSkipSet().forEach(this::addSkipReason);
+    }
+
+    /**
+     * Restore the case-insensitive ordering of the labels (eg: after deserialization).
+     */
+    void normalizeLabels()
+    {
+        if (labels instanceof TreeSet)
+            return;
+        Set<String> sorted = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        if (labels != null)
+            sorted.addAll(labels);
+        labels = sorted;
+    }
+
     @Override
     public String toString()
     {
@@ -44,6 +44,20 @@ public abstract class ChangeRef
         }
     }
 
+    public void removeSkipReason(Skip skip)
+    {
+        if (skipSet != null)
+            skipSet.remove(skip);
+    }
+
+    /**
+     * Forget the change this belongs to, so that the changes can be computed again.
+     */
+    public void clearChangeRef()
+    {
+        this.changeRef = -1;
+    }
+
     public int getChangeRef()
     {
         return this.changeRef;
@@ -51,7 +65,7 @@ public abstract class ChangeRef
 
     public void setChangeRef(Change change)
     {
-        assert (this.changeRef != -1);
+        assert (this.changeRef == -1);
         this.changeRef = change.getNumber();
     }
 
@@ -24,6 +24,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.google.gson.FieldNamingPolicy;
@@ -37,15 +40,21 @@ import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ListBranchCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.AbstractTreeIterator;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,12 +64,18 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class ChangelogCache implements AutoCloseable
 {
     private final static Logger LOG = LoggerFactory.getLogger(ChangelogCache.class);
+    // allowed clock skew when pruning branch tips by commit time (only without generation numbers),
+    // generous as a tip wrongly pruned makes an excluded branch commit look included
+    private static final int COMMIT_TIME_SLOP = (int)TimeUnit.DAYS.toSeconds(30);
     private final Git git;
     private final Repository repository;
-    private final RevWalk revWalker;
     private final Gson gson;
     private final Path commitsCache;
     private final Commits commits;
+    private CommitGraphAccess commitGraph;
+    private List<Ref> branchRefs;
+    // the commits changed since the cache was last saved
+    private boolean dirty;
 
     public ChangelogCache(Git git)
     {
@@ -71,7 +86,6 @@ public class ChangelogCache implements AutoCloseable
     {
         this.git = git;
         this.repository = git.getRepository();
-        this.revWalker = new RevWalk(this.repository);
         this.gson = new GsonBuilder().setPrettyPrinting()
             .registerTypeAdapter(ZonedDateTime.class, new ISO8601TypeAdapter())
             .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
@@ -80,6 +94,10 @@ public class ChangelogCache implements AutoCloseable
         LOG.info("Git Cache: {}", cacheFile);
         this.commitsCache = cacheFile;
         this.commits = loadCommitsCache();
+
+        // let JGit use the commit-graph (if present) for its own commit parsing and walks
+        this.repository.getConfig().setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_COMMIT_GRAPH, true);
+        this.commitGraph = CommitGraphAccess.load(repository);
     }
 
     private static Path resolveCacheFile(Repository repository)
@@ -107,38 +125,258 @@ public class ChangelogCache implements AutoCloseable
     @Override
     public void close()
     {
-        this.revWalker.close();
+        flush();
+    }
+
+    /**
+     * Save the cache, if any of the commits changed since it was last saved.
+     */
+    public synchronized void flush()
+    {
+        if (dirty)
+            save();
+    }
+
+    /**
+     * @return true if the repository has a commit-graph that was loaded
+     */
+    public boolean hasCommitGraph()
+    {
+        return commitGraph != null;
+    }
+
+    /**
+     * Write the commit-graph (with changed-path Bloom filters) for all commits reachable from the refs in the repository.
+     * Equivalent of {@code git commit-graph write --reachable --changed-paths}.
+     */
+    public void writeCommitGraph()
+    {
+        if (CommitGraphAccess.write(repository))
+            this.commitGraph = CommitGraphAccess.load(repository);
+    }
+
+    /**
+     * Use the commit-graph changed-path Bloom filters to test if a commit only touched excluded paths,
+     * without performing a tree diff.
+     * <p>
+     * The top-level entries of the commit (and its parent) are tested against the Bloom filter.
+     * Tree entries are presented to the predicate with a trailing {@code /}, and should only
+     * be reported as excluded if every path within that tree is excluded.
+     * </p>
+     *
+     * @param sha the commit to test
+     * @param topLevelExcluded predicate that returns true if the top-level entry is excluded
+     * @return true if the commit is proven to only touch excluded top-level entries, false if it might
+     * have touched something else (or the commit-graph is unable to answer)
+     */
+    public boolean touchesOnlyExcluded(String sha, Predicate<String> topLevelExcluded)
+    {
+        if (commitGraph == null)
+            return false;
+
+        Commit cached = getCachedCommit(Sha.toLowercase(sha));
+        if ((cached != null) && (cached.getDiffPaths() != null))
+            return false; // already known paths are cheaper to filter
+
+        ObjectId commitId = ObjectId.fromString(sha);
+        Predicate<String> filter = commitGraph.getChangedPathFilter(commitId);
+        if (filter == null)
+            return false;
+
+        try (RevWalk walk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository))
+        {
+            RevCommit commit = walk.parseCommit(commitId);
+            if (commit.getParentCount() != 1)
+                return false;
+            RevCommit parent = walk.parseCommit(commit.getParent(0));
+            treeWalk.addTree(parent.getTree());
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(false);
+
+            while (treeWalk.next())
+            {
+                String name = treeWalk.getPathString();
+                String entry = treeWalk.isSubtree() ? name + "/" : name;
+                if (topLevelExcluded.test(entry))
+                    continue;
+                if (filter.test(name))
+                    return false;
+            }
+            return true;
+        }
+        catch (IOException e)
+        {
+            LOG.debug("Unable to test changed-path filter for {}", sha, e);
+            return false;
+        }
+    }
+
+    /**
+     * Test if a commit is contained in any of the branches matching the predicate.
+     * <p>
+     * Only the branches that match the predicate are evaluated, stopping at the first branch
+     * that contains the commit.  Branch tips that cannot contain the commit (by generation
+     * number, or else by commit time) are pruned before walking any history.
+     * </p>
+     *
+     * @param sha the commit
+     * @param branchPredicate the predicate to select branches (by full ref name)
+     * @return true if a selected branch contains the commit
+     */
+    public boolean isInAnyBranch(String sha, Predicate<String> branchPredicate)
+    {
+        String commitId = Sha.toLowercase(sha);
+        GitLookupEvent event = GitLookupEvent.start(GitLookupEvent.IN_ANY_BRANCH, commitId);
+        Commit cached = getCachedCommit(commitId);
+        if ((cached != null) && (cached.getBranches() != null))
+        {
+            boolean inBranch = cached.getBranches().stream().anyMatch(branchPredicate);
+            event.finish(true, inBranch ? 1 : 0);
+            return inBranch;
+        }
+
+        boolean inBranch = isGitInAnyBranch(commitId, branchPredicate);
+        event.finish(false, inBranch ? 1 : 0);
+        return inBranch;
+    }
+
+    private boolean isGitInAnyBranch(String commitId, Predicate<String> branchPredicate)
+    {
+        List<Ref> candidates = getBranchRefs().stream()
+            .filter((ref) -> branchPredicate.test(ref.getName()))
+            .toList();
+        if (candidates.isEmpty())
+            return false;
+
+        try (RevWalk walk = new RevWalk(repository))
+        {
+            RevCommit commit = walk.parseCommit(ObjectId.fromString(commitId));
+            int generation = getGeneration(commit);
+
+            for (Ref ref : candidates)
+            {
+                RevObject tipObj = walk.peel(walk.parseAny(ref.getObjectId()));
+                if (!(tipObj instanceof RevCommit tip))
+                    continue;
+                if (tip.equals(commit))
+                    return true;
+
+                int tipGeneration = getGeneration(tip);
+                if ((generation > 0) && (tipGeneration > 0))
+                {
+                    if (tipGeneration <= generation)
+                        continue; // tip cannot have commit as an ancestor
+                }
+                else if (tip.getCommitTime() + COMMIT_TIME_SLOP < commit.getCommitTime())
+                {
+                    // tip is too old to have commit as an ancestor, unless the committer clocks
+                    // were skewed by more than the slop (only trusted without a commit-graph)
+                    continue;
+                }
+
+                if (walk.isMergedInto(commit, tip))
+                    return true;
+            }
+            return false;
+        }
+        catch (IOException e)
+        {
+            throw new ChangelogException("Unable to query git for branches containing: " + commitId, e);
+        }
     }
 
     public Set<String> getBranchesContaining(String sha)
     {
         String commitId = Sha.toLowercase(sha);
-        Commit commit = getCommit(commitId);
-        Set<String> branches = commit.getBranches();
+        GitLookupEvent event = GitLookupEvent.start(GitLookupEvent.BRANCHES, commitId);
+        Set<String> branches;
+        synchronized (this)
+        {
+            branches = getCommit(commitId).getBranches();
+        }
         if (branches == null)
         {
             // look up from git
-            branches = getGitBranchesContaining(commitId);
-            commit.setBranches(branches);
-            commits.putCommit(commit);
-            save();
+            Set<String> gitBranches = getGitBranchesContaining(commitId);
+            updateCommit(commitId, (commit) -> commit.setBranches(gitBranches));
+            event.finish(false, gitBranches.size());
+            return gitBranches;
         }
+        event.finish(true, branches.size());
         return branches;
     }
 
     public Set<String> getPaths(String sha)
     {
         String commitId = Sha.toLowercase(sha);
-        Commit commit = getCommit(commitId);
-        Set<String> paths = commit.getDiffPaths();
+        GitLookupEvent event = GitLookupEvent.start(GitLookupEvent.DIFF, commitId);
+        Set<String> paths;
+        synchronized (this)
+        {
+            paths = getCommit(commitId).getDiffPaths();
+        }
         if (paths == null)
         {
             // look up from git
-            paths = getGitCommitPaths(ObjectId.fromString(commitId));
-            commit.setDiffPaths(paths);
-            commits.putCommit(commit);
-            save();
+            Set<String> gitPaths = getGitCommitPaths(ObjectId.fromString(commitId));
+            updateCommit(commitId, (commit) -> commit.setDiffPaths(gitPaths));
+            event.finish(false, gitPaths.size());
+            return gitPaths;
         }
+        event.finish(true, paths.size());
+        return paths;
+    }
+
+    /**
+     * Get the paths changed in a commit that are not excluded.
+     * <p>
+     * The exclusions are applied during the tree diff, so excluded trees are never descended
+     * and the full set of paths is never materialized.
+     * </p>
+     *
+     * @param sha the commit
+     * @param exclusions the path exclusions
+     * @return the set of interesting paths (empty if no interesting paths are left)
+     */
+    public Set<String> getPaths(String sha, PathExclusions exclusions)
+    {
+        String commitId = Sha.toLowercase(sha);
+        String key = exclusions.getKey();
+        GitLookupEvent event = GitLookupEvent.start(GitLookupEvent.FILTERED_DIFF, commitId);
+        Set<String> paths;
+        synchronized (this)
+        {
+            Commit commit = getCommit(commitId);
+
+            // the full set of paths is already known, the /dev/null side of the added
+            // and deleted files is not a path of the commit, as with the tree walk below
+            paths = commit.getDiffPaths();
+            if (paths != null)
+            {
+                Set<String> interesting = paths.stream()
+                    .filter((path) -> !DiffEntry.DEV_NULL.equals(path))
+                    .filter(Predicate.not(exclusions::isExcluded))
+                    .collect(Collectors.toSet());
+                event.finish(true, interesting.size());
+                return interesting;
+            }
+
+            if (key != null && !key.equals(commits.getPathExclusionsKey()))
+                commits.resetInterestingPaths(key);
+
+            paths = (key == null) ? null : commit.getInterestingPaths();
+        }
+
+        if (paths == null)
+        {
+            Set<String> gitPaths = getGitCommitPaths(ObjectId.fromString(commitId), exclusions);
+            if (key != null)
+                updateCommit(commitId, (commit) -> commit.setInterestingPaths(gitPaths));
+            event.finish(false, gitPaths.size());
+            return gitPaths;
+        }
+        event.finish(true, paths.size());
         return paths;
     }
 
@@ -163,6 +401,19 @@ public class ChangelogCache implements AutoCloseable
         return paths;
     }
 
+    private synchronized Commit getCachedCommit(String sha)
+    {
+        return commits.getCommit(sha);
+    }
+
+    private synchronized void updateCommit(String commitId, Consumer<Commit> update)
+    {
+        Commit commit = getCommit(commitId);
+        update.accept(commit);
+        commits.putCommit(commit);
+        dirty = true;
+    }
+
     private Commit getCommit(String commitId)
     {
         String sha = Sha.toLowercase(commitId);
@@ -196,9 +447,9 @@ public class ChangelogCache implements AutoCloseable
 
     private Set<String> getGitCommitPaths(ObjectId commitId)
     {
-        try
+        try (RevWalk walk = new RevWalk(repository))
         {
-            RevCommit revCommit = revWalker.parseCommit(commitId);
+            RevCommit revCommit = walk.parseCommit(commitId);
             return collectPathsInCommit(revCommit);
         }
         catch (IOException | GitAPIException e)
@@ -207,6 +458,59 @@ public class ChangelogCache implements AutoCloseable
         }
     }
 
+    private synchronized List<Ref> getBranchRefs()
+    {
+        if (branchRefs == null)
+        {
+            try
+            {
+                branchRefs = repository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS, Constants.R_REMOTES);
+            }
+            catch (IOException e)
+            {
+                throw new ChangelogException("Unable to list branches", e);
+            }
+        }
+        return branchRefs;
+    }
+
+    /**
+     * @return the generation number of the commit from the commit-graph, or -1 if unknown
+     */
+    private int getGeneration(RevCommit commit)
+    {
+        if (commitGraph == null)
+            return -1;
+        return commitGraph.getGeneration(commit);
+    }
+
+    private Set<String> getGitCommitPaths(ObjectId commitId, PathExclusions exclusions)
+    {
+        try (RevWalk walk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository))
+        {
+            RevCommit commit = walk.parseCommit(commitId);
+            if (commit.getParentCount() > 0)
+                treeWalk.addTree(walk.parseCommit(commit.getParent(0)).getTree());
+            else
+                treeWalk.addTree(new EmptyTreeIterator());
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, exclusions.toTreeFilter()));
+
+            Set<String> paths = new HashSet<>();
+            while (treeWalk.next())
+            {
+                paths.add(treeWalk.getPathString());
+            }
+            return paths;
+        }
+        catch (IOException e)
+        {
+            throw new ChangelogException("Unable to get diff paths for commit: " + commitId, e);
+        }
+    }
+
     private Commits loadCommitsCache()
     {
         if (Files.exists(commitsCache))
@@ -242,8 +546,9 @@ public class ChangelogCache implements AutoCloseable
         }
     }
 
-    private void save()
+    private synchronized void save()
     {
+        dirty = false;
         try (BufferedWriter writer = Files.newBufferedWriter(commitsCache, UTF_8);
              JsonWriter jsonWriter = gson.newJsonWriter(writer))
         {
@@ -259,12 +564,28 @@ public class ChangelogCache implements AutoCloseable
     {
         @SerializedName("commits")
         private Map<String, Commit> commitsMap = new HashMap<>();
+        // the path exclusions that the commit interesting paths were computed with
+        private String pathExclusionsKey;
 
         public Commit getCommit(String sha)
         {
             return commitsMap.get(sha);
         }
 
+        public String getPathExclusionsKey()
+        {
+            return pathExclusionsKey;
+        }
+
+        /**
+         * Path exclusions have changed, forget all of the interesting paths
+         */
+        public void resetInterestingPaths(String pathExclusionsKey)
+        {
+            this.pathExclusionsKey = pathExclusionsKey;
+            commitsMap.values().forEach((commit) -> commit.setInterestingPaths(null));
+        }
+
         public void putCommit(Commit commit)
         {
             commitsMap.put(commit.getSha(), commit);
@@ -276,6 +597,7 @@ public class ChangelogCache implements AutoCloseable
         private String sha;
         private Set<String> branches;
         private Set<String> diffPaths;
+        private Set<String> interestingPaths;
 
         public Set<String> getBranches()
         {
@@ -297,6 +619,16 @@ public class ChangelogCache implements AutoCloseable
             this.diffPaths = diffPaths;
         }
 
+        public Set<String> getInterestingPaths()
+        {
+            return interestingPaths;
+        }
+
+        public void setInterestingPaths(Set<String> interestingPaths)
+        {
+            this.interestingPaths = interestingPaths;
+        }
+
         public String getSha()
         {
             return sha;
@@ -0,0 +1,178 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import net.webtide.tools.github.gson.ISO8601TypeAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The changes discovered for a range, allowing the outputs of the same range to be written again
+ * (eg: by the other goals of a release build) without discovering the changes again.
+ * <p>
+ * Discoveries are kept in memory for the life of the JVM, and in a file (named after the key) so
+ * that they can also be reused by another JVM, as long as the key is the same.
+ * </p>
+ * <p>
+ * The key of {@link ChangelogTool#getDiscoveryKey()} does not cover the authors nor the GitHub resources,
+ * so callers must scope it (eg: to a build) before any reuse.
+ * </p>
+ *
+ * @see ChangelogTool#getDiscoveryKey()
+ */
+public class ChangelogDiscovery
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ChangelogDiscovery.class);
+    private static final int VERSION = 1;
+    private static final Map<String, ChangelogDiscovery> DISCOVERIES = new ConcurrentHashMap<>();
+
+    private int version = VERSION;
+    // the configuration and current version commit the changes were discovered for
+    private String key;
+    private ZonedDateTime currentVersionCommitterWhen;
+    private Changelog changelog;
+
+    public ChangelogDiscovery(String key, ZonedDateTime currentVersionCommitterWhen, Changelog changelog)
+    {
+        this.key = key;
+        this.currentVersionCommitterWhen = currentVersionCommitterWhen;
+        this.changelog = changelog;
+    }
+
+    private static Gson newGson()
+    {
+        return new GsonBuilder()
+            .registerTypeAdapter(ZonedDateTime.class, new ISO8601TypeAdapter())
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
+    }
+
+    /**
+     * Find a discovery, in memory or else in the directory.
+     *
+     * @param key the discovery key
+     * @param directory the directory of the discovery files
+     * @return the discovery, or null if the changes of the key were not discovered yet
+     */
+    public static ChangelogDiscovery find(String key, Path directory)
+    {
+        ChangelogDiscovery discovery = DISCOVERIES.get(key);
+        if (discovery == null && directory != null)
+        {
+            discovery = load(getFile(directory, key), key);
+            if (discovery != null)
+                DISCOVERIES.putIfAbsent(key, discovery);
+        }
+        return discovery;
+    }
+
+    /**
+     * @param directory the directory of the discovery files
+     * @param key the discovery key
+     * @return the discovery file of the key
+     */
+    public static Path getFile(Path directory, String key)
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(UTF_8));
+            return directory.resolve("discovery-" + HexFormat.of().formatHex(digest, 0, 12) + ".json");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new ChangelogException("Unable to hash discovery key", e);
+        }
+    }
+
+    /**
+     * Load a discovery file.
+     *
+     * @param file the discovery file
+     * @param key the expected discovery key
+     * @return the discovery, or null if there is no usable discovery for the key
+     */
+    public static ChangelogDiscovery load(Path file, String key)
+    {
+        if (!Files.isRegularFile(file))
+            return null;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, UTF_8))
+        {
+            ChangelogDiscovery discovery = newGson().fromJson(reader, ChangelogDiscovery.class);
+            if (discovery == null || discovery.version != VERSION || discovery.changelog == null || !key.equals(discovery.key))
+            {
+                LOG.info("Ignoring discovery: {}", file);
+                return null;
+            }
+            return discovery;
+        }
+        catch (IOException | JsonParseException e)
+        {
+            LOG.warn("Unable to read discovery: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Keep the discovery in memory, and save it in the directory.
+     *
+     * @param directory the directory of the discovery files
+     */
+    public void store(Path directory) throws IOException
+    {
+        DISCOVERIES.put(key, this);
+
+        FS.ensureDirectoryExists(directory);
+        Path file = getFile(directory, key);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, UTF_8))
+        {
+            newGson().toJson(this, writer);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    public ZonedDateTime getCurrentVersionCommitterWhen()
+    {
+        return currentVersionCommitterWhen;
+    }
+
+    public Changelog getChangelog()
+    {
+        return changelog;
+    }
+}
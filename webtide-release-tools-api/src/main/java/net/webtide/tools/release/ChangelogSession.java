@@ -0,0 +1,259 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.webtide.tools.github.GitHubApi;
+import net.webtide.tools.github.cache.PersistentCache;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The resources shared by every {@link ChangelogTool} working on the same repository:
+ * the git repository and its cache, the authors, and the GitHub API along with the
+ * GitHub resources already resolved.
+ * <p>
+ * This allows changelogs for several ranges (eg: one per maintained branch) to be
+ * generated in one process, with each issue and pull request only resolved once.
+ * </p>
+ */
+public class ChangelogSession implements AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ChangelogSession.class);
+
+    private final Git git;
+    private final Repository repository;
+    private final ChangelogCache changelogCache;
+    private final LocalPullRequests localPullRequests;
+    private final Authors authors;
+    private final Map<String, Object> gitHubResources = new ConcurrentHashMap<>();
+    private final LongAdder gitHubResourceHits = new LongAdder();
+    private final LongAdder gitHubResourceMisses = new LongAdder();
+    private Path gitCacheDir;
+    private Path authorDirectoryFile = AuthorDirectory.getDefaultFile();
+    private AuthorDirectory authorDirectory;
+    private GitHubApi github;
+
+    public ChangelogSession(Path localGitRepo) throws IOException
+    {
+        git = Git.open(localGitRepo.toFile());
+        repository = git.getRepository();
+        changelogCache = new ChangelogCache(git);
+        localPullRequests = new LocalPullRequests(repository);
+        authors = Authors.load();
+        System.out.println("Repository: " + repository);
+    }
+
+    /**
+     * Open a session for the repository of the configuration, applying the
+     * repository level settings (pack access, git cache directory, and commit-graph).
+     *
+     * @param config the configuration
+     * @return the new session
+     */
+    public static ChangelogSession open(Config config) throws IOException
+    {
+        ChangelogSession session = new ChangelogSession(PackAccess.install(config));
+        session.configure(config);
+        return session;
+    }
+
+    /**
+     * Open a session for one of several repositories processed together, using a shared GitHubApi.
+     * The pack access settings are JVM wide, so they are not applied here, see
+     * {@link PackAccess#install(Config, java.util.Collection)}.
+     *
+     * @param config the configuration of the repository
+     * @param github the GitHubApi (eg: {@link GitHubApi#forConsumer(String)})
+     * @return the new session
+     */
+    public static ChangelogSession open(Config config, GitHubApi github) throws IOException
+    {
+        ChangelogSession session = new ChangelogSession(config.getRepoPath());
+        session.github = github;
+        session.configure(config);
+        return session;
+    }
+
+    private void configure(Config config)
+    {
+        setGitCacheDir(config.getGitCacheDir());
+        if (config.getAuthorDirectoryFile() != null)
+            setAuthorDirectoryFile(config.getAuthorDirectoryFile());
+        if (config.isWriteCommitGraph() && !changelogCache.hasCommitGraph())
+            changelogCache.writeCommitGraph();
+    }
+
+    @Override
+    public void close()
+    {
+        if (this.authorDirectory != null)
+            this.authorDirectory.save();
+        this.changelogCache.close();
+        this.repository.close();
+        this.git.close();
+    }
+
+    public Authors getAuthors()
+    {
+        return authors;
+    }
+
+    /**
+     * @return the email to GitHub login mappings learned so far (loaded on first use)
+     */
+    public synchronized AuthorDirectory getAuthorDirectory()
+    {
+        if (authorDirectory == null)
+            authorDirectory = AuthorDirectory.load(authorDirectoryFile);
+        return authorDirectory;
+    }
+
+    public Path getAuthorDirectoryFile()
+    {
+        return authorDirectoryFile;
+    }
+
+    public synchronized void setAuthorDirectoryFile(Path authorDirectoryFile)
+    {
+        this.authorDirectoryFile = authorDirectoryFile;
+        this.authorDirectory = null;
+    }
+
+    public ChangelogCache getChangelogCache()
+    {
+        return changelogCache;
+    }
+
+    public Git getGit()
+    {
+        return git;
+    }
+
+    public Path getGitCacheDir()
+    {
+        return gitCacheDir;
+    }
+
+    public void setGitCacheDir(Path gitCacheDir)
+    {
+        if (gitCacheDir == null)
+        {
+            this.gitCacheDir = null;
+            return;
+        }
+
+        this.gitCacheDir = gitCacheDir.toAbsolutePath();
+        try
+        {
+            FS.ensureDirectoryExists(this.gitCacheDir);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Unable to create git cache dir: {}", this.gitCacheDir, e);
+        }
+    }
+
+    public synchronized GitHubApi getGitHubApi() throws IOException, InterruptedException
+    {
+        if (github == null)
+        {
+            github = GitHubApi.connect();
+            if (gitCacheDir != null && Files.isDirectory(gitCacheDir))
+            {
+                github.setCache(new PersistentCache(gitCacheDir));
+                LOG.info("Git Cache Enabled: {}", gitCacheDir);
+            }
+            LOG.info("GitHub API Rate Limits: {}", github.getRateLimits());
+        }
+        return github;
+    }
+
+    /**
+     * @return the GitHub API, or null if it was not used (connected) yet
+     */
+    public synchronized GitHubApi getConnectedGitHubApi()
+    {
+        return github;
+    }
+
+    public LocalPullRequests getLocalPullRequests()
+    {
+        return localPullRequests;
+    }
+
+    public Repository getRepository()
+    {
+        return repository;
+    }
+
+    /**
+     * Get a GitHub resource, only requesting (and parsing) it once per session.
+     * <p>
+     * Safe to call concurrently, although concurrent callers asking for the same (not yet
+     * resolved) resource may each request it.
+     * </p>
+     *
+     * @param key the unique key of the resource (eg: {@code <owner>/<repo>/issues/<num>})
+     * @param request the request for the resource, if not yet resolved
+     * @param <T> the type of the resource
+     * @return the resource
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getGitHubResource(String key, GitHubRequest<T> request) throws IOException, InterruptedException
+    {
+        Object resource = gitHubResources.get(key);
+        if (resource == null)
+        {
+            gitHubResourceMisses.increment();
+            resource = request.request(getGitHubApi());
+            if (resource != null)
+                gitHubResources.put(key, resource);
+        }
+        else
+        {
+            gitHubResourceHits.increment();
+        }
+        return (T)resource;
+    }
+
+    /**
+     * @return the number of GitHub resources already resolved by the session when requested
+     */
+    public long getGitHubResourceHits()
+    {
+        return gitHubResourceHits.sum();
+    }
+
+    /**
+     * @return the number of GitHub resources requested from the GitHub API
+     */
+    public long getGitHubResourceMisses()
+    {
+        return gitHubResourceMisses.sum();
+    }
+
+    @FunctionalInterface
+    public interface GitHubRequest<T>
+    {
+        T request(GitHubApi github) throws IOException, InterruptedException;
+    }
+}
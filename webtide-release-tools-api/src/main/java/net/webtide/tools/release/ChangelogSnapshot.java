@@ -0,0 +1,164 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import net.webtide.tools.github.gson.ISO8601TypeAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The resolved state of a prior changelog run (the commits, issues, and their skip reasons),
+ * allowing a later run to only walk the commits added since, and only resolve new or expired issues.
+ */
+public class ChangelogSnapshot
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ChangelogSnapshot.class);
+    private static final int VERSION = 1;
+
+    private int version = VERSION;
+    // the configuration (range start, repo, exclusions) the snapshot was created with
+    private String key;
+    // the commit that was walked up to
+    private String head;
+    private Map<String, ChangeCommit> commits = new HashMap<>();
+    private Map<Integer, ChangeIssue> issues = new HashMap<>();
+    // when each issue was resolved (epoch millis)
+    private Map<Integer, Long> issueResolvedTimes = new HashMap<>();
+
+    private static Gson newGson()
+    {
+        return new GsonBuilder()
+            .registerTypeAdapter(ZonedDateTime.class, new ISO8601TypeAdapter())
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
+    }
+
+    /**
+     * Load a snapshot.
+     *
+     * @param file the snapshot file
+     * @return the snapshot, or null if there is no usable snapshot
+     */
+    public static ChangelogSnapshot load(Path file)
+    {
+        if (file == null || !Files.isRegularFile(file))
+            return null;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, UTF_8))
+        {
+            ChangelogSnapshot snapshot = newGson().fromJson(reader, ChangelogSnapshot.class);
+            if (snapshot == null || snapshot.version != VERSION || snapshot.head == null)
+            {
+                LOG.info("Ignoring incompatible snapshot: {}", file);
+                return null;
+            }
+            if (snapshot.commits == null)
+                snapshot.commits = new HashMap<>();
+            if (snapshot.issues == null)
+                snapshot.issues = new HashMap<>();
+            if (snapshot.issueResolvedTimes == null)
+                snapshot.issueResolvedTimes = new HashMap<>();
+            snapshot.issues.values().forEach(ChangeIssue::normalizeLabels);
+            return snapshot;
+        }
+        catch (IOException | JsonParseException e)
+        {
+            LOG.warn("Unable to read snapshot: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Save the snapshot, replacing any existing snapshot file.
+     *
+     * @param file the snapshot file
+     */
+    public void save(Path file) throws IOException
+    {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            FS.ensureDirectoryExists(parent);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, UTF_8))
+        {
+            newGson().toJson(this, writer);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public Map<String, ChangeCommit> getCommits()
+    {
+        return commits;
+    }
+
+    public void setCommits(Map<String, ChangeCommit> commits)
+    {
+        this.commits = commits;
+    }
+
+    public String getHead()
+    {
+        return head;
+    }
+
+    public void setHead(String head)
+    {
+        this.head = head;
+    }
+
+    public Map<Integer, Long> getIssueResolvedTimes()
+    {
+        return issueResolvedTimes;
+    }
+
+    public void setIssueResolvedTimes(Map<Integer, Long> issueResolvedTimes)
+    {
+        this.issueResolvedTimes = issueResolvedTimes;
+    }
+
+    public Map<Integer, ChangeIssue> getIssues()
+    {
+        return issues;
+    }
+
+    public void setIssues(Map<Integer, ChangeIssue> issues)
+    {
+        this.issues = issues;
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    public void setKey(String key)
+    {
+        this.key = key;
+    }
+}
@@ -14,43 +14,46 @@ package net.webtide.tools.release;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.google.common.base.Strings;
-import com.google.gson.FieldNamingPolicy;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.stream.JsonWriter;
-import net.webtide.tools.github.Commit;
 import net.webtide.tools.github.CrossReference;
 import net.webtide.tools.github.GitHubApi;
+import net.webtide.tools.github.GitHubMetrics;
 import net.webtide.tools.github.GitHubResourceNotFoundException;
-import net.webtide.tools.github.Issue;
 import net.webtide.tools.github.IssueEvents;
 import net.webtide.tools.github.Label;
 import net.webtide.tools.github.PullRequestCommits;
 import net.webtide.tools.github.PullRequests;
-import net.webtide.tools.github.cache.PersistentCache;
-import net.webtide.tools.github.gson.ISO8601TypeAdapter;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.LogCommand;
+import net.webtide.tools.github.RequestAttribution;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.ObjectId;
@@ -62,49 +65,100 @@ import org.eclipse.jgit.revwalk.RevWalk;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 public class ChangelogTool implements AutoCloseable
 {
     private static final Logger LOG = LoggerFactory.getLogger(ChangelogTool.class);
+    // the number of commits in range walked ahead of their resolution
+    private static final int RANGE_QUEUE_SIZE = 1024;
 
-    private final Git git;
+    private final ChangelogSession session;
+    private final boolean ownsSession;
     private final Repository repository;
     private final ChangelogCache changelogCache;
-    private final Authors authors = Authors.load();
+    private final LocalPullRequests localPullRequests;
+    private final Authors authors;
+    // the authors known when the tool was created, safe to test from the workers
+    private final Predicate<String> knownAuthorEmails;
+    // the login lookups of the unknown author emails, shared by the workers
+    private final Map<String, CompletableFuture<String>> authorLogins = new ConcurrentHashMap<>();
     private final Changelog changelog = new Changelog();
-    private final Map<Integer, ChangeIssue> issueMap = new HashMap<>();
-    private final Map<String, ChangeCommit> commitMap = new HashMap<>();
+    private final IntMap<ChangeIssue> issueMap = new IntMap<>();
+    private final Map<ObjectId, ChangeCommit> commitMap = new LinkedHashMap<>();
     private final List<Predicate<String>> branchExclusion = new ArrayList<>();
-    private final List<Predicate<String>> commitPathExclusionFilters = new ArrayList<>();
+    private final List<String> branchExclusionRegexes = new ArrayList<>();
+    private final PathExclusions commitPathExclusions = new PathExclusions();
     private final Set<String> excludedLabels = new HashSet<>();
     private String githubOwner;
     private String githubRepoName;
-    private GitHubApi github;
-    private Path gitCacheDir;
     private String branch;
     private String tagOldVersion;
     private String refCurrentVersion;
     private Predicate<String> branchesExclusionPredicate;
+    private Path snapshotFile;
+    private int snapshotIssueExpiryDays = 7;
+    private final Map<Integer, Long> issueResolvedTimes = new HashMap<>();
+    private String walkedHead;
+    private int resolveThreads = 1;
+    private IssueScanner issueScanner = new IssueScanner(IssueScanner.DEFAULT_SCAN_LIMIT);
+    private ChangeCrawler crawler;
+    // the run metrics, relative to the state of the (possibly shared) session when the tool was created
+    private final long createdNanos = System.nanoTime();
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final long sessionHitsBefore;
+    private final long sessionMissesBefore;
+    private final GitHubMetrics.Snapshot gitHubBefore;
+    private long discoveryNanos;
 
     public ChangelogTool(Path localGitRepo) throws IOException
     {
-        git = Git.open(localGitRepo.toFile());
-        repository = git.getRepository();
-        changelogCache = new ChangelogCache(git);
-        System.out.println("Repository: " + repository);
+        this(new ChangelogSession(localGitRepo), true);
     }
 
     public ChangelogTool(Config config) throws IOException
     {
-        this(config.getRepoPath());
+        this(ChangelogSession.open(config), true);
+        configure(config);
+    }
+
+    /**
+     * A ChangelogTool for the range of the configuration, sharing the repository, authors,
+     * and GitHub resources of the session (which is not closed by this tool).
+     *
+     * @param session the session
+     * @param config the configuration of the range
+     */
+    public ChangelogTool(ChangelogSession session, Config config)
+    {
+        this(session, false);
+        configure(config);
+    }
+
+    private ChangelogTool(ChangelogSession session, boolean ownsSession)
+    {
+        this.session = session;
+        this.ownsSession = ownsSession;
+        this.repository = session.getRepository();
+        this.changelogCache = session.getChangelogCache();
+        this.localPullRequests = session.getLocalPullRequests();
+        this.authors = session.getAuthors();
+        this.knownAuthorEmails = authors.knownEmails();
+        this.sessionHitsBefore = session.getGitHubResourceHits();
+        this.sessionMissesBefore = session.getGitHubResourceMisses();
+        GitHubApi github = session.getConnectedGitHubApi();
+        this.gitHubBefore = github == null ? GitHubMetrics.Snapshot.EMPTY : github.getMetrics().snapshot();
+    }
+
+    private void configure(Config config)
+    {
         setGithubRepo(config.getGithubRepoOwner(), config.getGithubRepoName());
         setBranch(config.getBranch());
         setVersionRange(config.getTagVersionPrior(), config.getRefVersionCurrent());
-        setGitCacheDir(config.getGitCacheDir());
         config.getLabelExclusions().forEach(this::addLabelExclusion);
         config.getCommitPathRegexExclusions().forEach(this::addCommitPathRegexExclusion);
         config.getBranchRegexExclusions().forEach(this::addBranchRegexExclusion);
+        setSnapshot(config.getSnapshotFile(), config.getSnapshotIssueExpiryDays());
+        setResolveThreads(config.getResolveThreads());
+        setIssueScanLimit(config.getIssueScanLimit());
     }
 
     /**
@@ -121,8 +175,7 @@ public class ChangelogTool implements AutoCloseable
      */
     public void addCommitPathExclusionFilter(Predicate<String> predicate)
     {
-        Objects.requireNonNull(predicate, "predicate");
-        this.commitPathExclusionFilters.add(predicate);
+        this.commitPathExclusions.addPredicate(predicate);
     }
 
     /**
@@ -131,8 +184,7 @@ public class ChangelogTool implements AutoCloseable
      */
     public void addCommitPathRegexExclusion(String regex)
     {
-        Objects.requireNonNull(regex, "regex");
-        this.commitPathExclusionFilters.add((filename) -> filename.matches(regex));
+        this.commitPathExclusions.addRegex(regex);
     }
 
     public void addLabelExclusion(String label)
@@ -143,92 +195,362 @@ public class ChangelogTool implements AutoCloseable
     @Override
     public void close()
     {
-        this.changelogCache.close();
-        this.repository.close();
-        this.git.close();
+        if (ownsSession)
+            this.session.close();
     }
 
     public void discoverChanges() throws IOException, InterruptedException, GitAPIException
     {
+        long start = System.nanoTime();
         branchesExclusionPredicate = newStringPredicate(branchExclusion);
 
-        // equivalent of git log <old>..<new>
-        discoverCommitsInRange();
-
-        // recursively find issue and pull request references in commits
-        discoverChangesRecursively();
+        // reuse the resolved state of the prior run (if possible)
+        Phase phase = startPhase("snapshot-restore");
+        ChangelogSnapshot snapshot = loadSnapshot();
+        if (snapshot != null)
+            restoreSnapshot(snapshot);
+        phase.end(snapshot == null ? 0 : commitMap.size());
+
+        // equivalent of git log <old>..<new> (or <snapshot-head>..<new>), streamed while
+        // recursively finding issue and pull request references in commits
+        phase = startPhase("crawl");
+        try (CommitProducer rangeCommits = discoverCommitsInRange(snapshot == null ? null : snapshot.getHead()))
+        {
+            discoverChangesRecursively(rangeCommits);
+        }
+        phase.end(commitMap.size());
 
         // resolve issue/PR relevancy
+        phase = startPhase("relevancy");
         resolveRelevancy();
+        phase.end(issueMap.size());
 
         // resolve all the discovered commits and issues into a set of changes
+        phase = startPhase("changes");
         resolveChanges();
+        phase.end(changelog.size());
+
+        phase = startPhase("snapshot-save");
+        saveSnapshot();
+        phase.end(-1);
+        discoveryNanos += System.nanoTime() - start;
     }
 
-    private void discoverChangesRecursively() throws IOException, InterruptedException
+    /**
+     * Warm the caches for a later run over the range, without writing any output.
+     * <p>
+     * The changes are discovered up to the branch head (filling the GitHub cache, the commit index
+     * with the diff paths, and the snapshot if enabled), then the branches containing each commit are indexed.
+     * </p>
+     */
+    public void prefetch() throws IOException, InterruptedException, GitAPIException
     {
-        boolean needsResolve = true;
+        this.refCurrentVersion = null;
+        discoverChanges();
 
-        while (needsResolve)
+        Phase phase = startPhase("branch-index");
+        int indexed = 0;
+        for (ChangeCommit commit : commitMap.values())
         {
-            needsResolve = false;
+            Set<Skip> skips = commit.getSkipSet();
+            if (skips.contains(Skip.IS_MERGE_COMMIT) || skips.contains(Skip.GIT_OBJ_MISSING))
+                continue;
+            changelogCache.getBranchesContaining(commit.getSha());
+            indexed++;
+        }
+        changelogCache.flush();
+        phase.end(indexed);
+        System.out.printf("Prefetched %,d commits (%,d indexed), %,d issue/pr references%n", commitMap.size(), indexed, issueMap.size());
+    }
+
+    /**
+     * Enable incremental runs, by persisting the resolved state of the run.
+     *
+     * @param snapshotFile the snapshot file, or null to disable
+     * @param issueExpiryDays the number of days after which a resolved issue is resolved again
+     */
+    public void setSnapshot(Path snapshotFile, int issueExpiryDays)
+    {
+        this.snapshotFile = snapshotFile;
+        this.snapshotIssueExpiryDays = issueExpiryDays;
+    }
+
+    /**
+     * The number of threads resolving commits and issues.
+     * The resolved changes are identical regardless of the number of threads.
+     *
+     * @param resolveThreads the number of threads, 1 to resolve serially
+     */
+    public void setResolveThreads(int resolveThreads)
+    {
+        this.resolveThreads = Math.max(1, resolveThreads);
+    }
+
+    /**
+     * The maximum number of characters of a commit message or issue body scanned for issue references.
+     *
+     * @param issueScanLimit the number of characters, or {@link IssueScanner#NO_LIMIT}
+     */
+    public void setIssueScanLimit(int issueScanLimit)
+    {
+        this.issueScanner = new IssueScanner(Math.max(IssueScanner.NO_LIMIT, issueScanLimit));
+    }
+
+    /**
+     * @return the key describing the configuration a snapshot is valid for, or null if
+     * the configuration cannot be represented (eg: exclusions using predicates)
+     */
+    private String getSnapshotKey()
+    {
+        String pathExclusionsKey = commitPathExclusions.getKey();
+        if (pathExclusionsKey == null || branchExclusion.size() != branchExclusionRegexes.size())
+            return null;
+
+        return String.join("\n",
+            "repo=" + githubOwner + "/" + githubRepoName,
+            "branch=" + branch,
+            "tag=" + tagOldVersion,
+            "labels=" + excludedLabels.stream().sorted().collect(Collectors.joining(",")),
+            "paths=" + pathExclusionsKey.replace('\n', ','),
+            "branches=" + String.join(",", branchExclusionRegexes),
+            "scanLimit=" + issueScanner.getScanLimit());
+    }
+
+    /**
+     * @return the key identifying the changes this tool discovers (the configuration, as for a snapshot,
+     * and the current version commit), or null if the configuration cannot be represented.
+     * The authors and the GitHub resources are not covered by the key.
+     * @see ChangelogDiscovery
+     */
+    public String getDiscoveryKey() throws IOException
+    {
+        String key = getSnapshotKey();
+        if (key == null)
+            return null;
+        return key + "\ncurrent=" + findCommitForCurrent().name();
+    }
+
+    /**
+     * @return the commits the range resolves to: the prior version, then the current version
+     */
+    public List<ObjectId> getRangeCommits() throws IOException
+    {
+        return List.of(findCommitForTag(tagOldVersion).copy(), findCommitForCurrent().copy());
+    }
+
+    private ChangelogSnapshot loadSnapshot() throws IOException
+    {
+        if (snapshotFile == null)
+            return null;
 
-            if (hasUnResolvedCommits())
+        String key = getSnapshotKey();
+        if (key == null)
+        {
+            LOG.info("Snapshot not supported with predicate exclusions");
+            return null;
+        }
+
+        ChangelogSnapshot snapshot = ChangelogSnapshot.load(snapshotFile);
+        if (snapshot == null)
+            return null;
+
+        if (!key.equals(snapshot.getKey()))
+        {
+            LOG.info("Ignoring snapshot, the configuration has changed: {}", snapshotFile);
+            return null;
+        }
+
+        // the snapshot is only valid if the current version still contains the snapshot head
+        try (RevWalk walk = new RevWalk(repository))
+        {
+            RevCommit head = walk.parseCommit(ObjectId.fromString(snapshot.getHead()));
+            RevCommit current = walk.parseCommit(findCommitForCurrent());
+            if (!walk.isMergedInto(head, current))
             {
-                resolveCommits();
-                needsResolve = true;
+                LOG.info("Ignoring snapshot, {} is not in the current version", snapshot.getHead());
+                return null;
             }
+        }
+        catch (MissingObjectException e)
+        {
+            LOG.info("Ignoring snapshot, {} is missing", snapshot.getHead());
+            return null;
+        }
+        return snapshot;
+    }
 
-            if (hasUnResolvedIssues())
+    private void restoreSnapshot(ChangelogSnapshot snapshot)
+    {
+        long now = System.currentTimeMillis();
+        long expiry = TimeUnit.DAYS.toMillis(snapshotIssueExpiryDays);
+
+        for (ChangeCommit commit : snapshot.getCommits().values())
+        {
+            commit.clearChangeRef();
+            commitMap.put(commit.getId(), commit);
+
+            Author author = commit.getAuthor();
+            if (author != null && !author.emails().isEmpty() && authors.find(author.emails().get(0)) == null)
+                authors.add(author);
+        }
+
+        int expired = 0;
+        for (ChangeIssue issue : snapshot.getIssues().values())
+        {
+            int num = issue.getNum();
+            Long resolvedTime = snapshot.getIssueResolvedTimes().get(num);
+            if (isExpired(issue, resolvedTime, now, expiry))
             {
-                resolveIssues();
-                needsResolve = true;
+                // resolve it again
+                issueMap.put(num, new ChangeIssue(num));
+                expired++;
+                continue;
             }
+
+            // the relevancy and changes are computed again over the merged graph
+            issue.clearChangeRef();
+            issue.removeSkipReason(Skip.NO_RELEVANT_COMMITS);
+            issueMap.put(num, issue);
+            issueResolvedTimes.put(num, resolvedTime);
         }
+
+        LOG.info("Restored snapshot {}: {} commits, {} issues ({} expired)",
+            snapshot.getHead(), commitMap.size(), issueMap.size(), expired);
     }
 
-    private void resolveCommits() throws IOException, InterruptedException
+    private boolean isExpired(ChangeIssue issue, Long resolvedTime, long now, long expiry)
     {
-        Set<String> unresolvedShas = commitMap.values()
-            .stream()
-            .filter(c -> !c.isResolved())
-            .map(ChangeCommit::getSha)
-            .collect(Collectors.toSet());
+        if (!issue.isResolved() || resolvedTime == null)
+            return true;
+        if (now - resolvedTime > expiry)
+            return true;
+        // open issues and pull requests can still change
+        if (issue.getSkipSet().contains(Skip.NOT_CLOSED))
+            return true;
+        return issue.getType() == IssueType.ISSUE && !"closed".equalsIgnoreCase(issue.getState());
+    }
 
-        LOG.info("Need to resolve {} more commits", unresolvedShas.size());
+    private void saveSnapshot() throws IOException
+    {
+        String key = getSnapshotKey();
+        if (snapshotFile == null || key == null || walkedHead == null)
+            return;
 
-        for (String sha : unresolvedShas)
+        long now = System.currentTimeMillis();
+        for (ChangeIssue issue : issueMap.values())
         {
-            ChangeCommit changeCommit = getCommit(sha);
+            if (issue.isResolved())
+                issueResolvedTimes.putIfAbsent(issue.getNum(), now);
+        }
 
-            if (changeCommit.isResolved())
-                continue; // skip
+        ChangelogSnapshot snapshot = new ChangelogSnapshot();
+        snapshot.setKey(key);
+        snapshot.setHead(walkedHead);
+        Map<String, ChangeCommit> commits = new LinkedHashMap<>();
+        commitMap.values().forEach((commit) -> commits.put(commit.getSha(), commit));
+        snapshot.setCommits(commits);
+        Map<Integer, ChangeIssue> issues = new LinkedHashMap<>();
+        issueMap.values().forEach((issue) -> issues.put(issue.getNum(), issue));
+        snapshot.setIssues(issues);
+        snapshot.setIssueResolvedTimes(issueResolvedTimes);
+        snapshot.save(snapshotFile);
+        LOG.info("Saved snapshot {}: {}", walkedHead, snapshotFile);
+    }
 
-            try (RevWalk walk = new RevWalk(repository))
-            {
-                ObjectId commitId = ObjectId.fromString(sha);
-                RevCommit commit = walk.parseCommit(commitId);
-                LOG.debug("Found commit: {} - {}", commit.getId().getName(), commit.getShortMessage());
-                resolveCommit(changeCommit, commit);
-            }
-            catch (MissingObjectException moe)
-            {
-                changeCommit.addSkipReason(Skip.GIT_OBJ_MISSING);
-                changeCommit.setResolved();
-            }
+    /**
+     * Crawl the commit/issue graph from the commits in range, resolving each commit and issue
+     * as soon as it is discovered, while the commits in range are still being walked.
+     *
+     * @param rangeCommits the commits in range, in walk order
+     */
+    private void discoverChangesRecursively(Iterator<String> rangeCommits) throws IOException, InterruptedException
+    {
+        try (ChangeCrawler changeCrawler = new ChangeCrawler(repository, resolveThreads))
+        {
+            crawler = changeCrawler;
+
+            // anything left unresolved (eg: expired snapshot issues), then the commits in range (in walk order)
+            List<ObjectId> unresolvedShas = commitMap.values().stream()
+                .filter((commit) -> !commit.isResolved())
+                .map(ChangeCommit::getId)
+                .sorted()
+                .toList();
+            unresolvedShas.forEach((sha) -> discoverCommit(sha, 0));
+            List<Integer> unresolvedIssues = issueMap.values().stream()
+                .filter((issue) -> !issue.isResolved())
+                .map(ChangeIssue::getNum)
+                .sorted()
+                .toList();
+            unresolvedIssues.forEach((num) -> discoverIssue(num, 0));
+
+            changeCrawler.run(rangeCommits, (sha) -> discoverCommit(ObjectId.fromString(sha), 0));
+            LOG.info("Crawl complete: {}", changeCrawler);
+        }
+        finally
+        {
+            crawler = null;
+            changelogCache.flush();
         }
     }
 
-    private boolean hasUnResolvedCommits()
+    /**
+     * Get the commit, submitting it for resolution if it is not yet resolved.
+     *
+     * @param commitId the commit
+     * @param depth the discovery depth of the commit (0 for the commits in range)
+     */
+    private ChangeCommit discoverCommit(ObjectId commitId, int depth)
     {
-        return commitMap.values().stream()
-            .anyMatch(c -> !c.isResolved());
+        ChangeCommit commit = getCommit(commitId);
+        if (!commit.isResolved())
+        {
+            // the pull requests and the author are looked up (on the GitHub stage) once the commit is known to be present
+            String lowerSha = commit.getSha();
+            RequestAttribution attribution = new RequestAttribution(lowerSha, depth);
+            crawler.submitCommit(lowerSha, () -> crawler.git((walk) -> resolveCommit(walk, commit.getId()))
+                .thenCompose((resolution) ->
+                {
+                    if (resolution.commit == null)
+                        return CompletableFuture.completedFuture(resolution);
+                    return crawler.github(() -> attribution.call(() ->
+                    {
+                        resolution.pullRequestRefs = resolveCommitPullRequests(lowerSha);
+                        resolution.authorLogin = resolveAuthorLogin(resolution.commit);
+                        return resolution;
+                    }));
+                })
+                .thenApply((resolution) -> () -> attribution.run(() -> applyCommitResolution(resolution, depth))));
+        }
+        return commit;
     }
 
-    private boolean hasUnResolvedIssues()
+    /**
+     * Get the issue, submitting it for resolution if it is not yet resolved.
+     *
+     * @param num the issue number
+     * @param depth the discovery depth of the issue
+     */
+    private ChangeIssue discoverIssue(int num, int depth)
     {
-        return issueMap.values().stream()
-            .anyMatch(c -> !c.isResolved());
+        ChangeIssue issue = getIssue(num);
+        if (!issue.isResolved())
+        {
+            RequestAttribution attribution = new RequestAttribution(toIssueSource(num), depth);
+            crawler.submitIssue(num, () -> crawler.github(() -> attribution.call(() ->
+            {
+                ChangeIssue resolved = resolveIssue(num);
+                return () -> applyIssueResolution(resolved, depth);
+            })));
+        }
+        return issue;
+    }
+
+    /**
+     * @return the {@link RequestAttribution} source of an issue
+     */
+    private static String toIssueSource(int num)
+    {
+        return "#" + num;
     }
 
     public Changelog getChangelog()
@@ -253,37 +575,17 @@ public class ChangelogTool implements AutoCloseable
 
     public Path getGitCacheDir()
     {
-        return gitCacheDir;
+        return session.getGitCacheDir();
     }
 
     public void setGitCacheDir(Path gitCacheDir)
     {
-        if (gitCacheDir == null)
-        {
-            this.gitCacheDir = null;
-            return;
-        }
-
-        this.gitCacheDir = gitCacheDir.toAbsolutePath();
-        try
-        {
-            FS.ensureDirectoryExists(this.gitCacheDir);
-        }
-        catch (IOException e)
-        {
-            LOG.warn("Unable to create git cache dir: {}", this.gitCacheDir, e);
-        }
+        session.setGitCacheDir(gitCacheDir);
     }
 
     private ChangeIssue getIssue(int num)
     {
-        ChangeIssue issue = this.issueMap.get(num);
-        if (issue == null)
-        {
-            issue = new ChangeIssue(num);
-            issueMap.put(num, issue);
-        }
-        return issue;
+        return issueMap.computeIfAbsent(num, ChangeIssue::new);
     }
 
     public Collection<ChangeIssue> getIssues()
@@ -291,29 +593,30 @@ public class ChangelogTool implements AutoCloseable
         return this.issueMap.values();
     }
 
-    private void saveLog(Gson gson, Path logFile, Object obj, Class<?> clazz) throws IOException
-    {
-        try (BufferedWriter writer = Files.newBufferedWriter(logFile, UTF_8);
-             JsonWriter jsonWriter = gson.newJsonWriter(writer))
-        {
-            gson.toJson(obj, clazz, jsonWriter);
-        }
-    }
-
     public void save(ChangeMetadata changeMetadata) throws IOException
     {
-        Gson gson = new GsonBuilder().setPrettyPrinting()
-            .registerTypeAdapter(ZonedDateTime.class, new ISO8601TypeAdapter())
-            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-            .create();
-
         Path outputDir = changeMetadata.config().getOutputPath();
 
-        saveLog(gson, outputDir.resolve("authors-scan.json"), authors, Authors.class);
-        saveLog(gson, outputDir.resolve("change-issues.json"), issueMap.values(), Set.class);
-        saveLog(gson, outputDir.resolve("change-issues-relevant.json"), getRelevantKnownIssues(), List.class);
-        saveLog(gson, outputDir.resolve("change-commits.json"), commitMap.values(), Set.class);
-        saveLog(gson, outputDir.resolve("change-groups.json"), changelog, List.class);
+        // the branches are only part of the change-commits diagnostic
+        if (changeMetadata.config().isIncludeCommitBranches() &&
+            changeMetadata.config().getDiagnostics().contains(WriteDiagnostics.Artifact.COMMITS))
+        {
+            // Note: this lookup (all branches that commit exists in) is VERY time consuming.
+            Phase phase = startPhase("branch-index");
+            for (ChangeCommit commit : commitMap.values())
+            {
+                Set<Skip> skips = commit.getSkipSet();
+                if (skips.contains(Skip.IS_MERGE_COMMIT) || skips.contains(Skip.GIT_OBJ_MISSING))
+                    continue;
+                commit.setBranches(changelogCache.getBranchesContaining(commit.getSha()));
+            }
+            changelogCache.flush();
+            phase.end(commitMap.size());
+        }
+
+        Phase phase = startPhase("diagnostics");
+        saveDiagnostics(changeMetadata.config(), outputDir);
+        phase.end(changeMetadata.config().getDiagnostics().size());
 
         Path changePaths = changeMetadata.config().getOutputPath().resolve("change-paths.log");
         try (BufferedWriter writer = Files.newBufferedWriter(changePaths))
@@ -334,20 +637,178 @@ public class ChangelogTool implements AutoCloseable
             System.out.printf("Found %,d Files changed in the various commits%n", changedFiles.size());
         }
 
-        for (WriteOutput.Type outputType : changeMetadata.config().getOutputTypes())
+        writeOutputs(changeMetadata);
+
+        if (changeMetadata.config().isMetrics())
+        {
+            RunMetrics metrics = getRunMetrics();
+            metrics.write(outputDir.resolve(RunMetrics.FILENAME));
+            metrics.printSummary(System.out);
+        }
+    }
+
+    /**
+     * @return the metrics of the run of this tool, so far
+     */
+    public RunMetrics getRunMetrics()
+    {
+        RunMetrics metrics = new RunMetrics(githubOwner + "/" + githubRepoName, tagOldVersion + ".." + refCurrentVersion,
+            System.nanoTime() - createdNanos, discoveryNanos);
+        metrics.setCounts(commitMap.size(), issueMap.size(), changelog.size());
+        synchronized (phaseNanos)
+        {
+            phaseNanos.forEach(metrics::addPhase);
+        }
+        metrics.addTier(RunMetrics.SESSION_TIER, session.getGitHubResourceHits() - sessionHitsBefore,
+            session.getGitHubResourceMisses() - sessionMissesBefore);
+        GitHubApi github = session.getConnectedGitHubApi();
+        if (github != null)
         {
-            try
+            GitHubMetrics.Snapshot usage = github.getMetrics().snapshot().since(gitHubBefore);
+            metrics.addTier(github.getCache().getClass().getSimpleName(), usage.getCacheHits(), usage.getCacheMisses());
+            metrics.setGitHub(usage);
+            List<RunMetrics.CostCenter> costCenters = new ArrayList<>();
+            usage.sources().forEach((source, requests) ->
             {
-                WriteOutput writeOutput = outputType.getType().getDeclaredConstructor().newInstance();
-                writeOutput.write(changeMetadata);
-            }
-            catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e)
+                ChangeRef ref = toSourceRef(source);
+                String title = null;
+                Set<Skip> skips = EnumSet.noneOf(Skip.class);
+                if (ref instanceof ChangeIssue issue)
+                    title = issue.getTitle();
+                else if (ref instanceof ChangeCommit commit)
+                    title = commit.getTitle();
+                if (ref != null)
+                    skips.addAll(ref.getSkipSet());
+                costCenters.add(new RunMetrics.CostCenter(source, title, requests.depth(), requests.requests(), requests.cacheHits(),
+                    requests.rateUsed(), skips));
+            });
+            metrics.setCostCenters(costCenters);
+        }
+        return metrics;
+    }
+
+    /**
+     * @param source the {@link RequestAttribution} source
+     * @return the commit or issue of the source, or null if unknown (eg: from another range of the session)
+     */
+    private ChangeRef toSourceRef(String source)
+    {
+        if (source.startsWith("#"))
+            return issueMap.get(Integer.parseInt(source.substring(1)));
+        return ObjectId.isId(source) ? commitMap.get(ObjectId.fromString(source)) : null;
+    }
+
+    /**
+     * @param config the configuration
+     * @return the outputs selected by the configuration (output types then output formats)
+     */
+    static List<WriteOutput> getOutputs(Config config)
+    {
+        Set<String> names = new LinkedHashSet<>();
+        config.getOutputTypes().forEach((type) -> names.add(type.name()));
+        names.addAll(config.getOutputFormats());
+
+        Map<String, WriteOutput> available = names.isEmpty() ? Map.of() : WriteOutput.load();
+        List<WriteOutput> outputs = new ArrayList<>();
+        for (String name : names)
+        {
+            WriteOutput output = available.get(name);
+            if (output == null)
+                throw new ChangelogException("Unknown output: " + name + " (available: " + available.keySet() + ")");
+            outputs.add(output);
+        }
+        return outputs;
+    }
+
+    /**
+     * Render the release with each selected output, concurrently, from a single {@link ReleaseView}.
+     */
+    public void writeOutputs(ChangeMetadata changeMetadata) throws IOException
+    {
+        List<WriteOutput> outputs = getOutputs(changeMetadata.config());
+        if (outputs.isEmpty())
+            return;
+
+        Phase phase = startPhase("outputs");
+        ReleaseView release = ReleaseView.of(changeMetadata);
+        CompletableFuture<?>[] futures = outputs.stream()
+            .map((output) -> CompletableFuture.runAsync(() ->
             {
-                throw new RuntimeException(e);
+                try
+                {
+                    output.write(release);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }))
+            .toArray(CompletableFuture[]::new);
+        try
+        {
+            CompletableFuture.allOf(futures).join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof UncheckedIOException uioe)
+                throw uioe.getCause();
+            throw new ChangelogException("Unable to write outputs", e.getCause());
+        }
+        phase.end(outputs.size());
+    }
+
+    private Phase startPhase(String name)
+    {
+        return new Phase(name, DiscoveryPhaseEvent.start(name, githubOwner + "/" + githubRepoName));
+    }
+
+    /**
+     * A timed phase of the run, for the {@link RunMetrics} and the {@link DiscoveryPhaseEvent}.
+     */
+    private class Phase
+    {
+        private final String name;
+        private final DiscoveryPhaseEvent event;
+        private final long start = System.nanoTime();
+
+        private Phase(String name, DiscoveryPhaseEvent event)
+        {
+            this.name = name;
+            this.event = event;
+        }
+
+        /**
+         * @param items the number of items produced by the phase, or -1
+         */
+        void end(int items)
+        {
+            long nanos = System.nanoTime() - start;
+            event.finish(items);
+            synchronized (phaseNanos)
+            {
+                phaseNanos.merge(name, nanos, Long::sum);
             }
         }
     }
 
+    private void saveDiagnostics(Config config, Path outputDir) throws IOException
+    {
+        Map<WriteDiagnostics.Artifact, Iterable<?>> artifacts = new EnumMap<>(WriteDiagnostics.Artifact.class);
+        for (WriteDiagnostics.Artifact artifact : config.getDiagnostics())
+        {
+            Iterable<?> elements = switch (artifact)
+            {
+                case AUTHORS -> authors;
+                case ISSUES -> issueMap.values();
+                case RELEVANT_ISSUES -> iterateRelevantKnownIssues();
+                case COMMITS -> commitMap.values();
+                case CHANGE_GROUPS -> changelog;
+            };
+            artifacts.put(artifact, elements);
+        }
+        new WriteDiagnostics(outputDir, config.getDiagnosticsFormat(), config.isDiagnosticsGzip()).write(artifacts);
+    }
+
     public void setBranch(String branch)
     {
         this.branch = branch;
@@ -372,6 +833,7 @@ public class ChangelogTool implements AutoCloseable
     {
         Objects.requireNonNull(regex, "regex");
         this.branchExclusion.add((branch) -> branch.matches(regex));
+        this.branchExclusionRegexes.add(regex);
     }
 
     private RevCommit findCommitForCurrent() throws IOException
@@ -427,77 +889,122 @@ public class ChangelogTool implements AutoCloseable
         }
     }
 
-    private Author getAuthor(Authors authors, RevCommit commit)
+    /**
+     * Get the author of a commit, adding it to the authors if not yet known.
+     *
+     * @param authors the authors
+     * @param commit the commit
+     * @param login the GitHub login of the author, as looked up with {@link #resolveAuthorLogin(RevCommit)}
+     */
+    private Author getAuthor(Authors authors, RevCommit commit, String login)
     {
-        Author author = authors.find(commit.getAuthorIdent().getEmailAddress());
-
-        if (author == null)
+        String email = commit.getAuthorIdent().getEmailAddress();
+        Author author = authors.find(email);
+        if (author != null)
+            return author;
+
+        String commitId = commit.getId().getName();
+        Author known = authors.findByLogin(login);
+        if (known != null)
         {
-            author = new Author(commit.getAuthorIdent().getName())
-                .email(commit.getAuthorIdent().getEmailAddress())
-                .committer(false);
+            // another email of a known author
+            authors.addEmail(known, email);
+            return known;
+        }
 
-            try
-            {
-                String commitId = commit.getId().getName();
-                Commit ghCommit = getGitHubApi().commit(this.githubOwner, this.githubRepoName, commitId);
-                if (ghCommit != null)
-                {
-                    ChangeCommit changeCommit = getCommit(commitId);
-                    changeCommit.setBody(ghCommit.getCommit().getMessage());
+        author = new Author(commit.getAuthorIdent().getName())
+            .email(email)
+            .committer(false);
+        if (login != null)
+            author.github(login);
+        else
+            System.out.printf("Has no author: %s%n", commitId);
+        authors.add(author);
+        return author;
+    }
 
-                    if (ghCommit.getAuthor() != null)
-                    {
-                        String githubAuthorLogin = ghCommit.getAuthor().getLogin();
-                        author.github(githubAuthorLogin);
-                        changeCommit.setAuthor(author);
-                    }
-                    else
-                    {
-                        System.out.printf("Has no author: %s%n", commitId);
-                    }
-                }
-                else
-                {
-                    System.out.printf("Not a valid commit id: %s%n", commitId);
-                }
-            }
-            catch (InterruptedException | IOException e)
-            {
-                LOG.debug("Ignoring Exception", e);
-            }
-            authors.add(author);
+    /**
+     * Look up the GitHub login of the author of a commit, unless the author is already known.
+     * Called by the crawler GitHub stage workers: the first commit of an unknown email looks it up,
+     * and the other commits of the email wait for (and share) that lookup.
+     *
+     * @param commit the commit
+     * @return the login, or null if the author is known (or is not a GitHub user)
+     */
+    private String resolveAuthorLogin(RevCommit commit)
+    {
+        String email = commit.getAuthorIdent().getEmailAddress();
+        if (knownAuthorEmails.test(email))
+            return null;
+
+        CompletableFuture<String> lookup = new CompletableFuture<>();
+        CompletableFuture<String> existing = authorLogins.putIfAbsent(email, lookup);
+        if (existing != null)
+            return existing.join();
+
+        String login = null;
+        try
+        {
+            login = findAuthorLogin(email, commit.getId().getName());
+            return login;
+        }
+        finally
+        {
+            lookup.complete(login);
         }
+    }
 
-        return author;
+    /**
+     * Find the GitHub login of an author email: from the email itself (if a GitHub noreply email),
+     * from the author directory, or else from the author of the commit on GitHub (recorded in the directory).
+     *
+     * @return the login, or null if the email is not a GitHub user (or the lookup failed)
+     */
+    private String findAuthorLogin(String email, String commitId)
+    {
+        String login = AuthorDirectory.parseNoReplyLogin(email);
+        if (login != null)
+            return login;
+
+        AuthorDirectory directory = session.getAuthorDirectory();
+        if (directory.contains(email))
+            return directory.getLogin(email);
+
+        try
+        {
+            login = session.getGitHubApi().commitAuthorLogin(this.githubOwner, this.githubRepoName, commitId);
+            directory.put(email, login);
+            return login;
+        }
+        catch (GitHubResourceNotFoundException e)
+        {
+            System.out.printf("Not a valid commit id: %s%n", commitId);
+        }
+        catch (InterruptedException | IOException e)
+        {
+            LOG.debug("Ignoring Exception", e);
+        }
+        return null;
     }
 
-    private ChangeCommit getCommit(String sha)
+    private ChangeCommit getCommit(ObjectId commitId)
     {
-        String lowerSha = sha.toLowerCase(Locale.US);
-        ChangeCommit commit = commitMap.get(lowerSha);
+        ChangeCommit commit = commitMap.get(commitId);
         if (commit == null)
         {
             commit = new ChangeCommit();
-            commit.setSha(lowerSha);
-            commitMap.put(lowerSha, commit);
+            commit.setId(commitId);
+            commitMap.put(commit.getId(), commit);
         }
         return commit;
     }
 
-    private GitHubApi getGitHubApi() throws IOException, InterruptedException
+    /**
+     * Get a GitHub resource of this repository, shared with other ranges in the same session.
+     */
+    private <T> T getGitHubResource(String resource, ChangelogSession.GitHubRequest<T> request) throws IOException, InterruptedException
     {
-        if (github == null)
-        {
-            github = GitHubApi.connect();
-            if (gitCacheDir != null && Files.isDirectory(gitCacheDir))
-            {
-                github.setCache(new PersistentCache(gitCacheDir));
-                LOG.info("Git Cache Enabled: {}", gitCacheDir);
-            }
-            LOG.info("GitHub API Rate Limits: {}", github.getRateLimits());
-        }
-        return github;
+        return session.getGitHubResource(githubOwner + "/" + githubRepoName + "/" + resource, request);
     }
 
     private List<ChangeIssue> getRelevantKnownIssues()
@@ -508,24 +1015,30 @@ public class ChangelogTool implements AutoCloseable
             .collect(Collectors.toList());
     }
 
-    private Predicate<String> newStringPredicate(Collection<Predicate<String>> filters)
+    /**
+     * @return the same issues as {@link #getRelevantKnownIssues()}, without collecting them
+     */
+    private Iterable<ChangeIssue> iterateRelevantKnownIssues()
     {
-        Predicate<String> predicate = str -> true;
-        for (Predicate<String> logPredicate : filters)
+        return () ->
         {
-            predicate = predicate.and(logPredicate);
-        }
-        return predicate;
+            int[] nums = issueMap.keys();
+            Arrays.sort(nums);
+            return IntStream.range(0, nums.length)
+                .mapToObj((i) -> issueMap.get(nums[nums.length - 1 - i]))
+                .filter((issue) -> !issue.isSkipped())
+                .iterator();
+        };
     }
 
-    private boolean isExcludedPath(String path)
+    private Predicate<String> newStringPredicate(Collection<Predicate<String>> filters)
     {
-        for (Predicate<String> exclusion : commitPathExclusionFilters)
+        Predicate<String> predicate = str -> false;
+        for (Predicate<String> logPredicate : filters)
         {
-            if (exclusion.test(path))
-                return true;
+            predicate = predicate.or(logPredicate);
         }
-        return false;
+        return predicate;
     }
 
     private boolean isMergeCommit(RevCommit commit)
@@ -538,9 +1051,9 @@ public class ChangelogTool implements AutoCloseable
         for (ChangeIssue issue : issueMap.values())
         {
             int relevantCommitCount = 0;
-            for (String sha : issue.getCommits())
+            for (ObjectId commitId : issue.getCommits())
             {
-                ChangeCommit commit = getCommit(sha);
+                ChangeCommit commit = getCommit(commitId);
                 if (!commit.isSkipped())
                     relevantCommitCount++;
             }
@@ -551,57 +1064,234 @@ public class ChangelogTool implements AutoCloseable
         }
     }
 
+    /**
+     * Group recorded issues and commits into changes, as the discovery does once they are resolved.
+     *
+     * @param issues the issues, in discovery order
+     * @param commits the commits, in discovery order
+     */
+    void resolveChanges(Collection<ChangeIssue> issues, Collection<ChangeCommit> commits)
+    {
+        issues.forEach((issue) -> issueMap.put(issue.getNum(), issue));
+        commits.forEach((commit) -> commitMap.put(commit.getId(), commit));
+        resolveChanges();
+    }
+
     private void resolveChanges()
     {
-        // Create Change list
-        int changeId = 0;
         List<ChangeIssue> relevantIssues = getRelevantKnownIssues();
         System.out.printf("Found %,d relevant issue/pr references%n", relevantIssues.size());
+
+        // The nodes of the linkage graph: the issues (in issueMap order), then the commits (in commitMap order)
+        List<ChangeIssue> issues = new ArrayList<>(issueMap.values());
+        List<ChangeCommit> commits = new ArrayList<>(commitMap.values());
+        int commitBase = issues.size();
+        Map<ObjectId, Integer> commitNodes = new HashMap<>(commits.size() * 2);
+        for (int i = 0; i < commits.size(); i++)
+        {
+            commitNodes.put(commits.get(i).getId(), commitBase + i);
+        }
+
+        // Cluster the linked commits and issues, skipped ones are never part of a change
+        DisjointSet clusters = new DisjointSet(commitBase + commits.size());
+        for (int node = 0; node < commitBase; node++)
+        {
+            ChangeIssue issue = issues.get(node);
+            if (issue.isSkipped())
+                continue;
+            int issueNode = node;
+            issue.getReferencedIssues().forEach((ref) -> linkIssue(clusters, issueNode, ref));
+            for (ObjectId commitId : issue.getCommits())
+            {
+                Integer commitNode = commitNodes.get(commitId);
+                if (commitNode != null && !commits.get(commitNode - commitBase).isSkipped())
+                    clusters.union(issueNode, commitNode);
+            }
+        }
+        for (int i = 0; i < commits.size(); i++)
+        {
+            ChangeCommit commit = commits.get(i);
+            if (commit.isSkipped())
+                continue;
+            int commitNode = commitBase + i;
+            if (commit.getIssueRefs() != null)
+                commit.getIssueRefs().forEach((ref) -> linkIssue(clusters, commitNode, ref));
+            if (commit.getPullRequestRefs() != null)
+                commit.getPullRequestRefs().forEach((ref) -> linkIssue(clusters, commitNode, ref));
+        }
+
+        // One change per cluster with a relevant issue, numbered in relevant issue order
+        int changeId = 0;
+        Change[] changes = new Change[clusters.size()];
         for (ChangeIssue issue : relevantIssues)
         {
             if (issue.isSkipped() || issue.hasChangeRef())
                 continue;
+            int root = clusters.find(issueMap.indexOf(issue.getNum()));
+            if (changes[root] == null)
+            {
+                changes[root] = new Change(changeId++);
+                changelog.add(changes[root]);
+            }
+        }
 
-            Change change = new Change(changeId++);
-            // add commits
-            issue.getCommits().forEach((commitSha) -> updateChangeCommit(change, commitSha));
-            // add issues & pull requests
-            issue.getReferencedIssues().forEach((issueNum) -> updateChangeIssues(change, issueNum));
-            changelog.add(change);
+        for (int node = 0; node < commitBase; node++)
+        {
+            ChangeIssue issue = issues.get(node);
+            Change change = changes[clusters.find(node)];
+            if (change == null || issue.isSkipped() || issue.hasChangeRef())
+                continue;
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Update Change [{}]: issue: {}", change.getNumber(), issue);
+            issue.setChangeRef(change);
+            switch (issue.getType())
+            {
+                case ISSUE:
+                    change.addIssue(issue);
+                    break;
+                case PULL_REQUEST:
+                    change.addPullRequest(issue);
+                    break;
+                default:
+                    break;
+            }
+        }
+        for (int i = 0; i < commits.size(); i++)
+        {
+            ChangeCommit commit = commits.get(i);
+            Change change = changes[clusters.find(commitBase + i)];
+            if (change == null || commit.isSkipped() || commit.hasChangeRef())
+                continue;
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Update Change [{}]: commit: {}", change.getNumber(), commit);
+            commit.setChangeRef(change);
+            change.addCommit(commit);
+            change.addAuthor(commit.getAuthor());
         }
 
         changelog.forEach((change) -> change.normalize(IssueType.ISSUE));
     }
 
-    private void discoverCommitsInRange() throws IOException, GitAPIException, InterruptedException
+    /**
+     * Link a node to the (known and not skipped) issue.
+     */
+    private void linkIssue(DisjointSet clusters, int node, int issueNum)
+    {
+        int issueNode = issueMap.indexOf(issueNum);
+        if (issueNode >= 0 && !issueMap.get(issueNum).isSkipped())
+            clusters.union(node, issueNode);
+    }
+
+    /**
+     * @return the producer of the commits in range, in walk order
+     */
+    private CommitProducer discoverCommitsInRange(String sinceSha) throws IOException
     {
         RevCommit commitOld = findCommitForTag(tagOldVersion);
         RevCommit commitNew = findCommitForCurrent();
-        LOG.debug("commit log: {} .. {}", commitOld.getId().getName(), commitNew.getId().getName());
-
-        int count = 0;
+        LOG.debug("commit log: {} .. {} (since {})", commitOld.getId().getName(), commitNew.getId().getName(), sinceSha);
+        walkedHead = commitNew.getId().getName();
+
+        List<ObjectId> uninteresting = new ArrayList<>();
+        uninteresting.add(commitOld);
+        if (sinceSha != null)
+            uninteresting.add(ObjectId.fromString(sinceSha));
+        return new CommitProducer(repository, commitNew, uninteresting, RANGE_QUEUE_SIZE);
+    }
 
-        LogCommand logCommand = git.log().addRange(commitOld, commitNew);
+    /**
+     * Resolve the details of a commit from the repository, without touching any of the commits,
+     * authors or issues.  Called by the crawler git stage workers.
+     *
+     * @param walk the RevWalk of the calling worker
+     * @param sha the commit
+     * @return the resolution, to apply with {@link #applyCommitResolution(CommitResolution, int)}
+     */
+    private CommitResolution resolveCommit(RevWalk walk, ObjectId commitId) throws IOException, InterruptedException
+    {
+        RevCommit commit;
+        try
+        {
+            commit = walk.parseCommit(commitId);
+        }
+        catch (MissingObjectException moe)
+        {
+            return new CommitResolution(commitId, null);
+        }
+        LOG.debug("Found commit: {} - {}", commit.getId().getName(), commit.getShortMessage());
 
-        for (RevCommit commit : logCommand.call())
+        String sha = commitId.name();
+        CommitResolution resolution = new CommitResolution(commitId, commit);
+        if (isMergeCommit(commit))
         {
-            LOG.debug("Found commit: {} - {}", commit.getId().getName(), commit.getShortMessage());
-            ChangeCommit changeCommit = getCommit(commit.getId().getName());
-            resolveCommit(changeCommit, commit);
-            count++;
+            resolution.skips.add(Skip.IS_MERGE_COMMIT);
         }
+        else
+        {
+            // discover any issue/pr references in title or body
+            resolution.issueRefs.addAll(issueScanner.findReferences(commit.getShortMessage()));
+            resolution.issueRefs.addAll(issueScanner.findResolutions(commit.getFullMessage()));
 
-        LOG.debug("Found {} commits", count);
+            if (changelogCache.touchesOnlyExcluded(sha, commitPathExclusions::isExcludedEntry))
+            {
+                // the commit-graph Bloom filters show that nothing interesting was touched
+                resolution.diffPaths = Collections.emptySet();
+            }
+            else
+            {
+                // excluded trees are never descended, and excluded paths never collected
+                resolution.diffPaths = changelogCache.getPaths(sha, commitPathExclusions);
+            }
+            if (resolution.diffPaths.isEmpty())
+            {
+                resolution.skips.add(Skip.NO_INTERESTING_PATHS_LEFT);
+            }
+
+            // Only the branches matching the exclusions are tested for containment
+            if (changelogCache.isInAnyBranch(sha, branchesExclusionPredicate))
+            {
+                resolution.skips.add(Skip.EXCLUDED_BRANCH);
+            }
+        }
+        return resolution;
     }
 
-    private void resolveCommit(ChangeCommit changeCommit, RevCommit commit) throws IOException, InterruptedException
+    /**
+     * Find the pull requests a commit is linked to.  Called by the crawler GitHub stage workers.
+     *
+     * @param sha the commit
+     * @return the pull request numbers
+     */
+    private IntSet resolveCommitPullRequests(String sha) throws IOException, InterruptedException
     {
+        PullRequests pullRequests = getGitHubResource("commits/" + sha + "/pulls",
+            (github) -> github.commitPullRequests(this.githubOwner, this.githubRepoName, sha));
+        IntSet pullRequestRefs = new IntSet(pullRequests.size());
+        pullRequests.forEach((pullRequest) -> pullRequestRefs.add(pullRequest.getNumber()));
+        return pullRequestRefs;
+    }
+
+    /**
+     * Apply the resolution of a commit to the commit, its author, and the issues it references.
+     * Called by the crawling thread, so only the model is touched: any lookup is done by the workers.
+     */
+    private void applyCommitResolution(CommitResolution resolution, int depth)
+    {
+        ChangeCommit changeCommit = getCommit(resolution.commitId);
         if (changeCommit.isResolved())
             return;
 
-        String sha = changeCommit.getSha();
+        RevCommit commit = resolution.commit;
+        if (commit == null)
+        {
+            changeCommit.addSkipReason(Skip.GIT_OBJ_MISSING);
+            changeCommit.setResolved();
+            return;
+        }
 
-        Author author = getAuthor(authors, commit);
+        Author author = getAuthor(authors, commit, resolution.authorLogin);
         PersonIdent authorIdent = commit.getAuthorIdent();
         changeCommit.setCommitTime(ZonedDateTime.ofInstant(authorIdent.getWhenAsInstant(), authorIdent.getZoneId()));
         changeCommit.setAuthor(author);
@@ -609,91 +1299,51 @@ public class ChangelogTool implements AutoCloseable
         changeCommit.setBody(commit.getFullMessage());
 
         // List of referenced issues and/or prs that are discoverable from this commit
-        Set<Integer> allRefs = new HashSet<>();
+        IntSet allRefs = new IntSet();
 
-        if (isMergeCommit(commit))
-        {
-            changeCommit.addSkipReason(Skip.IS_MERGE_COMMIT);
-        }
-        else
+        if (!isMergeCommit(commit))
         {
-            // discover any issue/pr references in title or body
-            Set<Integer> issueRefs = new HashSet<>();
-            issueRefs.addAll(IssueScanner.scan(changeCommit.getTitle()));
-            issueRefs.addAll(IssueScanner.scanResolutions(changeCommit.getBody()));
-            changeCommit.addIssueRefs(issueRefs);
-
-            allRefs.addAll(issueRefs);
-
-            Set<String> diffPaths = changelogCache.getPaths(sha)
-                .stream()
-                .filter(Predicate.not(this::isExcludedPath))
-                .collect(Collectors.toSet());
-            changeCommit.setFiles(diffPaths);
-            if (diffPaths.isEmpty())
-            {
-                changeCommit.addSkipReason(Skip.NO_INTERESTING_PATHS_LEFT);
-            }
-
-            // Note: this lookup (all branches that commit exists in) is VERY time consuming.
-
-            Set<String> branchesWithCommit = changelogCache.getBranchesContaining(sha);
-            changeCommit.setBranches(branchesWithCommit);
-            if (branchesWithCommit.stream().anyMatch(branchesExclusionPredicate))
-            {
-                changeCommit.addSkipReason(Skip.EXCLUDED_BRANCH);
-            }
+            changeCommit.addIssueRefs(resolution.issueRefs);
+            allRefs.addAll(resolution.issueRefs);
+            changeCommit.setFiles(resolution.diffPaths);
         }
+        resolution.skips.forEach(changeCommit::addSkipReason);
 
-        // is this commit linked to a PullRequest?
-        PullRequests pullRequests = getGitHubApi().commitPullRequests(this.githubOwner, this.githubRepoName, changeCommit.getSha());
-        Set<Integer> prRefs = pullRequests.stream().map(Issue::getNumber).collect(Collectors.toSet());
-        changeCommit.addPullRequestRefs(prRefs);
-        allRefs.addAll(prRefs);
+        changeCommit.addPullRequestRefs(resolution.pullRequestRefs);
+        allRefs.addAll(resolution.pullRequestRefs);
 
         // Initialize issues/prs found (for later resolve)
-        for (int num : allRefs)
+        for (int num : allRefs.toSortedArray())
         {
-            ChangeIssue issue = getIssue(num);
-            issue.addCommit(changeCommit.getSha());
+            ChangeIssue issue = discoverIssue(num, depth + 1);
+            issue.addCommit(changeCommit.getId());
         }
 
         // set this commit as resolved
         changeCommit.setResolved();
     }
 
-    private void resolveIssues()
-    {
-        LOG.debug("Resolving issue details ...");
-        List<ChangeIssue> unresolvedIssues = issueMap.values().stream()
-            .filter((issue) -> !issue.isResolved())
-            .toList();
-
-        long issuesLeft = unresolvedIssues.size();
-
-        for (ChangeIssue unresolvedIssue : unresolvedIssues)
-        {
-            LOG.info("Need to resolve {} more issues ...", issuesLeft--);
-            resolveIssue(unresolvedIssue);
-        }
-
-        LOG.debug("Tracking {} issues", issueMap.size());
-    }
-
-    private void resolveIssue(ChangeIssue issue)
+    /**
+     * Resolve the details of an issue (or pull request) into a new ChangeIssue, without touching
+     * any of the commits or issues.  Called by the crawler GitHub stage workers.
+     *
+     * @param num the issue number
+     * @return the resolved issue, to apply with {@link #applyIssueResolution(ChangeIssue, int)}
+     */
+    private ChangeIssue resolveIssue(int num)
     {
-        LOG.debug("Resolve Issue: {}", issue);
-        if (issue.isResolved())
-            return;
-
+        LOG.debug("Resolve Issue: {}", num);
+        ChangeIssue issue = new ChangeIssue(num);
         try
         {
-            net.webtide.tools.github.Issue ghIssue = getGitHubApi().issue(githubOwner, githubRepoName, issue.getNum());
+            net.webtide.tools.github.Issue ghIssue = getGitHubResource("issues/" + num,
+                (github) -> github.issue(githubOwner, githubRepoName, num));
             issue.addLabels(ghIssue.getLabels().stream().map(Label::getName).collect(Collectors.toSet()));
 
             if (ghIssue.getPullRequest() != null)
             {
-                net.webtide.tools.github.PullRequest ghPullRequest = getGitHubApi().pullRequest(githubOwner, githubRepoName, issue.getNum());
+                net.webtide.tools.github.PullRequest ghPullRequest = getGitHubResource("pulls/" + num,
+                    (github) -> github.pullRequest(githubOwner, githubRepoName, num));
                 issue.addLabels(ghPullRequest.getLabels().stream().map(Label::getName).collect(Collectors.toSet()));
                 issue.setBaseRef(ghPullRequest.getBase().getRef());
                 issue.setTitle(ghPullRequest.getTitle());
@@ -728,18 +1378,11 @@ public class ChangelogTool implements AutoCloseable
                 issue.setType(IssueType.ISSUE);
             }
 
-            Set<Integer> issueRefs = new HashSet<>();
-            issueRefs.addAll(IssueScanner.scan(issue.getTitle()));
-            issueRefs.addAll(IssueScanner.scanResolutions(issue.getBody()));
+            IntSet issueRefs = issueScanner.findReferences(issue.getTitle());
+            issueRefs.addAll(issueScanner.findResolutions(issue.getBody()));
             issueRefs.remove(issue.getNum()); // remove self
             issue.addReferencedIssues(issueRefs);
 
-            // Discover any newly referenced issue for later resolve
-            for (int issueNum : issueRefs)
-            {
-                issueMap.putIfAbsent(issueNum, new ChangeIssue(issueNum));
-            }
-
             // Test labels
             for (String excludedLabel : excludedLabels)
             {
@@ -753,18 +1396,17 @@ public class ChangelogTool implements AutoCloseable
             {
                 if (issue.getType() == IssueType.ISSUE)
                 {
-                    IssueEvents ghIssueEvents = getGitHubApi().issueEvents(githubOwner, githubRepoName, issue.getNum());
+                    IssueEvents ghIssueEvents = getGitHubResource("issues/" + num + "/events",
+                        (github) -> github.issueEvents(githubOwner, githubRepoName, num));
                     for (IssueEvents.IssueEvent event : ghIssueEvents)
                     {
                         if (!Strings.isNullOrEmpty(event.getCommitId()))
                         {
-                            String sha = event.getCommitId();
-                            issue.addCommit(sha);
-                            ChangeCommit changeCommit = getCommit(sha);
-                            changeCommit.addIssueRef(issue.getNum());
+                            issue.addCommit(event.getCommitId());
                         }
                     }
-                    List<CrossReference> crossReferences = getGitHubApi().issueCrossReferences(githubOwner, githubRepoName, issue.getNum());
+                    List<CrossReference> crossReferences = getGitHubResource("issues/" + num + "/timeline",
+                        (github) -> github.issueCrossReferences(githubOwner, githubRepoName, num));
                     for (CrossReference crossReference : crossReferences)
                     {
                         net.webtide.tools.github.Ref ref = crossReference.getBaseRef();
@@ -776,12 +1418,19 @@ public class ChangelogTool implements AutoCloseable
                 }
                 else if (issue.getType() == IssueType.PULL_REQUEST)
                 {
-                    PullRequestCommits ghPullRequestCommits = getGitHubApi().pullRequestCommits(githubOwner, githubRepoName, issue.getNum());
-                    for (PullRequestCommits.Commit commit : ghPullRequestCommits)
+                    // prefer the local pull request ref, only use the API (and its cache) when it is absent
+                    List<String> prCommits = localPullRequests.findCommits(num, issue.getBaseRef());
+                    if (prCommits == null)
+                    {
+                        prCommits = getGitHubResource("pulls/" + num + "/commits", (github) ->
+                        {
+                            PullRequestCommits ghPullRequestCommits = github.pullRequestCommits(githubOwner, githubRepoName, num);
+                            return ghPullRequestCommits.stream().map(PullRequestCommits.Commit::getSha).toList();
+                        });
+                    }
+                    for (String sha : prCommits)
                     {
-                        issue.addCommit(commit.getSha());
-                        ChangeCommit changeCommit = getCommit(commit.getSha());
-                        changeCommit.addIssueRef(issue.getNum());
+                        issue.addCommit(sha);
                     }
                 }
             }
@@ -795,61 +1444,56 @@ public class ChangelogTool implements AutoCloseable
         {
             LOG.warn("Ignore", e);
         }
-        issue.setResolved();
+        return issue;
     }
 
-    private void updateChangeCommit(Change change, String commitSha)
+    /**
+     * Apply a resolved issue to the known issue, discovering the issues and commits it references.
+     * Called by the crawling thread.
+     */
+    private void applyIssueResolution(ChangeIssue resolved, int depth)
     {
-        String sha = Sha.toLowercase(commitSha);
-        ChangeCommit commit = this.commitMap.get(sha);
-        if (commit != null)
-        {
-            if (commit.hasChangeRef() || // does it already have a change reference?
-                commit.isSkipped()) // is it skipped for some reason?
-                return; // ignore it
+        int num = resolved.getNum();
+        ChangeIssue issue = getIssue(num);
+        if (issue.isResolved())
+            return;
 
-            if (LOG.isDebugEnabled())
-                LOG.debug("Update Change [{}]: commit: {}", change.getNumber(), commit);
-            commit.setChangeRef(change);
+        issue.update(resolved);
 
-            change.addCommit(commit);
-            change.addAuthor(commit.getAuthor());
+        // Discover any newly referenced issue for later resolve
+        for (int issueNum : resolved.getReferencedIssues().toSortedArray())
+        {
+            discoverIssue(issueNum, depth + 1);
+        }
 
-            if (commit.getIssueRefs() != null)
-                commit.getIssueRefs().forEach((ref) -> updateChangeIssues(change, ref));
-            if (commit.getPullRequestRefs() != null)
-                commit.getPullRequestRefs().forEach((ref) -> updateChangeIssues(change, ref));
+        for (ObjectId commitId : resolved.getCommits().stream().sorted().toList())
+        {
+            ChangeCommit changeCommit = discoverCommit(commitId, depth + 1);
+            changeCommit.addIssueRef(num);
         }
+
+        issue.setResolved();
     }
 
-    private void updateChangeIssues(Change change, int issueNum)
+    /**
+     * The details of a commit resolved by a worker, to be applied to the model by the discovering thread.
+     */
+    private static class CommitResolution
     {
-        ChangeIssue issue = this.issueMap.get(issueNum);
-        if (issue != null)
+        private final ObjectId commitId;
+        // null if the commit is missing from the repository
+        private final RevCommit commit;
+        private final IntSet issueRefs = new IntSet();
+        private final Set<Skip> skips = EnumSet.noneOf(Skip.class);
+        private Set<String> diffPaths;
+        private IntSet pullRequestRefs = new IntSet();
+        // null if the author is known (or is not a GitHub user)
+        private String authorLogin;
+
+        private CommitResolution(ObjectId commitId, RevCommit commit)
         {
-            if (issue.isSkipped() || // skipped
-                issue.hasChangeRef()) // already assigned to a change ref
-                return; // ignore it
-
-            issue.setChangeRef(change);
-
-            if (LOG.isDebugEnabled())
-                LOG.debug("Update Change [{}]: issue: {}", change.getNumber(), issue);
-
-            switch (issue.getType())
-            {
-                case ISSUE:
-                    change.addIssue(issue);
-                    break;
-                case PULL_REQUEST:
-                    change.addPullRequest(issue);
-                    break;
-                default:
-                    break;
-            }
-
-            issue.getReferencedIssues().forEach((ref) -> updateChangeIssues(change, ref));
-            issue.getCommits().forEach((sha) -> updateChangeCommit(change, sha));
+            this.commitId = commitId;
+            this.commit = commit;
         }
     }
 }
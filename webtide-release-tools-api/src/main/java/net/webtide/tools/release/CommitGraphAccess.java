@@ -0,0 +1,215 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.eclipse.jgit.internal.storage.commitgraph.ChangedPathFilter;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraph;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraphLoader;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraphWriter;
+import org.eclipse.jgit.internal.storage.commitgraph.GraphCommits;
+import org.eclipse.jgit.internal.storage.file.LockFile;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The commit-graph of a repository, with its generation numbers and changed-path Bloom filters.
+ * <p>
+ * JGit has no public API to read the changed-path filters, nor to write a commit-graph without a full
+ * garbage collection, so this is the only user of the JGit internal commit-graph API.  Every use is
+ * guarded: if the internal API is not the expected one (eg: another JGit version), the commit-graph
+ * is reported as absent (or not written), and the lookups fall back to tree diffs and commit walks.
+ * </p>
+ */
+class CommitGraphAccess
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CommitGraphAccess.class);
+
+    private final CommitGraph commitGraph;
+
+    private CommitGraphAccess(CommitGraph commitGraph)
+    {
+        this.commitGraph = commitGraph;
+    }
+
+    /**
+     * @param repository the repository
+     * @return the commit-graph of the repository, or null if it has none (or it cannot be read)
+     */
+    static CommitGraphAccess load(Repository repository)
+    {
+        Path graphFile = getFile(repository);
+        if (!Files.isRegularFile(graphFile))
+        {
+            LOG.info("No commit-graph present: {}", graphFile);
+            return null;
+        }
+
+        // Load our own copy, as JGit only reads the changed-path filters when enabled in the global jgit config
+        try (InputStream in = Files.newInputStream(graphFile))
+        {
+            CommitGraph graph = CommitGraphLoader.read(in, true);
+            LOG.info("Using commit-graph with {} commits: {}", graph.getCommitCnt(), graphFile);
+            return new CommitGraphAccess(graph);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Unable to load commit-graph: {}", graphFile, e);
+            return null;
+        }
+        catch (LinkageError e)
+        {
+            LOG.warn("Unable to load commit-graph with this JGit version: {}", graphFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the commit-graph (with changed-path Bloom filters) for all commits reachable from the refs in the repository.
+     * Equivalent of {@code git commit-graph write --reachable --changed-paths}.
+     *
+     * @param repository the repository
+     * @return true if written, false if the commit-graph cannot be written with this JGit version
+     */
+    static boolean write(Repository repository)
+    {
+        Path graphFile = getFile(repository);
+        LOG.info("Writing commit-graph: {}", graphFile);
+        try (RevWalk walk = new RevWalk(repository))
+        {
+            Set<ObjectId> tips = new HashSet<>();
+            for (Ref ref : repository.getRefDatabase().getRefs())
+            {
+                if (ref.getObjectId() == null)
+                    continue;
+                RevObject obj = walk.peel(walk.parseAny(ref.getObjectId()));
+                if (obj instanceof RevCommit)
+                    tips.add(obj.getId());
+            }
+
+            GraphCommits graphCommits = GraphCommits.fromWalk(NullProgressMonitor.INSTANCE, tips, walk);
+            LockFile lock = new LockFile(graphFile.toFile());
+            if (!lock.lock())
+                throw new ChangelogException("Unable to lock commit-graph: " + graphFile);
+            try
+            {
+                try (OutputStream out = lock.getOutputStream())
+                {
+                    new CommitGraphWriter(graphCommits, true).write(NullProgressMonitor.INSTANCE, out);
+                }
+                if (!lock.commit())
+                    throw new ChangelogException("Unable to commit commit-graph: " + graphFile);
+            }
+            finally
+            {
+                lock.unlock();
+            }
+            return true;
+        }
+        catch (IOException e)
+        {
+            throw new ChangelogException("Unable to write commit-graph: " + graphFile, e);
+        }
+        catch (LinkageError e)
+        {
+            LOG.warn("Unable to write commit-graph with this JGit version: {}", graphFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * @return the generation number of the commit, or -1 if unknown
+     */
+    int getGeneration(AnyObjectId commitId)
+    {
+        try
+        {
+            int graphPos = commitGraph.findGraphPosition(commitId);
+            if (graphPos < 0)
+                return -1;
+            return commitGraph.getCommitData(graphPos).getGeneration();
+        }
+        catch (LinkageError e)
+        {
+            LOG.debug("Unable to get the generation of {}", commitId, e);
+            return -1;
+        }
+    }
+
+    /**
+     * @return the changed-path Bloom filter of the commit, testing if a path may have been changed
+     * (false if it definitely was not), or null if the commit has no filter
+     */
+    Predicate<String> getChangedPathFilter(AnyObjectId commitId)
+    {
+        try
+        {
+            int graphPos = commitGraph.findGraphPosition(commitId);
+            if (graphPos < 0)
+                return null;
+            ChangedPathFilter filter = commitGraph.getChangedPathFilter(graphPos);
+            if (filter == null)
+                return null;
+            return (path) ->
+            {
+                try
+                {
+                    return filter.maybeContains(path.getBytes(UTF_8));
+                }
+                catch (LinkageError e)
+                {
+                    return true;
+                }
+            };
+        }
+        catch (LinkageError e)
+        {
+            LOG.debug("Unable to get the changed-path filter of {}", commitId, e);
+            return null;
+        }
+    }
+
+    private static Path getFile(Repository repository)
+    {
+        Path objectsDir = repository.getDirectory().toPath().resolve("objects");
+        try
+        {
+            if (repository.getObjectDatabase() instanceof ObjectDirectory objectDirectory)
+                objectsDir = objectDirectory.getDirectory().toPath();
+        }
+        catch (LinkageError e)
+        {
+            LOG.debug("Unable to get the objects directory of {}", repository, e);
+        }
+        return objectsDir.resolve("info").resolve("commit-graph");
+    }
+}
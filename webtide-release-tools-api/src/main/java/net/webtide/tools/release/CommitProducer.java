@@ -0,0 +1,156 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stream the commits of a range ({@code git log <uninteresting>..<start>}) from a RevWalk
+ * running on its own thread, through a bounded queue.
+ */
+class CommitProducer implements Iterator<String>, AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CommitProducer.class);
+    // marks the end of the walk in the queue
+    private static final String END = "";
+
+    private final Repository repository;
+    private final AnyObjectId start;
+    private final List<AnyObjectId> uninteresting;
+    private final BlockingQueue<String> queue;
+    private final Thread thread;
+    private volatile Throwable failure;
+    private String next;
+    private boolean done;
+    private int count;
+
+    /**
+     * Start walking the range.
+     *
+     * @param repository the repository
+     * @param start the newest commit of the range
+     * @param uninteresting the commits (and their history) excluded from the range
+     * @param capacity the number of commits walked ahead of the consumer
+     */
+    CommitProducer(Repository repository, AnyObjectId start, List<? extends AnyObjectId> uninteresting, int capacity)
+    {
+        this.repository = repository;
+        this.start = start;
+        this.uninteresting = new ArrayList<>(uninteresting);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::walk, "changelog-commit-producer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void walk()
+    {
+        // RevWalk uses the commit-graph (when present) to parse commits and their generation numbers
+        try (RevWalk walk = new RevWalk(repository))
+        {
+            walk.markStart(walk.parseCommit(start));
+            for (AnyObjectId commitId : uninteresting)
+            {
+                walk.markUninteresting(walk.parseCommit(commitId));
+            }
+
+            for (RevCommit commit : walk)
+            {
+                queue.put(commit.getName());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            return; // closed
+        }
+        catch (Throwable x)
+        {
+            failure = x;
+        }
+
+        try
+        {
+            queue.put(END);
+        }
+        catch (InterruptedException ignore)
+        {
+            // closed
+        }
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (next != null)
+            return true;
+        if (done)
+            return false;
+
+        try
+        {
+            String sha = queue.take();
+            if (END.equals(sha))
+            {
+                done = true;
+                LOG.debug("Found {} commits", count);
+                if (failure != null)
+                    throw new ChangelogException("Unable to walk commits from " + start.getName(), failure);
+                return false;
+            }
+            next = sha;
+            count++;
+            return true;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new ChangelogException("Interrupted walking commits from " + start.getName(), e);
+        }
+    }
+
+    @Override
+    public String next()
+    {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        String sha = next;
+        next = null;
+        return sha;
+    }
+
+    /**
+     * @return the number of commits taken so far
+     */
+    int getCount()
+    {
+        return count;
+    }
+
+    @Override
+    public void close()
+    {
+        thread.interrupt();
+    }
+}
@@ -20,7 +20,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
 import com.google.common.base.Strings;
 import com.google.gson.FieldNamingPolicy;
@@ -59,19 +62,116 @@ public class Config
     protected Path outputPath;
     // types of output
     protected List<WriteOutput.Type> outputTypes = new ArrayList<>();
-
-    public static Config loadConfig(Path path) throws IOException
+    // additional outputs, by WriteOutput name (the renderers discovered through the ServiceLoader)
+    protected List<String> outputFormats = new ArrayList<>();
+    // include the full list of branches containing each commit in the change-commits.json output (expensive)
+    protected boolean includeCommitBranches = false;
+    // diagnostic artifacts written along with the outputs (authors-scan, change-issues, etc.), empty for none
+    protected List<WriteDiagnostics.Artifact> diagnostics = new ArrayList<>(List.of(WriteDiagnostics.Artifact.values()));
+    // format of the diagnostic artifacts
+    protected WriteDiagnostics.Format diagnosticsFormat = WriteDiagnostics.Format.JSON;
+    // gzip the diagnostic artifacts
+    protected boolean diagnosticsGzip = false;
+    // write the git commit-graph (with changed-path Bloom filters) if the repository doesn't have one
+    protected boolean writeCommitGraph = false;
+    // number of threads resolving commits and issues (git diffs, branch containment, and GitHub lookups), 1 to resolve serially
+    protected int resolveThreads = 8;
+    // maximum number of characters of a commit message or issue body scanned for issue references (0 for no limit)
+    protected int issueScanLimit = IssueScanner.DEFAULT_SCAN_LIMIT;
+    // multi-repository mode: the configuration of each repository, processed concurrently
+    protected List<Config> repositories = new ArrayList<>();
+    // batch mode: the ranges to generate a changelog for, in one session (each overriding the branch and versions above)
+    protected List<Range> ranges = new ArrayList<>();
+    // only warm the caches (GitHub, commit index, snapshot) for the range up to the branch head, without writing outputs
+    protected boolean prefetch = false;
+    // skip the generation when the inputs (range commits, configuration, authors, GitHub cache) are unchanged since the last one
+    protected boolean upToDateCheck = true;
+    // write the metrics of the run (GitHub usage, cache efficiency, phase timings) to metrics.json, and summarize them
+    protected boolean metrics = true;
+    // file holding the resolved state of the prior run, for incremental runs (null to always start from scratch)
+    protected Path snapshotFile;
+    // number of days after which a resolved issue in the snapshot is resolved again
+    protected int snapshotIssueExpiryDays = 7;
+    // file holding the email to GitHub login mappings learned from GitHub (null means ~/.cache/git-changelog/author-directory.json)
+    protected Path authorDirectoryFile;
+    // JGit pack access tuning, applied JVM wide before the repository is opened, and only if any is set (null means JGit default)
+    // maximum bytes of pack data held in the window cache
+    protected Long packedGitLimit;
+    // size in bytes of each window read from a pack (power of 2)
+    protected Long packedGitWindowSize;
+    // use memory-mapped pack reading (null means enabled for large repositories by the command line, else JGit default)
+    protected Boolean packedGitMmap;
+    // maximum bytes of the delta base cache
+    protected Long deltaBaseCacheLimit;
+    // objects larger than this are streamed instead of loaded into memory
+    protected Long streamFileThreshold;
+
+    static Gson newGson()
     {
-        Gson gson = new GsonBuilder()
+        return new GsonBuilder()
             .registerTypeAdapter(ZonedDateTime.class, new ISO8601TypeAdapter())
-            .registerTypeAdapter(Path.class, new PathTypeAdapter())
+            .registerTypeHierarchyAdapter(Path.class, new PathTypeAdapter())
             .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
             .create();
+    }
 
+    public static Config loadConfig(Path path) throws IOException
+    {
         try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8))
         {
-            return gson.fromJson(reader, Config.class);
+            return newGson().fromJson(reader, Config.class);
+        }
+    }
+
+    /**
+     * Create the configuration of a single repository of a multi-repository run, a copy of the
+     * repository entry with the git cache directory, output path (within a directory named after
+     * the repository), and output types of this configuration as defaults.
+     *
+     * @param repository the repository entry
+     * @return the configuration for the repository
+     */
+    public Config forRepository(Config repository)
+    {
+        Gson gson = newGson();
+        Config config = gson.fromJson(gson.toJsonTree(repository), Config.class);
+        config.setRepositories(new ArrayList<>());
+        if (config.getGitCacheDir() == null)
+            config.setGitCacheDir(getGitCacheDir());
+        if (config.getOutputPath() == null && getOutputPath() != null)
+            config.setOutputPath(getOutputPath().resolve(config.getGithubRepoName()));
+        if (config.getOutputTypes().isEmpty() && config.getOutputFormats().isEmpty())
+        {
+            config.getOutputTypes().addAll(getOutputTypes());
+            config.getOutputFormats().addAll(getOutputFormats());
         }
+        return config;
+    }
+
+    /**
+     * Create the configuration of a single range of a batch, a copy of this configuration
+     * with the branch, versions, and output path of the range.
+     *
+     * @param range the range
+     * @return the configuration for the range
+     */
+    public Config forRange(Range range)
+    {
+        Gson gson = newGson();
+        Config config = gson.fromJson(gson.toJsonTree(this), Config.class);
+        config.setRanges(new ArrayList<>());
+        config.setBranch(range.getBranch());
+        config.setTagVersionPrior(range.getTagVersionPrior());
+        config.setRefVersionCurrent(range.getRefVersionCurrent());
+        if (range.getOutputPath() != null)
+            config.setOutputPath(range.getOutputPath());
+        else if (getOutputPath() != null)
+            config.setOutputPath(getOutputPath().resolve(range.getBranch()));
+        if (range.getBranchRegexExclusions() != null)
+            config.setBranchRegexExclusions(new ArrayList<>(range.getBranchRegexExclusions()));
+        // snapshots are per range
+        config.setSnapshotFile(range.getSnapshotFile());
+        return config;
     }
 
     public static Config parseArgs(Args args) throws IOException
@@ -112,10 +212,65 @@ public class Config
         config.setRefVersionCurrent(args.getOrDefault("ref_version_current", config.getRefVersionCurrent()));
         config.setOutputPath(args.getPath("output_path", config.getOutputPath()));
         config.setIncludeDependencyChanges(args.getBoolean("includeDependencyChanges", false));
+        config.setIncludeCommitBranches(args.getBoolean("include_commit_branches", config.isIncludeCommitBranches()));
+        config.setWriteCommitGraph(args.getBoolean("write_commit_graph", config.isWriteCommitGraph()));
+        String outputFormats = args.getOptional("output_formats");
+        if (outputFormats != null)
+            config.setOutputFormats(Arrays.stream(outputFormats.split(",")).map(String::trim).filter((name) -> !name.isEmpty()).collect(Collectors.toList()));
+        String diagnostics = args.getOptional("diagnostics");
+        if (diagnostics != null)
+            config.setDiagnostics(parseDiagnostics(diagnostics));
+        String diagnosticsFormat = args.getOptional("diagnostics_format");
+        if (diagnosticsFormat != null)
+            config.setDiagnosticsFormat(WriteDiagnostics.Format.valueOf(toEnumName(diagnosticsFormat)));
+        config.setDiagnosticsGzip(args.getBoolean("diagnostics_gzip", config.isDiagnosticsGzip()));
+        config.setSnapshotFile(args.getPath("snapshot_file", config.getSnapshotFile()));
+        if (args.getOptional("snapshot_issue_expiry_days") != null)
+            config.setSnapshotIssueExpiryDays(args.getInteger("snapshot_issue_expiry_days"));
+        config.setPrefetch(args.getBoolean("prefetch", config.isPrefetch()));
+        config.setUpToDateCheck(args.getBoolean("up_to_date_check", config.isUpToDateCheck()));
+        config.setMetrics(args.getBoolean("metrics", config.isMetrics()));
+        if (args.getOptional("issue_scan_limit") != null)
+            config.setIssueScanLimit(args.getInteger("issue_scan_limit"));
+        config.setAuthorDirectoryFile(args.getPath("author_directory_file", config.getAuthorDirectoryFile()));
+        if (args.getOptional("resolve_threads") != null)
+            config.setResolveThreads(args.getInteger("resolve_threads"));
+        config.setPackedGitLimit(args.getSize("packed_git_limit", config.getPackedGitLimit()));
+        config.setPackedGitWindowSize(args.getSize("packed_git_window_size", config.getPackedGitWindowSize()));
+        String packedGitMmap = args.getOptional("packed_git_mmap");
+        if (packedGitMmap != null)
+            config.setPackedGitMmap(Boolean.parseBoolean(packedGitMmap));
+        config.setDeltaBaseCacheLimit(args.getSize("delta_base_cache_limit", config.getDeltaBaseCacheLimit()));
+        config.setStreamFileThreshold(args.getSize("stream_file_threshold", config.getStreamFileThreshold()));
 
         return config;
     }
 
+    /**
+     * @param diagnostics the comma separated artifacts (eg: {@code authors,change-groups}), or {@code none}
+     * @return the artifacts
+     */
+    static List<WriteDiagnostics.Artifact> parseDiagnostics(String diagnostics)
+    {
+        List<WriteDiagnostics.Artifact> artifacts = new ArrayList<>();
+        for (String name : diagnostics.split(","))
+        {
+            name = name.trim();
+            if (name.isEmpty() || name.equalsIgnoreCase("none"))
+                continue;
+            if (name.equalsIgnoreCase("all"))
+                artifacts.addAll(List.of(WriteDiagnostics.Artifact.values()));
+            else
+                artifacts.add(WriteDiagnostics.Artifact.valueOf(toEnumName(name)));
+        }
+        return artifacts;
+    }
+
+    private static String toEnumName(String name)
+    {
+        return name.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+    }
+
     public String getBranch()
     {
         return branch;
@@ -156,6 +311,16 @@ public class Config
         this.gitCacheDir = gitCacheDir;
     }
 
+    public Long getDeltaBaseCacheLimit()
+    {
+        return deltaBaseCacheLimit;
+    }
+
+    public void setDeltaBaseCacheLimit(Long deltaBaseCacheLimit)
+    {
+        this.deltaBaseCacheLimit = deltaBaseCacheLimit;
+    }
+
     public String getGithubRepoName()
     {
         return githubRepoName;
@@ -206,6 +371,46 @@ public class Config
         this.outputTypes = outputTypes;
     }
 
+    public List<String> getOutputFormats()
+    {
+        return outputFormats;
+    }
+
+    public void setOutputFormats(List<String> outputFormats)
+    {
+        this.outputFormats = outputFormats;
+    }
+
+    public Long getPackedGitLimit()
+    {
+        return packedGitLimit;
+    }
+
+    public void setPackedGitLimit(Long packedGitLimit)
+    {
+        this.packedGitLimit = packedGitLimit;
+    }
+
+    public Boolean getPackedGitMmap()
+    {
+        return packedGitMmap;
+    }
+
+    public void setPackedGitMmap(Boolean packedGitMmap)
+    {
+        this.packedGitMmap = packedGitMmap;
+    }
+
+    public Long getPackedGitWindowSize()
+    {
+        return packedGitWindowSize;
+    }
+
+    public void setPackedGitWindowSize(Long packedGitWindowSize)
+    {
+        this.packedGitWindowSize = packedGitWindowSize;
+    }
+
     public String getRefVersionCurrent()
     {
         return refVersionCurrent;
@@ -226,6 +431,116 @@ public class Config
         this.repoPath = repoPath;
     }
 
+    public List<Config> getRepositories()
+    {
+        return repositories;
+    }
+
+    public void setRepositories(List<Config> repositories)
+    {
+        this.repositories = repositories;
+    }
+
+    public boolean isPrefetch()
+    {
+        return prefetch;
+    }
+
+    public void setPrefetch(boolean prefetch)
+    {
+        this.prefetch = prefetch;
+    }
+
+    public boolean isUpToDateCheck()
+    {
+        return upToDateCheck;
+    }
+
+    public void setUpToDateCheck(boolean upToDateCheck)
+    {
+        this.upToDateCheck = upToDateCheck;
+    }
+
+    public boolean isMetrics()
+    {
+        return metrics;
+    }
+
+    public void setMetrics(boolean metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    public List<Range> getRanges()
+    {
+        return ranges;
+    }
+
+    public void setRanges(List<Range> ranges)
+    {
+        this.ranges = ranges;
+    }
+
+    public Path getAuthorDirectoryFile()
+    {
+        return authorDirectoryFile;
+    }
+
+    public void setAuthorDirectoryFile(Path authorDirectoryFile)
+    {
+        this.authorDirectoryFile = authorDirectoryFile;
+    }
+
+    public int getIssueScanLimit()
+    {
+        return issueScanLimit;
+    }
+
+    public void setIssueScanLimit(int issueScanLimit)
+    {
+        this.issueScanLimit = issueScanLimit;
+    }
+
+    public int getResolveThreads()
+    {
+        return resolveThreads;
+    }
+
+    public void setResolveThreads(int resolveThreads)
+    {
+        this.resolveThreads = resolveThreads;
+    }
+
+    public Path getSnapshotFile()
+    {
+        return snapshotFile;
+    }
+
+    public void setSnapshotFile(Path snapshotFile)
+    {
+        this.snapshotFile = snapshotFile;
+    }
+
+    public int getSnapshotIssueExpiryDays()
+    {
+        return snapshotIssueExpiryDays;
+    }
+
+    public void setSnapshotIssueExpiryDays(int snapshotIssueExpiryDays)
+    {
+        this.snapshotIssueExpiryDays = snapshotIssueExpiryDays;
+    }
+
+    public Long getStreamFileThreshold()
+    {
+        return streamFileThreshold;
+    }
+
+    public void setStreamFileThreshold(Long streamFileThreshold)
+    {
+        this.streamFileThreshold = streamFileThreshold;
+    }
+
     public String getTagVersionPrior()
     {
         return tagVersionPrior;
@@ -236,6 +551,16 @@ public class Config
         this.tagVersionPrior = tagVersionPrior;
     }
 
+    public boolean isIncludeCommitBranches()
+    {
+        return includeCommitBranches;
+    }
+
+    public void setIncludeCommitBranches(boolean includeCommitBranches)
+    {
+        this.includeCommitBranches = includeCommitBranches;
+    }
+
     public boolean isIncludeDependencyChanges()
     {
         return includeDependencyChanges;
@@ -245,4 +570,123 @@ public class Config
     {
         this.includeDependencyChanges = includeDependencyChanges;
     }
+
+    public List<WriteDiagnostics.Artifact> getDiagnostics()
+    {
+        return diagnostics;
+    }
+
+    public void setDiagnostics(List<WriteDiagnostics.Artifact> diagnostics)
+    {
+        this.diagnostics = diagnostics;
+    }
+
+    public WriteDiagnostics.Format getDiagnosticsFormat()
+    {
+        return diagnosticsFormat;
+    }
+
+    public void setDiagnosticsFormat(WriteDiagnostics.Format diagnosticsFormat)
+    {
+        this.diagnosticsFormat = diagnosticsFormat;
+    }
+
+    public boolean isDiagnosticsGzip()
+    {
+        return diagnosticsGzip;
+    }
+
+    public void setDiagnosticsGzip(boolean diagnosticsGzip)
+    {
+        this.diagnosticsGzip = diagnosticsGzip;
+    }
+
+    public boolean isWriteCommitGraph()
+    {
+        return writeCommitGraph;
+    }
+
+    public void setWriteCommitGraph(boolean writeCommitGraph)
+    {
+        this.writeCommitGraph = writeCommitGraph;
+    }
+
+    /**
+     * A range of a batch, see {@link #forRange(Range)}.
+     */
+    public static class Range
+    {
+        // git branch name to generate changelog for
+        protected String branch;
+        // tag of prior version
+        protected String tagVersionPrior;
+        // tag of current version
+        protected String refVersionCurrent;
+        // output path (default is the branch name within the output path of the batch)
+        protected Path outputPath;
+        // list of regex strings to apply for branch exclusions (default is the list of the batch)
+        protected List<String> branchRegexExclusions;
+        // file holding the resolved state of the prior run of this range
+        protected Path snapshotFile;
+
+        public String getBranch()
+        {
+            return branch;
+        }
+
+        public void setBranch(String branch)
+        {
+            this.branch = branch;
+        }
+
+        public List<String> getBranchRegexExclusions()
+        {
+            return branchRegexExclusions;
+        }
+
+        public void setBranchRegexExclusions(List<String> branchRegexExclusions)
+        {
+            this.branchRegexExclusions = branchRegexExclusions;
+        }
+
+        public Path getOutputPath()
+        {
+            return outputPath;
+        }
+
+        public void setOutputPath(Path outputPath)
+        {
+            this.outputPath = outputPath;
+        }
+
+        public String getRefVersionCurrent()
+        {
+            return refVersionCurrent;
+        }
+
+        public void setRefVersionCurrent(String refVersionCurrent)
+        {
+            this.refVersionCurrent = refVersionCurrent;
+        }
+
+        public Path getSnapshotFile()
+        {
+            return snapshotFile;
+        }
+
+        public void setSnapshotFile(Path snapshotFile)
+        {
+            this.snapshotFile = snapshotFile;
+        }
+
+        public String getTagVersionPrior()
+        {
+            return tagVersionPrior;
+        }
+
+        public void setTagVersionPrior(String tagVersionPrior)
+        {
+            this.tagVersionPrior = tagVersionPrior;
+        }
+    }
 }
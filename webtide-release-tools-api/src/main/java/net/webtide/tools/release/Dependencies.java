@@ -22,21 +22,64 @@ import java.util.regex.Pattern;
 
 public class Dependencies
 {
+    private static final Pattern BUMP = Pattern.compile("^Bump (.*) to (.*)$");
+    private static final Pattern BUMP_FROM_TO = Pattern.compile("^Bump (.*) from (.*) to (.*)$");
+
+    /**
+     * @param title the title of a change
+     * @return the title of a dependabot "Bump &lt;dep&gt; from &lt;oldver&gt; to &lt;newver&gt;" change
+     * simplified to "Bump &lt;dep&gt; to &lt;newver&gt;", or the same title
+     */
+    public static String simplifyBumpTitle(String title)
+    {
+        Matcher matcher = BUMP_FROM_TO.matcher(title);
+        if (matcher.find())
+            return String.format("Bump %s to %s", matcher.group(1), matcher.group(3));
+        return title;
+    }
+
+    /**
+     * @param title the (simplified) title of a change
+     * @return the dependency bumped, or null if not a bump
+     */
+    public static String getBumpedDependency(String title)
+    {
+        Matcher matcher = BUMP.matcher(title);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Compare (simplified) titles, by dependency then latest version first.
+     */
+    public static int compareBumpTitles(String title1, String title2)
+    {
+        Matcher matcher1 = BUMP.matcher(title1);
+        Matcher matcher2 = BUMP.matcher(title2);
+
+        if (matcher1.find())
+        {
+            if (matcher2.find())
+            {
+                int diff = matcher1.group(1).compareTo(matcher2.group(1));
+                if (diff != 0)
+                    return diff;
+                return matcher2.group(2).compareTo(matcher1.group(2));
+            }
+        }
+
+        return title1.compareTo(title2);
+    }
+
     public static class BumpDistinct implements Predicate<Change>
     {
         private Map<String, Boolean> bumps = new ConcurrentHashMap<>();
-        private Pattern patternBump = Pattern.compile("^Bump (.*) to (.*)$");
 
         @Override
         public boolean test(Change change)
         {
-            String title = change.getRefTitle();
-            Matcher matcher = patternBump.matcher(title);
-            if (matcher.find())
-            {
-                String depName = matcher.group(1);
+            String depName = getBumpedDependency(change.getRefTitle());
+            if (depName != null)
                 return bumps.putIfAbsent(depName, Boolean.TRUE) == null;
-            }
 
             // allow non-matching through.
             return true;
@@ -45,44 +88,19 @@ public class Dependencies
 
     public static class BumpToComparator implements Comparator<Change>
     {
-        private Pattern patternBump = Pattern.compile("^Bump (.*) to (.*)$");
-
         @Override
         public int compare(Change c1, Change c2)
         {
-            Matcher matcher1 = patternBump.matcher(c1.getRefTitle());
-            Matcher matcher2 = patternBump.matcher(c2.getRefTitle());
-
-            if (matcher1.find())
-            {
-                if (matcher2.find())
-                {
-                    int diff = matcher1.group(1).compareTo(matcher2.group(1));
-                    if (diff != 0)
-                        return diff;
-                    return matcher2.group(2).compareTo(matcher1.group(2));
-                }
-            }
-
-            return c1.getRefTitle().compareTo(c2.getRefTitle());
+            return compareBumpTitles(c1.getRefTitle(), c2.getRefTitle());
         }
     }
 
     public static class BumpFromToSimplifier implements Function<Change, Change>
     {
-        private Pattern patternBump = Pattern.compile("^Bump (.*) from (.*) to (.*)$");
-
         @Override
         public Change apply(Change change)
         {
-            Matcher matcher = patternBump.matcher(change.getRefTitle());
-            if (matcher.find())
-            {
-                String depName = matcher.group(1);
-                String latestVersion = matcher.group(3);
-                String replacementTitle = String.format("Bump %s to %s", depName, latestVersion);
-                change.setRefTitle(replacementTitle);
-            }
+            change.setRefTitle(simplifyBumpTitle(change.getRefTitle()));
             // return same change.
             return change;
         }
@@ -0,0 +1,74 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for a phase of the {@link ChangelogTool}
+ * (eg: the crawl of the commits, the relevancy filtering or the writing of the outputs).
+ */
+@Name("net.webtide.tools.release.DiscoveryPhase")
+@Label("Discovery Phase")
+@Category({"Webtide Release Tools", "Discovery"})
+@Description("A phase of the changelog discovery and generation")
+@StackTrace(false)
+class DiscoveryPhaseEvent extends Event
+{
+    @Label("Phase")
+    String phase;
+
+    @Label("Repository")
+    @Description("The GitHub repository, as owner/name")
+    String repository;
+
+    @Label("Items")
+    @Description("The number of items (commits, issues or changes) produced by the phase, -1 if not applicable")
+    int items;
+
+    /**
+     * Begin a phase event.
+     *
+     * @param phase the name of the phase
+     * @param repository the GitHub repository
+     * @return the begun event
+     */
+    static DiscoveryPhaseEvent start(String phase, String repository)
+    {
+        DiscoveryPhaseEvent event = new DiscoveryPhaseEvent();
+        event.begin();
+        event.phase = phase;
+        event.repository = repository;
+        event.items = -1;
+        return event;
+    }
+
+    /**
+     * End the phase event, and commit it if enabled.
+     *
+     * @param items the number of items produced by the phase, or -1
+     */
+    void finish(int items)
+    {
+        if (shouldCommit())
+        {
+            this.items = items;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+/**
+ * A disjoint-set (union-find) of the nodes {@code [0, size)}, with union by size and path halving,
+ * so that any sequence of operations runs in near-linear time, without recursion.
+ */
+class DisjointSet
+{
+    private final int[] parent;
+    private final int[] size;
+
+    DisjointSet(int count)
+    {
+        parent = new int[count];
+        size = new int[count];
+        for (int node = 0; node < count; node++)
+        {
+            parent[node] = node;
+            size[node] = 1;
+        }
+    }
+
+    /**
+     * @param node the node
+     * @return the representative node of the set of the node
+     */
+    int find(int node)
+    {
+        while (parent[node] != node)
+        {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    /**
+     * Merge the sets of two nodes.
+     *
+     * @return true if the nodes were in different sets
+     */
+    boolean union(int a, int b)
+    {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB)
+            return false;
+        if (size[rootA] < size[rootB])
+        {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+        return true;
+    }
+
+    int size()
+    {
+        return parent.length;
+    }
+}
@@ -0,0 +1,87 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for a git lookup of the {@link ChangelogCache}
+ * (the paths changed by a commit, or the branches containing a commit).
+ * <p>
+ * The duration of the event is the duration of the lookup, including the cached ones.
+ * </p>
+ */
+@Name("net.webtide.tools.release.GitLookup")
+@Label("Git Lookup")
+@Category({"Webtide Release Tools", "Git"})
+@Description("A git diff or branch containment lookup")
+@StackTrace(false)
+class GitLookupEvent extends Event
+{
+    public static final String DIFF = "diff";
+    public static final String FILTERED_DIFF = "filtered-diff";
+    public static final String BRANCHES = "branches";
+    public static final String IN_ANY_BRANCH = "in-any-branch";
+
+    @Label("Kind")
+    @Description("The kind of lookup: diff, filtered-diff, branches or in-any-branch")
+    String kind;
+
+    @Label("Commit")
+    String commit;
+
+    @Label("Cached")
+    @Description("True if the lookup was answered by the cache, without querying git")
+    boolean cached;
+
+    @Label("Results")
+    @Description("The number of paths or branches found, or 1 if the commit is in a branch")
+    int results;
+
+    /**
+     * Begin a lookup event.
+     *
+     * @param kind the kind of lookup
+     * @param commit the commit looked up
+     * @return the begun event
+     */
+    static GitLookupEvent start(String kind, String commit)
+    {
+        GitLookupEvent event = new GitLookupEvent();
+        event.begin();
+        event.kind = kind;
+        event.commit = commit;
+        return event;
+    }
+
+    /**
+     * End the lookup event, and commit it if enabled.
+     *
+     * @param cached true if the lookup was answered by the cache
+     * @param results the number of results
+     */
+    void finish(boolean cached, int results)
+    {
+        if (shouldCommit())
+        {
+            this.cached = cached;
+            this.results = results;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.webtide.tools.github.cache.PersistentCache;
+import org.eclipse.jgit.lib.ObjectId;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The fingerprint of the inputs of a changelog generation: the commits of the range, the configuration,
+ * the release version, the authors.json version, the author directory, and the GitHub cache generation.
+ * <p>
+ * The fingerprint is stored with the outputs, so that a later generation with the same inputs can be skipped.
+ * It must be computed again (and stored) after the generation, as the generation can change the GitHub cache.
+ * </p>
+ */
+public class InputFingerprint
+{
+    private final Path file;
+    private final String value;
+    private final List<Path> outputFiles;
+
+    private InputFingerprint(Path file, String value, List<Path> outputFiles)
+    {
+        this.file = file;
+        this.value = value;
+        this.outputFiles = outputFiles;
+    }
+
+    /**
+     * Compute the fingerprint of the inputs of a tool, released as the current version reference.
+     *
+     * @param tool the tool (configured with the configuration)
+     * @param config the configuration
+     * @return the fingerprint
+     */
+    public static InputFingerprint of(ChangelogTool tool, Config config) throws IOException
+    {
+        return of(tool, config, config.getRefVersionCurrent());
+    }
+
+    /**
+     * Compute the fingerprint of the inputs of a tool.
+     *
+     * @param tool the tool (configured with the configuration)
+     * @param config the configuration
+     * @param releaseVersion the version written in the outputs
+     * @return the fingerprint
+     */
+    public static InputFingerprint of(ChangelogTool tool, Config config, String releaseVersion) throws IOException
+    {
+        MessageDigest digest = newDigest();
+        for (ObjectId commit : tool.getRangeCommits())
+        {
+            update(digest, "commit=" + commit.name());
+        }
+        update(digest, "config=" + Config.newGson().toJson(config));
+        update(digest, "release=" + releaseVersion);
+        update(digest, "authors=" + getAuthorsVersion());
+        Path authorDirectoryFile = config.getAuthorDirectoryFile() == null ? AuthorDirectory.getDefaultFile() : config.getAuthorDirectoryFile();
+        update(digest, "authorDirectory=" + (Files.isRegularFile(authorDirectoryFile) ? getDigest(Files.newInputStream(authorDirectoryFile)) : "none"));
+        Path gitCacheDir = config.getGitCacheDir();
+        update(digest, "github=" + (gitCacheDir == null ? "none" : PersistentCache.getGeneration(gitCacheDir.toAbsolutePath())));
+
+        // the outputs of the plugin goals are written in the same directory
+        Set<String> outputs = new LinkedHashSet<>();
+        config.getOutputTypes().forEach((type) -> outputs.add(type.name()));
+        outputs.addAll(config.getOutputFormats());
+        Path file = config.getOutputPath().resolve("changelog-inputs-" + String.join("-", outputs) + ".sha256");
+        List<Path> outputFiles = new ArrayList<>();
+        ChangelogTool.getOutputs(config).forEach((output) -> outputFiles.addAll(output.getOutputFiles(config)));
+        return new InputFingerprint(file, HexFormat.of().formatHex(digest.digest()), outputFiles);
+    }
+
+    /**
+     * @return true if the same fingerprint is stored with the outputs, and all the outputs exist
+     */
+    public boolean isUpToDate() throws IOException
+    {
+        if (!Files.isRegularFile(file) || !value.equals(Files.readString(file, UTF_8).trim()))
+            return false;
+        return outputFiles.stream().allMatch(Files::isRegularFile);
+    }
+
+    public void store() throws IOException
+    {
+        FS.ensureDirectoryExists(file.getParent());
+        Files.writeString(file, value, UTF_8);
+    }
+
+    public Path getFile()
+    {
+        return file;
+    }
+
+    public String getValue()
+    {
+        return value;
+    }
+
+    private static String getAuthorsVersion() throws IOException
+    {
+        URL url = Authors.class.getClassLoader().getResource("authors.json");
+        if (url == null)
+            return "none";
+        return getDigest(url.openStream());
+    }
+
+    private static String getDigest(InputStream input) throws IOException
+    {
+        MessageDigest digest = newDigest();
+        try (InputStream in = input)
+        {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0)
+            {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String input)
+    {
+        digest.update(input.getBytes(UTF_8));
+        digest.update((byte)'\n');
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new ChangelogException("Unable to compute the input fingerprint", e);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * A map of primitive int keys (eg: issue numbers), iterated in insertion order.
+ * <p>
+ * The entries are kept in dense key and value arrays, indexed by an open addressing
+ * (linear probing) table, without the boxed keys and entry objects of a {@code HashMap<Integer, V>}.
+ * Entries cannot be removed.
+ * </p>
+ *
+ * @param <V> the type of the values
+ */
+public class IntMap<V>
+{
+    private int[] keys;
+    private Object[] values;
+    // the position of each entry (plus one) in the dense arrays, 0 for a free slot
+    private int[] index;
+    private int size;
+
+    public IntMap()
+    {
+        this(16);
+    }
+
+    /**
+     * @param expected the expected number of entries
+     */
+    public IntMap(int expected)
+    {
+        int capacity = Math.max(4, expected);
+        keys = new int[capacity];
+        values = new Object[capacity];
+        index = new int[indexSize(capacity)];
+    }
+
+    public boolean containsKey(int key)
+    {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * @param key the key
+     * @return the position of the key in insertion order, or -1 if unknown
+     */
+    public int indexOf(int key)
+    {
+        int slot = slotOf(key);
+        return slot < 0 ? -1 : index[slot] - 1;
+    }
+
+    public V get(int key)
+    {
+        int slot = slotOf(key);
+        return slot < 0 ? null : value(index[slot] - 1);
+    }
+
+    /**
+     * @param key the key
+     * @param value the value
+     * @return the previous value of the key, or null if the key is new
+     */
+    public V put(int key, V value)
+    {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (index[slot] != 0)
+        {
+            int pos = index[slot] - 1;
+            if (keys[pos] == key)
+            {
+                V previous = value(pos);
+                values[pos] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == keys.length)
+        {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = key;
+        values[size] = value;
+        index[slot] = ++size;
+        // keep the load factor of the index at most 1/2
+        if (size * 2 > index.length)
+            reindex(index.length * 2);
+        return null;
+    }
+
+    /**
+     * @param key the key
+     * @param create creates the value of a new key
+     * @return the value of the key
+     */
+    public V computeIfAbsent(int key, IntFunction<? extends V> create)
+    {
+        V value = get(key);
+        if (value == null)
+        {
+            value = create.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * @return the keys, in insertion order
+     */
+    public int[] keys()
+    {
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * @return a view of the values, in insertion order
+     */
+    public Collection<V> values()
+    {
+        return new AbstractCollection<>()
+        {
+            @Override
+            public Iterator<V> iterator()
+            {
+                return new Iterator<>()
+                {
+                    private int pos;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return pos < size;
+                    }
+
+                    @Override
+                    public V next()
+                    {
+                        if (pos >= size)
+                            throw new NoSuchElementException();
+                        return value(pos++);
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return size;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int pos)
+    {
+        return (V)values[pos];
+    }
+
+    private int slotOf(int key)
+    {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (index[slot] != 0)
+        {
+            if (keys[index[slot] - 1] == key)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void reindex(int capacity)
+    {
+        index = new int[capacity];
+        int mask = capacity - 1;
+        for (int pos = 0; pos < size; pos++)
+        {
+            int slot = hash(keys[pos]) & mask;
+            while (index[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = pos + 1;
+        }
+    }
+
+    private static int hash(int key)
+    {
+        // spread the (typically sequential) issue numbers
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int indexSize(int expected)
+    {
+        int capacity = 8;
+        while (capacity < expected * 2)
+        {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder str = new StringBuilder("{");
+        for (int pos = 0; pos < size; pos++)
+        {
+            if (pos > 0)
+                str.append(", ");
+            str.append(keys[pos]).append('=').append(values[pos]);
+        }
+        return str.append('}').toString();
+    }
+}
@@ -0,0 +1,267 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A set of primitive ints (open addressing with linear probing), without the boxing of a {@code Set<Integer>}.
+ */
+public class IntSet
+{
+    // marks a free slot, the value itself is tracked separately
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] table;
+    private int size;
+    private boolean hasFree;
+
+    public IntSet()
+    {
+        this(8);
+    }
+
+    /**
+     * @param expected the expected number of values
+     */
+    public IntSet(int expected)
+    {
+        table = newTable(tableSize(expected));
+    }
+
+    public boolean add(int value)
+    {
+        if (value == FREE)
+        {
+            if (hasFree)
+                return false;
+            hasFree = true;
+            size++;
+            return true;
+        }
+
+        int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (table[slot] != FREE)
+        {
+            if (table[slot] == value)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        size++;
+        // keep the load factor at most 1/2
+        if (size * 2 > table.length)
+            rehash(table.length * 2);
+        return true;
+    }
+
+    public void addAll(IntSet values)
+    {
+        values.forEach(this::add);
+    }
+
+    public boolean contains(int value)
+    {
+        if (value == FREE)
+            return hasFree;
+        return indexOf(value) >= 0;
+    }
+
+    public boolean remove(int value)
+    {
+        if (value == FREE)
+        {
+            if (!hasFree)
+                return false;
+            hasFree = false;
+            size--;
+            return true;
+        }
+
+        int slot = indexOf(value);
+        if (slot < 0)
+            return false;
+
+        // shift back the following values of the probe sequence into the freed slot
+        int mask = table.length - 1;
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (table[next] != FREE)
+        {
+            int home = hash(table[next]) & mask;
+            // move the value unless its home slot lies cyclically in (free, next]
+            if (((next - home) & mask) >= ((next - free) & mask))
+            {
+                table[free] = table[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[free] = FREE;
+        size--;
+        return true;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(table, FREE);
+        hasFree = false;
+        size = 0;
+    }
+
+    /**
+     * @param action called with each value, in no particular order
+     */
+    public void forEach(IntConsumer action)
+    {
+        if (hasFree)
+            action.accept(FREE);
+        for (int value : table)
+        {
+            if (value != FREE)
+                action.accept(value);
+        }
+    }
+
+    /**
+     * @return the values, in no particular order
+     */
+    public int[] toArray()
+    {
+        int[] values = new int[size];
+        int i = 0;
+        if (hasFree)
+            values[i++] = FREE;
+        for (int value : table)
+        {
+            if (value != FREE)
+                values[i++] = value;
+        }
+        return values;
+    }
+
+    public int[] toSortedArray()
+    {
+        int[] values = toArray();
+        Arrays.sort(values);
+        return values;
+    }
+
+    public IntStream stream()
+    {
+        return IntStream.of(toArray());
+    }
+
+    private int indexOf(int value)
+    {
+        int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (table[slot] != FREE)
+        {
+            if (table[slot] == value)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity)
+    {
+        int[] old = table;
+        table = newTable(capacity);
+        int mask = capacity - 1;
+        for (int value : old)
+        {
+            if (value == FREE)
+                continue;
+            int slot = hash(value) & mask;
+            while (table[slot] != FREE)
+            {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = value;
+        }
+    }
+
+    private static int hash(int value)
+    {
+        // spread the (typically sequential) issue numbers
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSize(int expected)
+    {
+        int capacity = 8;
+        while (capacity < expected * 2)
+        {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int[] newTable(int capacity)
+    {
+        int[] table = new int[capacity];
+        Arrays.fill(table, FREE);
+        return table;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+            return true;
+        if (!(o instanceof IntSet other) || size != other.size)
+            return false;
+        if (hasFree != other.hasFree)
+            return false;
+        for (int value : table)
+        {
+            if (value != FREE && !other.contains(value))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = hasFree ? FREE : 0;
+        for (int value : table)
+        {
+            if (value != FREE)
+                hash += value;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(toSortedArray());
+    }
+}
@@ -0,0 +1,62 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * An {@link IntSet} as a JSON array of numbers (in ascending order), the same as a {@code Set<Integer>}.
+ */
+public class IntSetTypeAdapter extends TypeAdapter<IntSet>
+{
+    @Override
+    public IntSet read(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+
+        IntSet values = new IntSet();
+        in.beginArray();
+        while (in.hasNext())
+        {
+            values.add(in.nextInt());
+        }
+        in.endArray();
+        return values;
+    }
+
+    @Override
+    public void write(JsonWriter out, IntSet values) throws IOException
+    {
+        if (values == null)
+        {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (int value : values.toSortedArray())
+        {
+            out.value(value);
+        }
+        out.endArray();
+    }
+}
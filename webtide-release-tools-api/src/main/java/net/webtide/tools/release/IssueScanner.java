@@ -12,60 +12,210 @@
 
 package net.webtide.tools.release;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+/**
+ * Find the issue (and pull request) references in commit messages, issue titles and bodies.
+ * <p>
+ * Each message is scanned in a single pass, recognizing the reference forms:
+ * </p>
+ * <ul>
+ *     <li>{@link #scan(String)}: {@code #1234} at the start of the message (4 to 7 digits),
+ *     {@code #123} not prefixed by an alphanumeric character or {@code >} (3 to 7 digits),
+ *     and {@code Issue 1234} (4 to 7 digits)</li>
+ *     <li>{@link #scanResolutions(String)}: {@code Closes/Closed/Fixes/Fixed/Fix/Resolves/Resolved #123}
+ *     (with or without the {@code #}, 3 to 6 digits)</li>
+ * </ul>
+ * <p>
+ * Digits beyond the maximum are ignored (eg: {@code #12345678} is a reference to 1234567),
+ * and messages mentioning {@code @dependabot} have no references.
+ * </p>
+ */
 public class IssueScanner
 {
-    public static Set<Integer> scan(String message)
+    /**
+     * The default maximum number of characters scanned in a message.
+     */
+    public static final int DEFAULT_SCAN_LIMIT = 256 * 1024;
+    /**
+     * Scan messages entirely.
+     */
+    public static final int NO_LIMIT = 0;
+    private static final IssueScanner UNLIMITED = new IssueScanner(NO_LIMIT);
+    private static final String DEPENDABOT = "@dependabot";
+
+    private final int scanLimit;
+
+    /**
+     * @param scanLimit the maximum number of characters scanned for the start of a reference in a message
+     * (eg: huge issue bodies), or {@link #NO_LIMIT}
+     */
+    public IssueScanner(int scanLimit)
+    {
+        this.scanLimit = scanLimit;
+    }
+
+    /**
+     * Find the references in a message, without a scan limit.
+     *
+     * @param message the message
+     * @return the referenced issue numbers
+     */
+    public static IntSet scan(String message)
+    {
+        return UNLIMITED.findReferences(message);
+    }
+
+    /**
+     * Find the resolution references in a message, without a scan limit.
+     *
+     * @param message the message
+     * @return the resolved issue numbers
+     */
+    public static IntSet scanResolutions(String message)
+    {
+        return UNLIMITED.findResolutions(message);
+    }
+
+    public int getScanLimit()
     {
-        // skip dependabot bodies
-        if (message.contains("@dependabot"))
+        return scanLimit;
+    }
+
+    /**
+     * Find the references ({@code #1234} and {@code Issue 1234}) in a message.
+     *
+     * @param message the message (may be null)
+     * @return the referenced issue numbers
+     */
+    public IntSet findReferences(String message)
+    {
+        IntSet issueNums = new IntSet();
+        if (message == null || message.contains(DEPENDABOT))
+            return issueNums;
+
+        int end = getScanEnd(message);
+        for (int i = 0; i < end; i++)
         {
-            return Collections.emptySet();
+            char c = message.charAt(i);
+            if (c == '#')
+            {
+                if (i == 0)
+                {
+                    // start of message
+                    addNumber(issueNums, message, 1, 4, 7);
+                }
+                else
+                {
+                    // we want to ignore things like "group/repo#1234" and "<a href='github.com/group/repo/issues/1234'>#1234</a>"
+                    // but allow things like "(#1234)"
+                    char prior = message.charAt(i - 1);
+                    if (!isAsciiAlphanumeric(prior) && prior != '>')
+                        addNumber(issueNums, message, i + 1, 3, 7);
+                }
+            }
+            else if (c == 'I' && message.startsWith("Issue ", i))
+            {
+                // awkward issue reference (no hashsign)
+                addNumber(issueNums, message, i + 6, 4, 7);
+            }
         }
-
-        Set<Integer> issueNums = new HashSet<>();
-        // Start of line
-        scanPattern(issueNums, message, "^#([0-9]{4,7})");
-        // Not prefixed by ">" or alphanumeric character
-        // we want to ignore things like "group/repo#1234" and "<a href='github.com/group/repo/issues/1234'>#1234</a>"
-        // but allow things like "(#1234)"
-        scanPattern(issueNums, message, "[^\\p{Alpha}\\p{Digit}>]+#([0-9]{3,7})");
-        // Awkward issue reference (no hashsign)
-        scanPattern(issueNums, message, "Issue ([0-9]{4,7})");
         return issueNums;
     }
 
-    private static void scanPattern(Set<Integer> issueNums, String message, String regex)
+    /**
+     * Find the resolution references ({@code Fixes #1234} etc.) in a message.
+     *
+     * @param message the message (may be null)
+     * @return the resolved issue numbers
+     */
+    public IntSet findResolutions(String message)
     {
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(message);
-        int offset = 0;
-        while (matcher.find(offset))
+        IntSet issueNums = new IntSet();
+        if (message == null || message.contains(DEPENDABOT))
+            return issueNums;
+
+        int end = getScanEnd(message);
+        for (int i = 0; i < end; i++)
         {
-            int issueNum = Integer.parseInt(matcher.group(1));
-            issueNums.add(issueNum);
-            offset = matcher.end();
+            switch (message.charAt(i))
+            {
+                case 'C' ->
+                {
+                    // Closes, Closed
+                    if (message.startsWith("Close", i) && isPastTense(message, i + 5))
+                        addResolution(issueNums, message, i + 7);
+                }
+                case 'F' ->
+                {
+                    // Fixes, Fixed, Fix
+                    if (message.startsWith("Fixe", i) && isPastTense(message, i + 4))
+                        addResolution(issueNums, message, i + 6);
+                    else if (message.startsWith("Fix ", i))
+                        addResolution(issueNums, message, i + 4);
+                }
+                case 'R' ->
+                {
+                    // Resolves, Resolved
+                    if (message.startsWith("Resolve", i) && isPastTense(message, i + 7))
+                        addResolution(issueNums, message, i + 9);
+                }
+                default ->
+                {
+                }
+            }
         }
+        return issueNums;
+    }
+
+    /**
+     * @return the end of the characters where a reference can start, a reference starting before the
+     * scan limit is read entirely
+     */
+    private int getScanEnd(String message)
+    {
+        return scanLimit > 0 ? Math.min(message.length(), scanLimit) : message.length();
     }
 
-    public static Set<Integer> scanResolutions(String message)
+    /**
+     * @return true if followed by {@code s } or {@code d }
+     */
+    private static boolean isPastTense(String message, int offset)
     {
-        // skip dependabot bodies
-        if (message == null || message.contains("@dependabot"))
+        if (offset + 1 >= message.length())
+            return false;
+        char c = message.charAt(offset);
+        return (c == 's' || c == 'd') && message.charAt(offset + 1) == ' ';
+    }
+
+    private static void addResolution(IntSet issueNums, String message, int offset)
+    {
+        // optional hashsign
+        if (offset < message.length() && message.charAt(offset) == '#')
+            addNumber(issueNums, message, offset + 1, 3, 6);
+        else
+            addNumber(issueNums, message, offset, 3, 6);
+    }
+
+    /**
+     * Add the number of (at least min and at most max) digits at the offset.
+     */
+    private static void addNumber(IntSet issueNums, String message, int offset, int min, int max)
+    {
+        int num = 0;
+        int digits = 0;
+        while (digits < max && offset + digits < message.length())
         {
-            return Collections.emptySet();
+            char c = message.charAt(offset + digits);
+            if (c < '0' || c > '9')
+                break;
+            num = num * 10 + (c - '0');
+            digits++;
         }
+        if (digits >= min)
+            issueNums.add(num);
+    }
 
-        Set<Integer> issueNums = new HashSet<>();
-        scanPattern(issueNums, message, "Close[sd] #?([0-9]{3,6})");
-        scanPattern(issueNums, message, "Fixe[sd] #?([0-9]{3,6})");
-        scanPattern(issueNums, message, "Fix #?([0-9]{3,6})");
-        scanPattern(issueNums, message, "Resolve[sd] #?([0-9]{3,6})");
-        return issueNums;
+    private static boolean isAsciiAlphanumeric(char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
     }
 }
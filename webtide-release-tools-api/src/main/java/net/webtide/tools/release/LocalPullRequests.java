@@ -0,0 +1,197 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolve the commits of a pull request from the local pull request refs,
+ * either {@code refs/pull/<num>/head} or the common fetch refspec of
+ * {@code +refs/pull/*&#47;head:refs/remotes/origin/pr/*}.
+ */
+public class LocalPullRequests
+{
+    private static final Logger LOG = LoggerFactory.getLogger(LocalPullRequests.class);
+    private static final String R_PULL = "refs/pull/";
+    private static final String PR_SEGMENT = "/pr/";
+    /**
+     * Clock skew allowed when searching for the merge commit of a pull request.
+     */
+    private static final int COMMIT_TIME_SLOP = (int)TimeUnit.DAYS.toSeconds(1);
+
+    private final Repository repository;
+    private Map<Integer, ObjectId> pullRequestHeads;
+
+    public LocalPullRequests(Repository repository)
+    {
+        this.repository = repository;
+    }
+
+    /**
+     * Find the commits of a pull request, walking from its local head ref to where it
+     * forked from (or was merged into) the base branch.
+     *
+     * @param prNum the pull request number
+     * @param baseBranch the name of the base branch of the pull request
+     * @return the commit ids (newest first), or null if the pull request commits cannot be
+     * determined locally (eg: the pull request ref is not present)
+     */
+    public List<String> findCommits(int prNum, String baseBranch)
+    {
+        try
+        {
+            ObjectId headId = getPullRequestHeads().get(prNum);
+            if (headId == null)
+                return null;
+            ObjectId baseId = findBranch(baseBranch);
+            if (baseId == null)
+                return null;
+
+            try (RevWalk walk = new RevWalk(repository))
+            {
+                RevCommit head = walk.parseCommit(headId);
+                RevCommit base = walk.parseCommit(baseId);
+
+                RevCommit boundary;
+                if (walk.isMergedInto(head, base))
+                    boundary = findMergeFirstParent(walk, head, base);
+                else
+                    boundary = findMergeBase(walk, head, base);
+                if (boundary == null)
+                    return null;
+
+                walk.reset();
+                walk.setRevFilter(RevFilter.ALL);
+                walk.markStart(head);
+                walk.markUninteresting(boundary);
+                List<String> commits = new ArrayList<>();
+                for (RevCommit commit : walk)
+                {
+                    commits.add(commit.getName());
+                }
+                LOG.debug("Found {} commits for PR #{} locally", commits.size(), prNum);
+                return commits;
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.debug("Unable to resolve PR #{} locally", prNum, e);
+            return null;
+        }
+    }
+
+    /**
+     * When the pull request head is already merged into the base branch, the merge commit is
+     * searched for on the first-parent chain of the base branch (not older than the pull request head).
+     *
+     * @return the first parent of the merge commit, or null if the merge commit was not found
+     */
+    private RevCommit findMergeFirstParent(RevWalk walk, RevCommit head, RevCommit base) throws IOException
+    {
+        int oldest = head.getCommitTime() - COMMIT_TIME_SLOP;
+        RevCommit commit = base;
+        while (commit != null && commit.getCommitTime() >= oldest)
+        {
+            walk.parseHeaders(commit);
+            if (commit.equals(head))
+                return null; // fast-forwarded onto the base branch, its start is unknown
+            for (int i = 1; i < commit.getParentCount(); i++)
+            {
+                if (commit.getParent(i).equals(head))
+                    return commit.getParent(0);
+            }
+            commit = commit.getParentCount() > 0 ? walk.parseCommit(commit.getParent(0)) : null;
+        }
+        return null;
+    }
+
+    private RevCommit findMergeBase(RevWalk walk, RevCommit head, RevCommit base) throws IOException
+    {
+        walk.reset();
+        walk.setRevFilter(RevFilter.MERGE_BASE);
+        walk.markStart(head);
+        walk.markStart(base);
+        return walk.next();
+    }
+
+    private ObjectId findBranch(String branch) throws IOException
+    {
+        if (branch == null)
+            return null;
+        Ref ref = repository.exactRef(Constants.R_HEADS + branch);
+        if (ref == null)
+            ref = repository.exactRef(Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + branch);
+        if (ref == null)
+        {
+            ref = repository.getRefDatabase().getRefsByPrefix(Constants.R_REMOTES).stream()
+                .filter((r) -> r.getName().endsWith("/" + branch))
+                .findFirst()
+                .orElse(null);
+        }
+        return ref == null ? null : ref.getObjectId();
+    }
+
+    private synchronized Map<Integer, ObjectId> getPullRequestHeads() throws IOException
+    {
+        if (pullRequestHeads == null)
+        {
+            Map<Integer, ObjectId> heads = new HashMap<>();
+            // refs/remotes/<remote>/pr/<num>
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_REMOTES))
+            {
+                String name = ref.getName();
+                int idx = name.lastIndexOf(PR_SEGMENT);
+                if (idx > 0)
+                    putPullRequestHead(heads, name.substring(idx + PR_SEGMENT.length()), ref);
+            }
+            // refs/pull/<num>/head (preferred)
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(R_PULL))
+            {
+                String name = ref.getName();
+                if (name.endsWith("/head"))
+                    putPullRequestHead(heads, name.substring(R_PULL.length(), name.length() - "/head".length()), ref);
+            }
+            LOG.debug("Found {} local pull request refs", heads.size());
+            pullRequestHeads = heads;
+        }
+        return pullRequestHeads;
+    }
+
+    private static void putPullRequestHead(Map<Integer, ObjectId> heads, String num, Ref ref)
+    {
+        try
+        {
+            if (ref.getObjectId() != null)
+                heads.put(Integer.parseInt(num), ref.getObjectId());
+        }
+        catch (NumberFormatException ignore)
+        {
+            // not a pull request ref
+        }
+    }
+}
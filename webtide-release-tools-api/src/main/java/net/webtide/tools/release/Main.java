@@ -12,39 +12,171 @@
 
 package net.webtide.tools.release;
 
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import net.webtide.tools.github.GitHubApi;
+import net.webtide.tools.github.cache.PersistentCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Main
 {
+    private static final Logger LOG = LoggerFactory.getLogger(Main.class);
+
     public static void main(String[] args) throws Exception
     {
         Config config = Config.parseArgs(new Args(args));
 
-        try (ChangelogTool tool = new ChangelogTool(config))
+        if (config.getOutputTypes().isEmpty() && config.getOutputFormats().isEmpty())
+            config.getOutputTypes().add(WriteOutput.Type.MARKDOWN);
+
+        if (!config.getRepositories().isEmpty())
         {
-            tool.discoverChanges();
+            runRepositories(config);
+            return;
+        }
 
-            System.out.printf("Found %,d commit entries%n", tool.getCommits().size());
-            System.out.printf("Found %,d issue/pr references%n", tool.getIssues().size());
-            System.out.printf("Found %,d changes%n", tool.getChangelog().size());
+        // the command line owns its JVM, so the JVM wide pack access settings can be tuned for the repository
+        PackAccess.enableMmapForLargeRepositories(config, Stream.ofNullable(config.getRepoPath()).toList());
+        try (ChangelogSession session = ChangelogSession.open(config))
+        {
+            run(session, config);
+        }
+    }
+
+    /**
+     * Process the repositories concurrently, sharing one GitHubApi (with its cache and rate limit budget).
+     */
+    private static void runRepositories(Config config) throws Exception
+    {
+        List<Config> repoConfigs = config.getRepositories().stream()
+            .map(config::forRepository)
+            .toList();
+        List<Path> repoPaths = repoConfigs.stream().map(Config::getRepoPath).toList();
+        PackAccess.enableMmapForLargeRepositories(config, repoPaths);
+        PackAccess.install(config, repoPaths);
+
+        GitHubApi github = GitHubApi.connect();
+        if (config.getGitCacheDir() != null)
+        {
+            FS.ensureDirectoryExists(config.getGitCacheDir());
+            github.setCache(new PersistentCache(config.getGitCacheDir()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(repoConfigs.size());
+        try
+        {
+            Map<String, Future<?>> futures = new LinkedHashMap<>();
+            for (Config repoConfig : repoConfigs)
+            {
+                String name = repoConfig.getGithubRepoOwner() + "/" + repoConfig.getGithubRepoName();
+                GitHubApi repoGitHub = github.forConsumer(name);
+                futures.put(name, executor.submit(() ->
+                {
+                    try (ChangelogSession session = ChangelogSession.open(repoConfig, repoGitHub))
+                    {
+                        run(session, repoConfig);
+                    }
+                    finally
+                    {
+                        github.getRateBudget().unregister(name);
+                    }
+                    return null;
+                }));
+            }
+
+            List<String> failed = new ArrayList<>();
+            for (Map.Entry<String, Future<?>> entry : futures.entrySet())
+            {
+                try
+                {
+                    entry.getValue().get();
+                }
+                catch (ExecutionException e)
+                {
+                    LOG.warn("Failed to generate changelog for {}", entry.getKey(), e.getCause());
+                    failed.add(entry.getKey());
+                }
+            }
+            if (!failed.isEmpty())
+                throw new ChangelogException("Failed to generate changelog for " + failed);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
 
-            FS.ensureDirectoryExists(config.outputPath);
+    private static void run(ChangelogSession session, Config config) throws Exception
+    {
+        if (config.getRanges().isEmpty())
+        {
+            try (ChangelogTool tool = new ChangelogTool(session, config))
+            {
+                generate(tool, config);
+            }
+            return;
+        }
 
-            String projectVersion = config.getRefVersionCurrent();
-            ZonedDateTime versionDate = tool.getCurrentVersionCommitterWhen();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd MMMM yyyy");
-            String date = formatter.format(versionDate);
+        // batch mode, every range shares the repository, authors, and resolved issues
+        for (Config.Range range : config.getRanges())
+        {
+            Config rangeConfig = config.forRange(range);
+            System.out.printf("Range: %s (%s .. %s)%n", rangeConfig.getBranch(), rangeConfig.getTagVersionPrior(), rangeConfig.getRefVersionCurrent());
+            try (ChangelogTool tool = new ChangelogTool(session, rangeConfig))
+            {
+                generate(tool, rangeConfig);
+            }
+        }
+    }
 
-            if (config.getOutputTypes().isEmpty())
-                config.getOutputTypes().add(WriteOutput.Type.MARKDOWN);
+    private static void generate(ChangelogTool tool, Config config) throws Exception
+    {
+        if (config.isPrefetch())
+        {
+            tool.prefetch();
+            return;
+        }
 
-            ChangeMetadata saveRequest = new ChangeMetadata(config,
-                projectVersion,
-                date,
-                tool.getChangelog());
-            tool.save(saveRequest);
-            System.out.printf("Wrote changelog to %s%n", config.outputPath.toAbsolutePath());
+        InputFingerprint fingerprint = config.isUpToDateCheck() ? InputFingerprint.of(tool, config) : null;
+        if (fingerprint != null && fingerprint.isUpToDate())
+        {
+            System.out.printf("Changelog is up to date: %s%n", fingerprint.getFile());
+            return;
         }
+
+        tool.discoverChanges();
+
+        System.out.printf("Found %,d commit entries%n", tool.getCommits().size());
+        System.out.printf("Found %,d issue/pr references%n", tool.getIssues().size());
+        System.out.printf("Found %,d changes%n", tool.getChangelog().size());
+
+        FS.ensureDirectoryExists(config.outputPath);
+
+        String projectVersion = config.getRefVersionCurrent();
+        ZonedDateTime versionDate = tool.getCurrentVersionCommitterWhen();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd MMMM yyyy");
+        String date = formatter.format(versionDate);
+
+        ChangeMetadata saveRequest = new ChangeMetadata(config,
+            projectVersion,
+            date,
+            tool.getChangelog());
+        tool.save(saveRequest);
+        // after the generation, which may have changed the GitHub cache
+        if (fingerprint != null)
+            InputFingerprint.of(tool, config).store();
+        System.out.printf("Wrote changelog to %s%n", config.outputPath.toAbsolutePath());
     }
 }
@@ -0,0 +1,65 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * A set of {@link ObjectId} as a JSON array of (lowercase) hex SHA strings, in ascending order.
+ */
+public class ObjectIdSetTypeAdapter extends TypeAdapter<Set<ObjectId>>
+{
+    @Override
+    public Set<ObjectId> read(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+
+        Set<ObjectId> ids = new HashSet<>();
+        in.beginArray();
+        while (in.hasNext())
+        {
+            ids.add(ObjectId.fromString(in.nextString()));
+        }
+        in.endArray();
+        return ids;
+    }
+
+    @Override
+    public void write(JsonWriter out, Set<ObjectId> ids) throws IOException
+    {
+        if (ids == null)
+        {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (ObjectId id : ids.stream().sorted().toList())
+        {
+            out.value(id.name());
+        }
+        out.endArray();
+    }
+}
@@ -0,0 +1,50 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * An {@link ObjectId} as its (lowercase) hex SHA string.
+ */
+public class ObjectIdTypeAdapter extends TypeAdapter<ObjectId>
+{
+    @Override
+    public ObjectId read(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+
+        return ObjectId.fromString(in.nextString());
+    }
+
+    @Override
+    public void write(JsonWriter out, ObjectId value) throws IOException
+    {
+        if (value == null)
+        {
+            out.nullValue();
+            return;
+        }
+        out.value(value.name());
+    }
+}
@@ -0,0 +1,183 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JGit pack access tuning (the WindowCache, mmap and the delta base cache).
+ * <p>
+ * The JGit WindowCache is JVM wide, so these settings must be installed
+ * before the repository is opened, and apply to every repository opened afterwards
+ * (eg: by other plugins of the same Maven build).  They are only installed if at least
+ * one of them is configured, otherwise the JGit settings are left untouched.
+ * </p>
+ */
+public final class PackAccess
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PackAccess.class);
+    /**
+     * The total pack size at which memory-mapped pack reading is enabled by the command line, and suggested otherwise.
+     */
+    public static final long LARGE_REPOSITORY_SIZE = 512L * WindowCacheConfig.MB;
+
+    private PackAccess()
+    {
+    }
+
+    /**
+     * Enable memory-mapped pack reading when a repository is large, unless it is configured.
+     * As the setting is JVM wide, this is only meant for a JVM owned by the tool (eg: the command line).
+     *
+     * @param config the configuration
+     * @param repoPaths the repositories
+     * @return true if memory-mapped pack reading was enabled
+     */
+    public static boolean enableMmapForLargeRepositories(Config config, Collection<Path> repoPaths)
+    {
+        if (config.getPackedGitMmap() != null)
+            return false;
+
+        long packSize = repoPaths.stream().mapToLong(PackAccess::getPackSize).max().orElse(0);
+        if (packSize < LARGE_REPOSITORY_SIZE)
+            return false;
+
+        LOG.info("Large repository ({} MB of packs), using memory-mapped pack reading", packSize / WindowCacheConfig.MB);
+        config.setPackedGitMmap(true);
+        return true;
+    }
+
+    /**
+     * Install the configured pack access settings for the repository from the configuration.
+     *
+     * @param config the configuration
+     * @return the repository path from the configuration
+     */
+    public static Path install(Config config)
+    {
+        Path repoPath = config.getRepoPath();
+        install(config, repoPath == null ? List.of() : List.of(repoPath));
+        return repoPath;
+    }
+
+    /**
+     * Install the configured pack access settings, shared by several repositories.
+     *
+     * @param config the configuration
+     * @param repoPaths the repositories
+     */
+    public static void install(Config config, Collection<Path> repoPaths)
+    {
+        if (!isConfigured(config))
+        {
+            long packSize = repoPaths.stream().mapToLong(PackAccess::getPackSize).max().orElse(0);
+            if (packSize >= LARGE_REPOSITORY_SIZE)
+                LOG.info("Large repository ({} MB of packs), memory-mapped pack reading may help: packedGitMmap", packSize / WindowCacheConfig.MB);
+            return;
+        }
+        toWindowCacheConfig(config).install();
+    }
+
+    /**
+     * @param config the configuration
+     * @return true if any of the pack access settings is configured
+     */
+    static boolean isConfigured(Config config)
+    {
+        return config.getPackedGitLimit() != null ||
+            config.getPackedGitWindowSize() != null ||
+            config.getPackedGitMmap() != null ||
+            config.getDeltaBaseCacheLimit() != null ||
+            config.getStreamFileThreshold() != null;
+    }
+
+    /**
+     * Create the WindowCacheConfig for the configuration, starting from the JGit defaults.
+     *
+     * @param config the configuration
+     * @return the WindowCacheConfig
+     */
+    static WindowCacheConfig toWindowCacheConfig(Config config)
+    {
+        WindowCacheConfig windowCacheConfig = new WindowCacheConfig();
+        if (config.getPackedGitLimit() != null)
+            windowCacheConfig.setPackedGitLimit(config.getPackedGitLimit());
+        if (config.getPackedGitWindowSize() != null)
+            windowCacheConfig.setPackedGitWindowSize(Math.toIntExact(config.getPackedGitWindowSize()));
+        if (config.getPackedGitMmap() != null)
+            windowCacheConfig.setPackedGitMMAP(config.getPackedGitMmap());
+        if (config.getDeltaBaseCacheLimit() != null)
+            windowCacheConfig.setDeltaBaseCacheLimit(Math.toIntExact(config.getDeltaBaseCacheLimit()));
+        if (config.getStreamFileThreshold() != null)
+            windowCacheConfig.setStreamFileThreshold(Math.toIntExact(config.getStreamFileThreshold()));
+
+        LOG.debug("Pack access: packedGitLimit={} packedGitWindowSize={} packedGitMMAP={} deltaBaseCacheLimit={} streamFileThreshold={}",
+            windowCacheConfig.getPackedGitLimit(),
+            windowCacheConfig.getPackedGitWindowSize(),
+            windowCacheConfig.isPackedGitMMAP(),
+            windowCacheConfig.getDeltaBaseCacheLimit(),
+            windowCacheConfig.getStreamFileThreshold());
+        return windowCacheConfig;
+    }
+
+    /**
+     * @return the total size of the pack files in the repository, or 0 if unknown
+     */
+    static long getPackSize(Path repoPath)
+    {
+        if (repoPath == null)
+            return 0;
+
+        File gitDir = RepositoryCache.FileKey.resolve(repoPath.toFile(), org.eclipse.jgit.util.FS.DETECTED);
+        if (gitDir == null)
+            return 0;
+
+        Path packDir = gitDir.toPath().resolve("objects/pack");
+        if (!Files.isDirectory(packDir))
+            return 0;
+
+        try (Stream<Path> packs = Files.list(packDir))
+        {
+            return packs
+                .filter((path) -> path.getFileName().toString().endsWith(".pack"))
+                .mapToLong((path) ->
+                {
+                    try
+                    {
+                        return Files.size(path);
+                    }
+                    catch (IOException e)
+                    {
+                        return 0;
+                    }
+                })
+                .sum();
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Unable to determine pack size of {}", packDir, e);
+            return 0;
+        }
+    }
+}
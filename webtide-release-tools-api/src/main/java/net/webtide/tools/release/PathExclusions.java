@@ -0,0 +1,255 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * The commit path exclusions, compiled into a single matcher.
+ * <p>
+ * Regexes that are simple literal prefix matches (eg: {@code ^documentation/.*})
+ * are held in a prefix trie, which also allows entire trees to be excluded without
+ * descending into them.  All other regexes are combined into a single alternation pattern.
+ * </p>
+ */
+public class PathExclusions
+{
+    private final List<String> regexes = new ArrayList<>();
+    private final List<Predicate<String>> predicates = new ArrayList<>();
+    private final PrefixTrie prefixes = new PrefixTrie();
+    private Pattern combined;
+
+    /**
+     * Find the literal path prefix of a regex in the form {@code ^<literal>.*}
+     * (eg: {@code ^documentation/.*} or {@code ^\.git.*}), as every path starting with
+     * that prefix is excluded by the regex.
+     *
+     * @param regex the regex to analyze
+     * @return the literal prefix, or null if the regex is not a simple prefix match
+     */
+    static String toLiteralPrefix(String regex)
+    {
+        if (!regex.startsWith("^") || !regex.endsWith(".*"))
+            return null;
+
+        StringBuilder prefix = new StringBuilder();
+        int end = regex.length() - 2;
+        for (int i = 1; i < end; i++)
+        {
+            char c = regex.charAt(i);
+            if (c == '\\')
+            {
+                if (++i >= end)
+                    return null;
+                c = regex.charAt(i);
+                if (Character.isLetterOrDigit(c))
+                    return null; // character class (eg: \d or \w)
+            }
+            else if ("[](){}.*+?^$|".indexOf(c) >= 0)
+            {
+                return null;
+            }
+            prefix.append(c);
+        }
+        return prefix.isEmpty() ? null : prefix.toString();
+    }
+
+    /**
+     * Exclude paths that fully match this regex.
+     */
+    public void addRegex(String regex)
+    {
+        Objects.requireNonNull(regex, "regex");
+        this.regexes.add(regex);
+        String prefix = toLiteralPrefix(regex);
+        if (prefix != null)
+            this.prefixes.add(prefix);
+        this.combined = null;
+    }
+
+    /**
+     * Exclude paths with this predicate.
+     */
+    public void addPredicate(Predicate<String> predicate)
+    {
+        Objects.requireNonNull(predicate, "predicate");
+        this.predicates.add(predicate);
+    }
+
+    /**
+     * A key that represents the configured exclusions, suitable for persistent caching of
+     * results, or null if the exclusions cannot be represented (eg: when predicates are used).
+     */
+    public String getKey()
+    {
+        if (!predicates.isEmpty())
+            return null;
+        return String.join("\n", regexes);
+    }
+
+    public boolean isEmpty()
+    {
+        return regexes.isEmpty() && predicates.isEmpty();
+    }
+
+    /**
+     * Test a path for exclusion.
+     *
+     * @param path the path of the file
+     * @return true if the path is excluded
+     */
+    public boolean isExcluded(String path)
+    {
+        if (prefixes.isPrefixOf(path))
+            return true;
+        Pattern pattern = getCombinedPattern();
+        if ((pattern != null) && pattern.matcher(path).matches())
+            return true;
+        for (Predicate<String> predicate : predicates)
+        {
+            if (predicate.test(path))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Test a top-level entry of a commit for exclusion.
+     *
+     * @param entry the entry name, with a trailing {@code /} for trees
+     * @return true if the entry is excluded (for trees, if every path in the tree is excluded)
+     */
+    public boolean isExcludedEntry(String entry)
+    {
+        if (entry.endsWith("/"))
+            return prefixes.isPrefixOf(entry);
+        return isExcluded(entry);
+    }
+
+    /**
+     * Test if every path within a tree is excluded.
+     *
+     * @param treePath the path of the tree (without trailing {@code /})
+     * @return true if the whole tree is excluded
+     */
+    public boolean isExcludedTree(String treePath)
+    {
+        return prefixes.isPrefixOf(treePath + "/");
+    }
+
+    /**
+     * A TreeFilter that never descends into excluded trees, and does not include excluded files.
+     */
+    public TreeFilter toTreeFilter()
+    {
+        return new ExclusionTreeFilter(this);
+    }
+
+    private Pattern getCombinedPattern()
+    {
+        Pattern pattern = combined;
+        if (pattern == null)
+        {
+            List<String> remaining = regexes.stream()
+                .filter((regex) -> toLiteralPrefix(regex) == null)
+                .toList();
+            if (remaining.isEmpty())
+                return null;
+            pattern = Pattern.compile(remaining.stream()
+                .map((regex) -> "(?:" + regex + ")")
+                .collect(Collectors.joining("|")));
+            combined = pattern;
+        }
+        return pattern;
+    }
+
+    private static class ExclusionTreeFilter extends TreeFilter
+    {
+        private final PathExclusions exclusions;
+
+        ExclusionTreeFilter(PathExclusions exclusions)
+        {
+            this.exclusions = exclusions;
+        }
+
+        @Override
+        public TreeFilter clone()
+        {
+            return this; // stateless
+        }
+
+        @Override
+        public boolean include(TreeWalk walker)
+        {
+            String path = walker.getPathString();
+            if (walker.isSubtree())
+                return !exclusions.isExcludedTree(path);
+            return !exclusions.isExcluded(path);
+        }
+
+        @Override
+        public boolean shouldBeRecursive()
+        {
+            return false;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "PATH_EXCLUSIONS";
+        }
+    }
+
+    private static class PrefixTrie
+    {
+        private final Map<Character, PrefixTrie> children = new HashMap<>();
+        private boolean terminal;
+
+        void add(String prefix)
+        {
+            PrefixTrie node = this;
+            for (int i = 0; i < prefix.length(); i++)
+            {
+                node = node.children.computeIfAbsent(prefix.charAt(i), (c) -> new PrefixTrie());
+            }
+            node.terminal = true;
+        }
+
+        /**
+         * @return true if any prefix in this trie is a prefix of the provided string
+         */
+        boolean isPrefixOf(String str)
+        {
+            PrefixTrie node = this;
+            for (int i = 0; i < str.length(); i++)
+            {
+                node = node.children.get(str.charAt(i));
+                if (node == null)
+                    return false;
+                if (node.terminal)
+                    return true;
+            }
+            return false;
+        }
+    }
+}
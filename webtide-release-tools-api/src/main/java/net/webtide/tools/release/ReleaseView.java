@@ -0,0 +1,153 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The changes of a release, prepared once (filtered, sorted and grouped) for all the {@link WriteOutput} renderers.
+ * <p>
+ * The view is immutable and does not modify the changes it is prepared from, so renderers can share it
+ * and run concurrently.
+ * </p>
+ */
+public final class ReleaseView
+{
+    /**
+     * A change as rendered: its reference number and title, and its (non committer) contributors.
+     *
+     * @param change the change
+     * @param refNumber the number of the issue or pull request the change refers to
+     * @param title the title (eg: simplified for a dependency bump)
+     * @param contributors the nice names of the community authors of the change, sorted
+     */
+    public record Entry(Change change, int refNumber, String title, List<String> contributors)
+    {
+    }
+
+    private final Config config;
+    private final String projectVersion;
+    private final String date;
+    private final List<Entry> changes;
+    private final List<Entry> dependencies;
+    private final List<Author> community;
+
+    private ReleaseView(ChangeMetadata changeMetadata, List<Entry> changes, List<Entry> dependencies, List<Author> community)
+    {
+        this.config = changeMetadata.config();
+        this.projectVersion = changeMetadata.projectVersion();
+        this.date = changeMetadata.date();
+        this.changes = Collections.unmodifiableList(changes);
+        this.dependencies = Collections.unmodifiableList(dependencies);
+        this.community = Collections.unmodifiableList(community);
+    }
+
+    /**
+     * Prepare the view of a release.
+     *
+     * @param changeMetadata the release
+     * @return the view
+     */
+    public static ReleaseView of(ChangeMetadata changeMetadata)
+    {
+        List<Change> relevantChanges = changeMetadata.changelog().stream()
+            .filter((change) -> !change.isSkip())
+            .sorted((c1, c2) -> Integer.compare(c2.getRefNumber(), c1.getRefNumber()))
+            .toList();
+
+        List<Entry> changes = new ArrayList<>();
+        List<Entry> bumps = new ArrayList<>();
+        Map<String, Author> community = new LinkedHashMap<>();
+        for (Change change : relevantChanges)
+        {
+            Set<String> contributors = new TreeSet<>();
+            for (Author author : change.getAuthors())
+            {
+                if (author.committer())
+                    continue;
+                String niceName = author.toNiceName();
+                contributors.add(niceName);
+                community.putIfAbsent(niceName, author);
+            }
+
+            if (change.hasLabel("dependencies"))
+            {
+                // Write out a filtered dependabot "Bump <dep> from <oldver> to <newver>" detail
+                String title = Dependencies.simplifyBumpTitle(change.getRefTitle());
+                bumps.add(new Entry(change, change.getRefNumber(), title, List.copyOf(contributors)));
+            }
+            else
+            {
+                changes.add(new Entry(change, change.getRefNumber(), change.getRefTitle(), List.copyOf(contributors)));
+            }
+        }
+
+        bumps.sort((e1, e2) -> Dependencies.compareBumpTitles(e1.title(), e2.title()));
+        List<Entry> dependencies = new ArrayList<>();
+        Set<String> bumped = new TreeSet<>();
+        for (Entry bump : bumps)
+        {
+            String dependency = Dependencies.getBumpedDependency(bump.title());
+            if (dependency == null || bumped.add(dependency))
+                dependencies.add(bump);
+        }
+
+        return new ReleaseView(changeMetadata, changes, dependencies, new ArrayList<>(community.values()));
+    }
+
+    public Config getConfig()
+    {
+        return config;
+    }
+
+    public String getProjectVersion()
+    {
+        return projectVersion;
+    }
+
+    public String getDate()
+    {
+        return date;
+    }
+
+    /**
+     * @return the relevant changes, other than dependency changes, by descending reference number
+     */
+    public List<Entry> getChanges()
+    {
+        return changes;
+    }
+
+    /**
+     * @return the dependency changes, with one simplified ("Bump &lt;dep&gt; to &lt;version&gt;") entry per
+     * dependency, the latest version of each dependency, sorted by dependency
+     */
+    public List<Entry> getDependencies()
+    {
+        return dependencies;
+    }
+
+    /**
+     * @return the community (non committer) authors of the relevant changes, including the dependency changes
+     */
+    public List<Author> getCommunity()
+    {
+        return community;
+    }
+}
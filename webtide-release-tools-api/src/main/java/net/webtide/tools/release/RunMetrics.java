@@ -0,0 +1,270 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.GsonBuilder;
+import net.webtide.tools.github.GitHubMetrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The metrics of a changelog run: the GitHub API usage per endpoint, the cache efficiency
+ * per tier, the rate limit used, the time spent per phase, and the discovery throughput.
+ * <p>
+ * The GitHub requests are also attributed to the commit or issue that caused them: the top cost
+ * centers, and the rate limit used per discovery depth and per skip reason, show which exclusions
+ * (labels, paths, branches) are worth tuning.
+ * </p>
+ * <p>
+ * Written as {@code metrics.json} in the output directory, to be compared across releases.
+ * </p>
+ */
+public class RunMetrics
+{
+    public static final String FILENAME = "metrics.json";
+    /**
+     * The tier of the GitHub resources already resolved by the {@link ChangelogSession}.
+     */
+    public static final String SESSION_TIER = "session";
+    /**
+     * The number of cost centers reported.
+     */
+    public static final int TOP_COST_CENTERS = 25;
+
+    private String repository;
+    private String range;
+    private long elapsedMs;
+    private long discoveryMs;
+    private int commits;
+    private int issues;
+    private int changes;
+    private double commitsPerSecond;
+    private double issuesPerSecond;
+    private Map<String, Long> phasesMs = new LinkedHashMap<>();
+    private Map<String, Tier> cacheTiers = new LinkedHashMap<>();
+    private Map<String, Integer> rateUsed = new TreeMap<>();
+    private int requests;
+    private long bytes;
+    private double latencyP50Ms;
+    private double latencyP99Ms;
+    private Map<String, Endpoint> endpoints = new TreeMap<>();
+    private int attributedRateUsed;
+    private Map<Integer, Integer> rateUsedByDepth = new TreeMap<>();
+    private Map<Skip, Integer> rateUsedBySkip = new TreeMap<>();
+    private List<CostCenter> costCenters = new ArrayList<>();
+
+    /**
+     * The hits and misses of a cache tier.
+     */
+    public record Tier(long hits, long misses)
+    {
+        public double hitRatio()
+        {
+            return hits + misses == 0 ? 0 : (double)hits / (hits + misses);
+        }
+    }
+
+    /**
+     * The usage of a GitHub API endpoint.
+     */
+    public record Endpoint(int requests, int cacheHits, int cacheMisses, int errors, long bytes, double latencyP50Ms, double latencyP99Ms)
+    {
+    }
+
+    /**
+     * The GitHub requests caused by a commit or issue.
+     *
+     * @param source the commit sha, or {@code #<num>} for an issue
+     * @param title the title of the commit or issue
+     * @param depth the discovery depth (0 for the commits in range)
+     * @param requests the requests sent over HTTP
+     * @param cacheHits the requests answered by the GitHub cache
+     * @param rateUsed the requests counted against a rate limit
+     * @param skips the reasons the commit or issue is skipped in the changelog
+     */
+    public record CostCenter(String source, String title, int depth, int requests, int cacheHits, int rateUsed, Set<Skip> skips)
+    {
+    }
+
+    /**
+     * @param repository the GitHub repository (owner/name)
+     * @param range the version range
+     * @param elapsedNanos the time of the whole run
+     * @param discoveryNanos the time of the discovery of the changes
+     */
+    RunMetrics(String repository, String range, long elapsedNanos, long discoveryNanos)
+    {
+        this.repository = repository;
+        this.range = range;
+        this.elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        this.discoveryMs = TimeUnit.NANOSECONDS.toMillis(discoveryNanos);
+    }
+
+    /**
+     * @param commits the discovered commits
+     * @param issues the discovered issues and pull requests
+     * @param changes the resolved changes
+     */
+    void setCounts(int commits, int issues, int changes)
+    {
+        this.commits = commits;
+        this.issues = issues;
+        this.changes = changes;
+        double seconds = discoveryMs / 1000.0;
+        this.commitsPerSecond = seconds > 0 ? commits / seconds : 0;
+        this.issuesPerSecond = seconds > 0 ? issues / seconds : 0;
+    }
+
+    void addPhase(String phase, long nanos)
+    {
+        phasesMs.merge(phase, TimeUnit.NANOSECONDS.toMillis(nanos), Long::sum);
+    }
+
+    void addTier(String tier, long hits, long misses)
+    {
+        cacheTiers.put(tier, new Tier(hits, misses));
+    }
+
+    /**
+     * @param github the GitHub API usage of the run
+     */
+    void setGitHub(GitHubMetrics.Snapshot github)
+    {
+        requests = github.getRequests();
+        bytes = github.getBytes();
+        rateUsed.putAll(github.rateUsed());
+        long[] latencies = github.getSortedLatencies();
+        latencyP50Ms = toMillis(GitHubMetrics.percentile(latencies, 50));
+        latencyP99Ms = toMillis(GitHubMetrics.percentile(latencies, 99));
+        github.endpoints().forEach((name, endpoint) ->
+        {
+            long[] sorted = endpoint.latencies().clone();
+            Arrays.sort(sorted);
+            endpoints.put(name, new Endpoint(endpoint.requests(), endpoint.cacheHits(), endpoint.cacheMisses(), endpoint.errors(),
+                endpoint.bytes(), toMillis(GitHubMetrics.percentile(sorted, 50)), toMillis(GitHubMetrics.percentile(sorted, 99))));
+        });
+    }
+
+    /**
+     * @param all the GitHub requests of every commit and issue
+     */
+    void setCostCenters(List<CostCenter> all)
+    {
+        for (CostCenter costCenter : all)
+        {
+            attributedRateUsed += costCenter.rateUsed();
+            rateUsedByDepth.merge(costCenter.depth(), costCenter.rateUsed(), Integer::sum);
+            // what the skip rule of each reason would save, if applied before any request
+            costCenter.skips().forEach((skip) -> rateUsedBySkip.merge(skip, costCenter.rateUsed(), Integer::sum));
+        }
+        costCenters = all.stream()
+            .sorted(Comparator.comparingInt(CostCenter::rateUsed)
+                .thenComparingInt(CostCenter::requests)
+                .thenComparingInt(CostCenter::cacheHits)
+                .reversed()
+                .thenComparing(CostCenter::source))
+            .limit(TOP_COST_CENTERS)
+            .toList();
+    }
+
+    private static double toMillis(long nanos)
+    {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    public long getElapsedMs()
+    {
+        return elapsedMs;
+    }
+
+    public Map<String, Long> getPhasesMs()
+    {
+        return phasesMs;
+    }
+
+    public Map<String, Tier> getCacheTiers()
+    {
+        return cacheTiers;
+    }
+
+    public Map<String, Integer> getRateUsed()
+    {
+        return rateUsed;
+    }
+
+    public int getRequests()
+    {
+        return requests;
+    }
+
+    public Map<String, Endpoint> getEndpoints()
+    {
+        return endpoints;
+    }
+
+    public Map<Integer, Integer> getRateUsedByDepth()
+    {
+        return rateUsedByDepth;
+    }
+
+    public Map<Skip, Integer> getRateUsedBySkip()
+    {
+        return rateUsedBySkip;
+    }
+
+    public List<CostCenter> getCostCenters()
+    {
+        return costCenters;
+    }
+
+    public void write(Path file) throws IOException
+    {
+        try (Writer writer = Files.newBufferedWriter(file, UTF_8))
+        {
+            new GsonBuilder().setPrettyPrinting().create().toJson(this, writer);
+        }
+    }
+
+    public void printSummary(PrintStream out)
+    {
+        out.printf("Metrics for %s (%s): %,d ms total, %,d ms discovery%n", repository, range, elapsedMs, discoveryMs);
+        out.printf("  Throughput: %,.1f commits/s, %,.1f issues/s%n", commitsPerSecond, issuesPerSecond);
+        phasesMs.forEach((phase, ms) -> out.printf("  Phase %-16s %,8d ms%n", phase, ms));
+        cacheTiers.forEach((tier, counts) ->
+            out.printf("  Cache %-16s %,d hits, %,d misses (%.1f%%)%n", tier, counts.hits(), counts.misses(), counts.hitRatio() * 100));
+        out.printf("  GitHub: %,d requests, %,d bytes, latency p50 %.2f ms, p99 %.2f ms, rate used %s%n",
+            requests, bytes, latencyP50Ms, latencyP99Ms, rateUsed);
+        if (costCenters.isEmpty())
+            return;
+        out.printf("  Attributed rate used: %,d, by depth %s, by skip reason %s%n", attributedRateUsed, rateUsedByDepth, rateUsedBySkip);
+        costCenters.stream().limit(10).forEach((costCenter) ->
+            out.printf("  Cost %-12.12s depth %d: %,d rate used, %,d cache hits %s %s%n", costCenter.source(), costCenter.depth(),
+                costCenter.rateUsed(), costCenter.cacheHits(), costCenter.skips().isEmpty() ? "" : costCenter.skips(),
+                costCenter.title() == null ? "" : costCenter.title()));
+    }
+}
@@ -0,0 +1,153 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Update a VERSION.txt file (the sections of each release, latest first) with the section of a release,
+ * as written by {@link WriteVersionTagText}.
+ * <p>
+ * The existing content is streamed after the new section, without being loaded in memory, and an
+ * existing section for the same version at the top of the file is replaced, so that updating again
+ * for the same version does not stack another section.
+ * </p>
+ */
+public class VersionText
+{
+    private static final Logger LOG = LoggerFactory.getLogger(VersionText.class);
+    // the maximum size of the first section scanned, for a section of the same version
+    private static final int MAX_SECTION_SIZE = 1024 * 1024;
+
+    /**
+     * Update the VERSION.txt file.
+     *
+     * @param versionText the VERSION.txt file
+     * @param section the section of the release (eg: version-tag.txt), its first line being
+     * {@code <version> - <date>}
+     * @param tmp the file the updated VERSION.txt is written to, before replacing the VERSION.txt file
+     */
+    public static void update(Path versionText, Path section, Path tmp) throws IOException
+    {
+        String header = readFirstLine(section);
+        if (header == null || header.isBlank())
+        {
+            LOG.info("No changes to add to {}", versionText);
+            return;
+        }
+
+        long offset = Files.exists(versionText) ? findSectionEnd(versionText, getVersion(header)) : 0;
+        if (offset > 0)
+            LOG.info("Replacing the section of {} in {}", getVersion(header), versionText);
+
+        Files.deleteIfExists(tmp);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+        {
+            transferAll(section, 0, out);
+            out.write(ByteBuffer.wrap("\n".getBytes(UTF_8)));
+            if (Files.exists(versionText))
+                transferAll(versionText, offset, out);
+        }
+        Files.move(tmp, versionText, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @param header the first line of a section (eg: {@code 12.0.1 - 01 January 2024})
+     * @return the version of the section (eg: {@code 12.0.1})
+     */
+    static String getVersion(String header)
+    {
+        int idx = header.indexOf(" - ");
+        return (idx < 0 ? header : header.substring(0, idx)).trim();
+    }
+
+    /**
+     * @return the offset of the content following the first section (and its trailing blank line) if it is
+     * the section of the version, or 0
+     */
+    static long findSectionEnd(Path versionText, String version) throws IOException
+    {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(versionText)))
+        {
+            byte[] firstLine = readLine(in);
+            if (firstLine == null || !getVersion(new String(firstLine, UTF_8)).equals(version))
+                return 0;
+
+            long offset = firstLine.length + 1;
+            while (offset < MAX_SECTION_SIZE)
+            {
+                byte[] line = readLine(in);
+                if (line == null)
+                    return offset; // the whole file is the section
+                offset += line.length + 1;
+                if (new String(line, UTF_8).isBlank())
+                    return offset;
+            }
+            // not a section we know the end of
+            return 0;
+        }
+    }
+
+    private static String readFirstLine(Path file) throws IOException
+    {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file)))
+        {
+            byte[] line = readLine(in);
+            return line == null ? null : new String(line, UTF_8);
+        }
+    }
+
+    /**
+     * @return the bytes of the line (without the {@code \n}, at most {@link #MAX_SECTION_SIZE}), or null at the end of the stream
+     */
+    private static byte[] readLine(InputStream in) throws IOException
+    {
+        int b = in.read();
+        if (b < 0)
+            return null;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (b >= 0 && b != '\n' && line.size() < MAX_SECTION_SIZE)
+        {
+            line.write(b);
+            b = in.read();
+        }
+        return line.toByteArray();
+    }
+
+    private static void transferAll(Path file, long offset, FileChannel out) throws IOException
+    {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long position = offset;
+            long size = in.size();
+            while (position < size)
+            {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import net.webtide.tools.github.gson.ISO8601TypeAdapter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Write the diagnostic artifacts of a run (the authors, issues, commits and changes found).
+ * <p>
+ * Each artifact is streamed, one element at a time, from the model it is given, and the
+ * artifacts are written concurrently.
+ * </p>
+ */
+public class WriteDiagnostics
+{
+    public enum Artifact
+    {
+        AUTHORS("authors-scan"),
+        ISSUES("change-issues"),
+        RELEVANT_ISSUES("change-issues-relevant"),
+        COMMITS("change-commits"),
+        CHANGE_GROUPS("change-groups");
+
+        private final String baseName;
+
+        Artifact(String baseName)
+        {
+            this.baseName = baseName;
+        }
+
+        public String getBaseName()
+        {
+            return baseName;
+        }
+    }
+
+    public enum Format
+    {
+        /**
+         * A pretty printed JSON array.
+         */
+        JSON(".json"),
+        /**
+         * One compact JSON element per line.
+         */
+        JSON_LINES(".jsonl");
+
+        private final String extension;
+
+        Format(String extension)
+        {
+            this.extension = extension;
+        }
+
+        public String getExtension()
+        {
+            return extension;
+        }
+    }
+
+    private final Path outputDir;
+    private final Format format;
+    private final boolean gzip;
+    private final Gson gson;
+
+    public WriteDiagnostics(Path outputDir, Format format, boolean gzip)
+    {
+        this.outputDir = outputDir;
+        this.format = format;
+        this.gzip = gzip;
+        GsonBuilder builder = new GsonBuilder()
+            .registerTypeAdapter(ZonedDateTime.class, new ISO8601TypeAdapter())
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES);
+        if (format == Format.JSON)
+            builder.setPrettyPrinting();
+        this.gson = builder.create();
+    }
+
+    /**
+     * @param artifact the artifact
+     * @return the file the artifact is written to
+     */
+    public Path getPath(Artifact artifact)
+    {
+        return outputDir.resolve(artifact.getBaseName() + format.getExtension() + (gzip ? ".gz" : ""));
+    }
+
+    /**
+     * Write the artifacts concurrently.
+     *
+     * @param artifacts the elements of each artifact to write (iterated once, from the writing thread)
+     */
+    public void write(Map<Artifact, ? extends Iterable<?>> artifacts) throws IOException
+    {
+        if (artifacts.isEmpty())
+            return;
+
+        int threads = Math.min(artifacts.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            artifacts.forEach((artifact, elements) -> futures.add(executor.submit(() ->
+            {
+                write(artifact, elements);
+                return null;
+            })));
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new ChangelogException("Interrupted writing diagnostics", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException ioe)
+                throw ioe;
+            if (e.getCause() instanceof UncheckedIOException uioe)
+                throw uioe.getCause();
+            throw new ChangelogException("Unable to write diagnostics", e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Write a single artifact.
+     *
+     * @param artifact the artifact
+     * @param elements the elements of the artifact
+     */
+    public void write(Artifact artifact, Iterable<?> elements) throws IOException
+    {
+        try (Writer writer = newWriter(getPath(artifact)))
+        {
+            if (format == Format.JSON_LINES)
+            {
+                for (Object element : elements)
+                {
+                    gson.toJson(element, element.getClass(), writer);
+                    writer.write('\n');
+                }
+            }
+            else
+            {
+                JsonWriter jsonWriter = gson.newJsonWriter(writer);
+                jsonWriter.beginArray();
+                for (Object element : elements)
+                {
+                    gson.toJson(element, element.getClass(), jsonWriter);
+                }
+                jsonWriter.endArray();
+                jsonWriter.flush();
+            }
+        }
+    }
+
+    private Writer newWriter(Path file) throws IOException
+    {
+        if (!gzip)
+            return Files.newBufferedWriter(file, UTF_8);
+        OutputStream out = new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024);
+        return new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+    }
+}
@@ -17,13 +17,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -32,72 +26,57 @@ public class WriteMarkdown implements WriteOutput
     public static String FILENAME = "changelog.md";
 
     @Override
-    public void write(ChangeMetadata changeMetadata) throws IOException
+    public String getName()
     {
-        Path markdown = changeMetadata.config().getOutputPath().resolve(FILENAME);
+        return Type.MARKDOWN.name();
+    }
+
+    @Override
+    public List<Path> getOutputFiles(Config config)
+    {
+        return List.of(config.getOutputPath().resolve(FILENAME));
+    }
+
+    @Override
+    public void write(ReleaseView release) throws IOException
+    {
+        Path markdown = release.getConfig().getOutputPath().resolve(FILENAME);
         try (BufferedWriter writer = Files.newBufferedWriter(markdown, UTF_8);
              PrintWriter out = new PrintWriter(writer))
         {
-            List<Change> relevantChanges = changeMetadata.changelog().stream()
-                .filter(Predicate.not(Change::isSkip))
-                .sorted(Comparator.comparingInt(Change::getRefNumber).reversed())
-                .toList();
-
             // Collect list of community member participation
-            Set<String> community = new HashSet<>();
-            for (Change change : relevantChanges)
-            {
-                for (Author author : change.getAuthors())
-                {
-                    if (!author.committer())
-                    {
-                        community.add(String.format("%s (%s)", author.toNiceName(), author.name()));
-                    }
-                }
-            }
-
+            List<Author> community = release.getCommunity();
             if (!community.isEmpty())
             {
                 out.println("# Special Thanks to the following Eclipse Jetty community members");
                 out.println();
-                community.forEach((author) -> out.printf("* %s%n", author));
+                community.forEach((author) -> out.printf("* %s (%s)%n", author.toNiceName(), author.name()));
                 out.println();
             }
 
             // resolve titles, ids, etc ....
-            writeSection(out, "# Changelog", relevantChanges.stream().filter((c) ->
-                !c.hasLabel("dependencies")));
+            writeSection(out, "# Changelog", release.getChanges());
 
-            if (changeMetadata.config().isIncludeDependencyChanges())
-            {
-                // Write out a filtered dependabot "Bump <dep> from <oldver> to <newver>" detail
-                writeSection(out, "# Dependencies", relevantChanges.stream()
-                    .filter((c) -> c.hasLabel("dependencies"))
-                    .map(new Dependencies.BumpFromToSimplifier())
-                    .sorted(new Dependencies.BumpToComparator())
-                    .filter(new Dependencies.BumpDistinct())
-                );
-            }
+            if (release.getConfig().isIncludeDependencyChanges())
+                writeSection(out, "# Dependencies", release.getDependencies());
         }
     }
 
-    private void writeSection(PrintWriter out, String sectionName, Stream<Change> changesStream)
+    private void writeSection(PrintWriter out, String sectionName, List<ReleaseView.Entry> changes)
     {
-        List<Change> changes = changesStream.toList();
         if (!changes.isEmpty())
         {
             out.println();
             out.println(sectionName);
             out.println();
 
-            for (Change change : changes)
+            for (ReleaseView.Entry change : changes)
             {
-                out.printf("+ #%d - ", change.getRefNumber());
-                out.print(change.getRefTitle());
-                Set<String> authors = change.getAuthors().stream().filter(Predicate.not(Author::committer)).map(Author::toNiceName).collect(Collectors.toSet());
-                if (!authors.isEmpty())
+                out.printf("+ #%d - ", change.refNumber());
+                out.print(change.title());
+                if (!change.contributors().isEmpty())
                 {
-                    out.printf(" (%s)", String.join(", ", authors));
+                    out.printf(" (%s)", String.join(", ", change.contributors()));
                 }
                 out.print("\n");
             }
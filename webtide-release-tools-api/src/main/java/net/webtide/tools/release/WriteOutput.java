@@ -13,9 +13,25 @@
 package net.webtide.tools.release;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
 
+/**
+ * A renderer of a release (eg: changelog.md).
+ * <p>
+ * Renderers are discovered through the {@link ServiceLoader} (listed in
+ * {@code META-INF/services/net.webtide.tools.release.WriteOutput}) and selected by name, they
+ * must be stateless as the renderers of a release are run concurrently, all given the same {@link ReleaseView}.
+ * </p>
+ */
 public interface WriteOutput
 {
+    /**
+     * The built-in output types.
+     */
     enum Type
     {
         MARKDOWN(WriteMarkdown.class),
@@ -34,5 +50,39 @@ public interface WriteOutput
         }
     }
 
-    void write(ChangeMetadata change) throws IOException;
+    /**
+     * Discover the available renderers.
+     *
+     * @return the renderers, by name
+     */
+    static Map<String, WriteOutput> load()
+    {
+        Map<String, WriteOutput> outputs = new HashMap<>();
+        for (WriteOutput output : ServiceLoader.load(WriteOutput.class, WriteOutput.class.getClassLoader()))
+        {
+            outputs.putIfAbsent(output.getName(), output);
+        }
+        return outputs;
+    }
+
+    /**
+     * @return the name selecting this renderer, the {@link Type} name for the built-in renderers
+     */
+    String getName();
+
+    void write(ReleaseView release) throws IOException;
+
+    /**
+     * @param config the configuration
+     * @return the files written by this renderer, which must exist for a generation to be skipped as up to date
+     */
+    default List<Path> getOutputFiles(Config config)
+    {
+        return List.of();
+    }
+
+    default void write(ChangeMetadata change) throws IOException
+    {
+        write(ReleaseView.of(change));
+    }
 }
@@ -17,14 +17,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -33,40 +26,43 @@ public class WriteVersionTagText implements WriteOutput
     public static final String FILENAME = "version-tag.txt";
 
     @Override
-    public void write(ChangeMetadata changeMetadata) throws IOException
+    public String getName()
     {
-        Path versionTxt = changeMetadata.config().getOutputPath().resolve(FILENAME);
+        return Type.VERSION_TXT.name();
+    }
+
+    @Override
+    public List<Path> getOutputFiles(Config config)
+    {
+        return List.of(config.getOutputPath().resolve(FILENAME));
+    }
+
+    @Override
+    public void write(ReleaseView release) throws IOException
+    {
+        Path versionTxt = release.getConfig().getOutputPath().resolve(FILENAME);
         try (BufferedWriter writer = Files.newBufferedWriter(versionTxt, UTF_8);
              PrintWriter out = new PrintWriter(writer))
         {
-            List<Change> relevantChanges = changeMetadata.changelog().stream()
-                .filter(Predicate.not(Change::isSkip))
-                .sorted(Comparator.comparingInt(Change::getRefNumber).reversed())
-                .toList();
-
-            writeSection(out, changeMetadata.projectVersion() + " - " + changeMetadata.date(), relevantChanges.stream().filter((c) ->
-                !c.hasLabel("dependencies")));
+            writeSection(out, release.getProjectVersion() + " - " + release.getDate(), release.getChanges());
         }
     }
 
-    private void writeSection(PrintWriter out, String sectionName, Stream<Change> changesStream)
+    private void writeSection(PrintWriter out, String sectionName, List<ReleaseView.Entry> changes)
     {
-        List<Change> changes = changesStream.toList();
         if (!changes.isEmpty())
         {
             out.println(sectionName);
 
-            List<Change> sortedChanges = new ArrayList<>(changes);
-            Collections.reverse(sortedChanges);
-
-            for (Change change : sortedChanges)
+            // by ascending reference number
+            for (int i = changes.size() - 1; i >= 0; i--)
             {
-                out.printf(" + %d ", change.getRefNumber());
-                out.print(change.getRefTitle());
-                Set<String> authors = change.getAuthors().stream().filter(Predicate.not(Author::committer)).map(Author::toNiceName).collect(Collectors.toSet());
-                if (!authors.isEmpty())
+                ReleaseView.Entry change = changes.get(i);
+                out.printf(" + %d ", change.refNumber());
+                out.print(change.title());
+                if (!change.contributors().isEmpty())
                 {
-                    out.printf(" (%s)", String.join(", ", authors));
+                    out.printf(" (%s)", String.join(", ", change.contributors()));
                 }
                 out.print("\n");
             }
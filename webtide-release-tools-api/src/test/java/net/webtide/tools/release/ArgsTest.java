@@ -16,6 +16,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -36,6 +37,27 @@ public class ArgsTest
         assertTrue(args.containsKey("show-branches"), "show-branches exists");
     }
 
+    @Test
+    public void testBoolean()
+    {
+        Args args = new Args("--prefetch", "--include_commit_branches=false");
+        assertTrue(args.getBoolean("prefetch", false), "flag without value");
+        assertFalse(args.getBoolean("include_commit_branches", true), "explicit value");
+        assertTrue(args.getBoolean("missing", true), "default");
+    }
+
+    @Test
+    public void testSize()
+    {
+        Args args = new Args("--plain=4096", "--kilo=8k", "--mega=256m", "--giga=2G", "--bad=12x");
+        assertThat("plain", args.getSize("plain", null), is(4096L));
+        assertThat("kilo", args.getSize("kilo", null), is(8L * 1024));
+        assertThat("mega", args.getSize("mega", null), is(256L * 1024 * 1024));
+        assertThat("giga", args.getSize("giga", null), is(2L * 1024 * 1024 * 1024));
+        assertThat("default", args.getSize("missing", 10L), is(10L));
+        assertThrows(Args.ArgException.class, () -> args.getSize("bad", null));
+    }
+
     @Test
     public void testBadArg()
     {
@@ -13,13 +13,18 @@
 package net.webtide.tools.release;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class AuthorsTest
@@ -46,4 +51,51 @@ public class AuthorsTest
         Authors authors = Authors.load();
         assertFalse(authors.isCommitter(email), "Email should NOT be a committer: " + email);
     }
+
+    @Test
+    public void testFindByLogin() throws IOException
+    {
+        Authors authors = Authors.load();
+        Author joakim = authors.findByLogin("JoakimE");
+        assertSame(joakim, authors.find("Joakim@Erdfelt.com"));
+
+        // learned email of a known author
+        assertNull(authors.find("joakim@example.com"));
+        authors.addEmail(joakim, "joakim@example.com");
+        assertSame(joakim, authors.find("joakim@example.com"));
+        assertEquals(11, authors.size());
+
+        Author author = new Author("Someone").email("someone@example.com").github("someone");
+        authors.add(author);
+        assertSame(author, authors.findByLogin("someone"));
+        assertSame(author, authors.find("someone@example.com"));
+        assertNull(authors.findByLogin(null));
+        assertNull(authors.find(null));
+    }
+
+    @Test
+    public void testAuthorDirectory() throws IOException
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testAuthorDirectory");
+        FS.ensureEmpty(testDir);
+        Path file = testDir.resolve("author-directory.json");
+
+        assertEquals("joakime", AuthorDirectory.parseNoReplyLogin("12345+joakime@users.noreply.github.com"));
+        assertEquals("gregw", AuthorDirectory.parseNoReplyLogin("gregw@users.noreply.github.com"));
+        assertNull(AuthorDirectory.parseNoReplyLogin("gregw@webtide.com"));
+
+        AuthorDirectory directory = AuthorDirectory.load(file);
+        assertEquals(0, directory.size());
+        directory.put("Someone@example.com", "someone");
+        // looked up, but not a GitHub user
+        directory.put("nobody@example.com", null);
+        directory.save();
+
+        AuthorDirectory loaded = AuthorDirectory.load(file);
+        assertEquals(2, loaded.size());
+        assertEquals("someone", loaded.getLogin("someone@example.com"));
+        assertTrue(loaded.contains("nobody@example.com"));
+        assertNull(loaded.getLogin("nobody@example.com"));
+        assertFalse(loaded.contains("unknown@example.com"));
+    }
 }
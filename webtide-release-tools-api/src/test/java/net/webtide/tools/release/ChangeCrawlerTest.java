@@ -0,0 +1,100 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ChangeCrawlerTest
+{
+    @Test
+    public void testCrawlOrder() throws Exception
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testCrawlOrder");
+        FS.ensureEmpty(testDir);
+
+        try (Git git = Git.init().setDirectory(testDir.resolve("repo").toFile()).call())
+        {
+            List<String> serial = crawl(git, 1);
+            // every node of the graph is applied once, the same way regardless of the workers
+            assertEquals(63 + 63, serial.size());
+            assertEquals(serial, crawl(git, 8));
+        }
+    }
+
+    /**
+     * Crawl a graph where commit N references issue N, and issue N references commits 2N and 2N+1,
+     * from a source of the commits 1 to 20.
+     */
+    private List<String> crawl(Git git, int threads) throws Exception
+    {
+        List<String> applied = new ArrayList<>();
+        try (ChangeCrawler crawler = new ChangeCrawler(git.getRepository(), threads))
+        {
+            Iterator<String> source = IntStream.rangeClosed(1, 20).mapToObj(Integer::toString).iterator();
+            crawler.run(source, (sha) -> submitCommit(crawler, applied, Integer.parseInt(sha)));
+            assertEquals(63, crawler.getResolvedCommits());
+            assertEquals(63, crawler.getDiscoveredCommits());
+            assertEquals(63, crawler.getResolvedIssues());
+            assertEquals(0, crawler.getPending());
+        }
+        return applied;
+    }
+
+    private void submitCommit(ChangeCrawler crawler, List<String> applied, int num)
+    {
+        crawler.submitCommit(Integer.toString(num), () -> crawler.git((walk) ->
+        {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            return num;
+        }).thenCompose((n) -> crawler.github(() ->
+        {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            return () ->
+            {
+                applied.add("commit-" + n);
+                submitIssue(crawler, applied, n);
+                // already submitted, ignored
+                crawler.submitCommit(Integer.toString(n), null);
+            };
+        })));
+    }
+
+    private void submitIssue(ChangeCrawler crawler, List<String> applied, int num)
+    {
+        crawler.submitIssue(num, () -> crawler.github(() ->
+        {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            return () ->
+            {
+                applied.add("issue-" + num);
+                if (num < 32)
+                {
+                    submitCommit(crawler, applied, num * 2);
+                    submitCommit(crawler, applied, num * 2 + 1);
+                }
+            };
+        }));
+    }
+}
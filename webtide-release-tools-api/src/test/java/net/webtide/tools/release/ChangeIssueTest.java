@@ -18,6 +18,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -25,16 +27,22 @@ import java.util.stream.Stream;
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import net.webtide.tools.github.GitHubApi;
 import net.webtide.tools.github.gson.ISO8601TypeAdapter;
 import net.webtide.tools.github.gson.PathTypeAdapter;
 import org.eclipse.jetty.toolchain.test.MavenPaths;
+import org.eclipse.jgit.lib.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
 public class ChangeIssueTest
@@ -65,11 +73,11 @@ public class ChangeIssueTest
         Map<Integer, ChangeIssue> issues = loadIssues("changes-12_0_1/change-issues.json");
         ChangeIssue issue10330 = issues.get(10330);
         assertThat("issue should have base-ref", issue10330.getBaseRef(), is("jetty-12.0.x"));
-        Map<String, ChangeCommit> commits = loadCommits("changes-12_0_1/change-commits.json");
+        Map<ObjectId, ChangeCommit> commits = loadCommits("changes-12_0_1/change-commits.json");
         int foundCommits = 0;
-        for (String sha : issue10330.getCommits())
+        for (ObjectId commitId : issue10330.getCommits())
         {
-            ChangeCommit commit = commits.get(sha);
+            ChangeCommit commit = commits.get(commitId);
             if (commit != null)
                 foundCommits++;
         }
@@ -95,14 +103,54 @@ public class ChangeIssueTest
         }
     }
 
-    private Map<String, ChangeCommit> loadCommits(String path) throws IOException
+    @Test
+    public void testJsonUnchanged() throws IOException
+    {
+        assertJsonUnchanged("changes-12_0_1/change-issues.json", ChangeIssue[].class);
+        assertJsonUnchanged("changes-12_0_1/change-commits.json", ChangeCommit[].class);
+    }
+
+    private void assertJsonUnchanged(String path, Class<?> type) throws IOException
+    {
+        String json = Files.readString(MavenPaths.findTestResourceFile(path), StandardCharsets.UTF_8);
+        JsonElement expected = JsonParser.parseString(json);
+        JsonElement actual = gson.toJsonTree(gson.fromJson(json, type));
+        // the resolved state was added after these changes were recorded
+        actual.getAsJsonArray().forEach((change) -> change.getAsJsonObject().remove("resolved"));
+        assertEquals(normalize(expected), normalize(actual));
+    }
+
+    /**
+     * Sort the arrays of values (eg: the sets of commits and issue numbers), which have no significant order.
+     */
+    private JsonElement normalize(JsonElement element)
+    {
+        if (element.isJsonObject())
+        {
+            JsonObject normalized = new JsonObject();
+            element.getAsJsonObject().entrySet().forEach((entry) -> normalized.add(entry.getKey(), normalize(entry.getValue())));
+            return normalized;
+        }
+        if (element.isJsonArray())
+        {
+            List<JsonElement> elements = element.getAsJsonArray().asList().stream().map(this::normalize).toList();
+            if (elements.stream().allMatch(JsonElement::isJsonPrimitive))
+                elements = elements.stream().sorted(Comparator.comparing(JsonElement::getAsString)).toList();
+            JsonArray normalized = new JsonArray();
+            elements.forEach(normalized::add);
+            return normalized;
+        }
+        return element;
+    }
+
+    private Map<ObjectId, ChangeCommit> loadCommits(String path) throws IOException
     {
         Path commitsFile = MavenPaths.findTestResourceFile(path);
 
         try (BufferedReader reader = Files.newBufferedReader(commitsFile, StandardCharsets.UTF_8))
         {
             return Stream.of(gson.fromJson(reader, ChangeCommit[].class))
-                .collect(Collectors.toMap(ChangeCommit::getSha, value -> value));
+                .collect(Collectors.toMap(ChangeCommit::getId, value -> value));
         }
     }
 }
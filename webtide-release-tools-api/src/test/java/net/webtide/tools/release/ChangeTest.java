@@ -16,6 +16,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -47,7 +48,40 @@ public class ChangeTest
         MatcherAssert.assertThat("Sorted Dependency Bumps", actual, contains(expected.toArray()));
     }
 
-    private List<Change> loadSimpleChangeList(Path testResource) throws IOException
+    @Test
+    public void testReleaseViewDependencies() throws IOException
+    {
+        Changelog changelog = new Changelog();
+        changelog.addAll(loadSimpleChangeList(MavenTestingUtils.getTestResourcePathFile("dep-changes-unsorted.txt"), "dependencies"));
+        Change feature = new Change(1);
+        ChangeIssue issue = new ChangeIssue(9999);
+        issue.setTitle("Some feature");
+        feature.addIssue(issue);
+        feature.normalize(IssueType.ISSUE);
+        changelog.add(feature);
+        List<String> titles = changelog.stream().map(Change::getRefTitle).toList();
+
+        ReleaseView release = ReleaseView.of(new ChangeMetadata(new Config(), "12.0.1", "01 January 2024", changelog));
+
+        List<String> actual = release.getDependencies().stream()
+            .map((entry) -> String.format("* #%d - %s", entry.refNumber(), entry.title()))
+            .collect(Collectors.toList());
+        // same as the (title modifying) filters, applied like WriteMarkdown did, by descending reference number
+        List<String> expected = loadSimpleChangeList(MavenTestingUtils.getTestResourcePathFile("dep-changes-unsorted.txt")).stream()
+            .sorted(Comparator.comparingInt(Change::getRefNumber).reversed())
+            .map(new Dependencies.BumpFromToSimplifier())
+            .sorted(new Dependencies.BumpToComparator())
+            .filter(new Dependencies.BumpDistinct())
+            .map((change) -> String.format("* #%d - %s", change.getRefNumber(), change.getRefTitle()))
+            .collect(Collectors.toList());
+        MatcherAssert.assertThat("Sorted Dependency Bumps", actual, contains(expected.toArray()));
+
+        MatcherAssert.assertThat(release.getChanges().stream().map(ReleaseView.Entry::title).toList(), contains("Some feature"));
+        // the view does not modify the changes
+        MatcherAssert.assertThat(changelog.stream().map(Change::getRefTitle).toList(), contains(titles.toArray()));
+    }
+
+    private List<Change> loadSimpleChangeList(Path testResource, String... labels) throws IOException
     {
         Pattern pat = Pattern.compile("^. #([0-9]{4,}) - (.*)$");
 
@@ -62,6 +96,7 @@ public class ChangeTest
                     Change change = new Change(num);
                     ChangeIssue pr = new ChangeIssue(num);
                     pr.setTitle(text);
+                    pr.addLabels(List.of(labels));
                     change.addPullRequest(pr);
                     change.normalize(IssueType.ISSUE);
                     return change;
@@ -13,14 +13,32 @@
 package net.webtide.tools.release;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ChangelogCacheTest
 {
@@ -36,4 +54,213 @@ public class ChangelogCacheTest
         Set<String> branchesContaining = cache.getBranchesContaining(sha);
         assertNotNull(branchesContaining);
     }
+
+    @Test
+    public void testIsInAnyBranch() throws IOException, GitAPIException
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testIsInAnyBranch");
+        FS.ensureEmpty(testDir);
+
+        try (Git git = Git.init().setDirectory(testDir.resolve("repo").toFile()).setInitialBranch("main").call())
+        {
+            RevCommit initialCommit = GitUtil.commitFile(git, "src/main/Foo.java", "Initial source");
+            git.branchCreate().setName("feature").call();
+            RevCommit mainCommit = GitUtil.commitFile(git, "src/main/Foo.java", "Update on main");
+            git.checkout().setName("feature").call();
+            RevCommit featureCommit = GitUtil.commitFile(git, "src/main/Bar.java", "Update on feature");
+            git.checkout().setName("main").call();
+
+            try (ChangelogCache cache = new ChangelogCache(git, testDir.resolve("commits.json")))
+            {
+                for (int i = 0; i < 2; i++)
+                {
+                    // second pass uses the commit-graph generation numbers
+                    assertTrue(cache.isInAnyBranch(initialCommit.getName(), (branch) -> branch.endsWith("/feature")));
+                    assertTrue(cache.isInAnyBranch(featureCommit.getName(), (branch) -> branch.endsWith("/feature")));
+                    assertFalse(cache.isInAnyBranch(mainCommit.getName(), (branch) -> branch.endsWith("/feature")));
+                    assertFalse(cache.isInAnyBranch(featureCommit.getName(), (branch) -> branch.endsWith("/main")));
+                    assertFalse(cache.isInAnyBranch(initialCommit.getName(), (branch) -> false));
+                    cache.writeCommitGraph();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCommitGraphChangedPaths() throws IOException, GitAPIException
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testCommitGraphChangedPaths");
+        FS.ensureEmpty(testDir);
+
+        try (Git git = Git.init().setDirectory(testDir.resolve("repo").toFile()).call())
+        {
+            GitUtil.commitFile(git, "src/main/Foo.java", "Initial source");
+            RevCommit docCommit = GitUtil.commitFile(git, "documentation/guide.adoc", "Update documentation");
+            RevCommit srcCommit = GitUtil.commitFile(git, "src/main/Foo.java", "Update source");
+
+            try (ChangelogCache cache = new ChangelogCache(git, testDir.resolve("commits.json")))
+            {
+                assertFalse(cache.hasCommitGraph());
+                // Without a commit-graph nothing can be proven
+                assertFalse(cache.touchesOnlyExcluded(docCommit.getName(), (entry) -> entry.equals("documentation/")));
+
+                cache.writeCommitGraph();
+                assertTrue(cache.hasCommitGraph());
+
+                assertTrue(cache.touchesOnlyExcluded(docCommit.getName(), (entry) -> entry.equals("documentation/")));
+                assertFalse(cache.touchesOnlyExcluded(srcCommit.getName(), (entry) -> entry.equals("documentation/")));
+            }
+        }
+    }
+
+    @Test
+    public void testInterestingPaths() throws IOException, GitAPIException
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testInterestingPaths");
+        FS.ensureEmpty(testDir);
+
+        try (Git git = Git.init().setDirectory(testDir.resolve("repo").toFile()).call())
+        {
+            GitUtil.commitFile(git, "README.md", "Initial readme");
+            GitUtil.commitFile(git, "documentation/guide.adoc", "Initial documentation");
+            RevCommit docCommit = GitUtil.commitFile(git, "documentation/guide.adoc", "Update documentation");
+            RevCommit srcCommit = GitUtil.commitFile(git, "src/main/Foo.java", "Update source");
+
+            PathExclusions exclusions = new PathExclusions();
+            exclusions.addRegex("^documentation/.*");
+            exclusions.addRegex(".*\\.md$");
+
+            try (ChangelogCache cache = new ChangelogCache(git, testDir.resolve("commits.json")))
+            {
+                assertTrue(cache.getPaths(docCommit.getName(), exclusions).isEmpty());
+                assertEquals(Set.of("src/main/Foo.java"), cache.getPaths(srcCommit.getName(), exclusions));
+            }
+        }
+    }
+
+    @Test
+    public void testInterestingPathsWarmCache() throws IOException, GitAPIException
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testInterestingPathsWarmCache");
+        FS.ensureEmpty(testDir);
+
+        try (Git git = Git.init().setDirectory(testDir.resolve("repo").toFile()).call())
+        {
+            GitUtil.commitFile(git, "README.md", "Initial readme");
+            // additions, with a /dev/null old path in the full diff
+            RevCommit docCommit = GitUtil.commitFile(git, "documentation/guide.adoc", "Add documentation");
+            RevCommit srcCommit = GitUtil.commitFile(git, "src/main/Foo.java", "Add source");
+
+            PathExclusions exclusions = new PathExclusions();
+            exclusions.addRegex("^documentation/.*");
+
+            // cold cache, with the tree walk
+            try (ChangelogCache cache = new ChangelogCache(git, testDir.resolve("cold.json")))
+            {
+                assertTrue(cache.getPaths(docCommit.getName(), exclusions).isEmpty());
+                assertEquals(Set.of("src/main/Foo.java"), cache.getPaths(srcCommit.getName(), exclusions));
+            }
+
+            // warm cache, filtering the full diff paths
+            try (ChangelogCache cache = new ChangelogCache(git, testDir.resolve("warm.json")))
+            {
+                assertTrue(cache.getPaths(docCommit.getName()).contains("/dev/null"));
+                assertTrue(cache.getPaths(srcCommit.getName()).contains("/dev/null"));
+                assertTrue(cache.getPaths(docCommit.getName(), exclusions).isEmpty());
+                assertEquals(Set.of("src/main/Foo.java"), cache.getPaths(srcCommit.getName(), exclusions));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentPaths() throws Exception
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testConcurrentPaths");
+        FS.ensureEmpty(testDir);
+
+        try (Git git = Git.init().setDirectory(testDir.resolve("repo").toFile()).call())
+        {
+            List<RevCommit> commits = new ArrayList<>();
+            for (int i = 0; i < 40; i++)
+            {
+                String path = (i % 2 == 0) ? "documentation/guide-" + i + ".adoc" : "src/main/Foo" + i + ".java";
+                commits.add(GitUtil.commitFile(git, path, "Commit " + i));
+            }
+
+            PathExclusions exclusions = new PathExclusions();
+            exclusions.addRegex("^documentation/.*");
+
+            Path cacheFile = testDir.resolve("commits.json");
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try (ChangelogCache cache = new ChangelogCache(git, cacheFile))
+            {
+                List<Future<Set<String>>> futures = new ArrayList<>();
+                for (RevCommit commit : commits)
+                {
+                    futures.add(executor.submit(() -> cache.getPaths(commit.getName(), exclusions)));
+                }
+                for (int i = 0; i < commits.size(); i++)
+                {
+                    Set<String> expected = (i % 2 == 0) ? Set.of() : Set.of("src/main/Foo" + i + ".java");
+                    assertEquals(expected, futures.get(i).get());
+                }
+            }
+            finally
+            {
+                executor.shutdownNow();
+            }
+
+            // the paths were saved on close, and are reused
+            assertTrue(Files.exists(cacheFile));
+            try (ChangelogCache cache = new ChangelogCache(git, cacheFile))
+            {
+                assertEquals(Set.of("src/main/Foo1.java"), cache.getPaths(commits.get(1).getName(), exclusions));
+            }
+        }
+    }
+
+    @Test
+    public void testLookupEvents() throws IOException, GitAPIException
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testLookupEvents");
+        FS.ensureEmpty(testDir);
+
+        try (Git git = Git.init().setDirectory(testDir.resolve("repo").toFile()).setInitialBranch("main").call())
+        {
+            GitUtil.commitFile(git, "README.md", "Initial readme");
+            RevCommit commit = GitUtil.commitFile(git, "src/main/Foo.java", "Initial source");
+
+            Path recordingFile = testDir.resolve("lookups.jfr");
+            int pathCount;
+            int branchCount;
+            try (Recording recording = new Recording();
+                 ChangelogCache cache = new ChangelogCache(git, testDir.resolve("commits.json")))
+            {
+                recording.enable(GitLookupEvent.class);
+                recording.start();
+                // a git lookup, then a cached one
+                pathCount = cache.getPaths(commit.getName()).size();
+                cache.getPaths(commit.getName());
+                branchCount = cache.getBranchesContaining(commit.getName()).size();
+                recording.stop();
+                recording.dump(recordingFile);
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream()
+                .filter((event) -> event.getEventType().getName().equals("net.webtide.tools.release.GitLookup"))
+                .toList();
+            assertEquals(3, events.size());
+            Map<String, List<Boolean>> cachedByKind = events.stream()
+                .collect(Collectors.groupingBy((event) -> event.getString("kind"),
+                    Collectors.mapping((event) -> event.getBoolean("cached"), Collectors.toList())));
+            assertEquals(List.of(false, true), cachedByKind.get(GitLookupEvent.DIFF));
+            assertEquals(List.of(false), cachedByKind.get(GitLookupEvent.BRANCHES));
+            for (RecordedEvent event : events)
+            {
+                assertEquals(commit.getName(), event.getString("commit"));
+                int expected = event.getString("kind").equals(GitLookupEvent.DIFF) ? pathCount : branchCount;
+                assertEquals(expected, event.getInt("results"));
+            }
+        }
+    }
 }
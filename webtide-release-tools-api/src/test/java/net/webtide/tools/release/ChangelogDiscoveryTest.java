@@ -0,0 +1,74 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ChangelogDiscoveryTest
+{
+    @Test
+    public void testStoreAndLoad() throws Exception
+    {
+        Path discoveryDir = MavenTestingUtils.getTargetTestingPath("testDiscovery");
+        FS.ensureEmpty(discoveryDir);
+
+        Changelog changelog = new Changelog();
+        changelog.add(newChange(1, 1234, "Fix the frobnicator", "bug"));
+        changelog.add(newChange(2, 5678, "Bump gson from 2.10 to 2.11", "dependencies"));
+        ZonedDateTime when = ZonedDateTime.parse("2024-01-02T03:04:05Z");
+        String key = "repo=jetty/jetty.project\ncurrent=0123456789abcdef0123456789abcdef01234567";
+
+        ChangelogDiscovery discovery = new ChangelogDiscovery(key, when, changelog);
+        discovery.store(discoveryDir);
+        assertSame(discovery, ChangelogDiscovery.find(key, discoveryDir));
+
+        // as found by another build
+        Path file = ChangelogDiscovery.getFile(discoveryDir, key);
+        ChangelogDiscovery loaded = ChangelogDiscovery.load(file, key);
+        assertNotNull(loaded);
+        assertEquals(when.toInstant(), loaded.getCurrentVersionCommitterWhen().toInstant());
+        assertEquals(2, loaded.getChangelog().size());
+
+        ReleaseView release = ReleaseView.of(new ChangeMetadata(new Config(), "12.0.1", "02 January 2024", loaded.getChangelog()));
+        assertThat(release.getChanges().stream().map(ReleaseView.Entry::title).toList(), contains("Fix the frobnicator"));
+        assertThat(release.getDependencies().stream().map(ReleaseView.Entry::title).toList(), contains("Bump gson to 2.11"));
+
+        // another range or current version
+        assertNull(ChangelogDiscovery.load(file, key + "-other"));
+        assertNull(ChangelogDiscovery.find(key + "-other", discoveryDir));
+    }
+
+    private static Change newChange(int number, int num, String title, String label)
+    {
+        Change change = new Change(number);
+        ChangeIssue pr = new ChangeIssue(num);
+        pr.setTitle(title);
+        pr.addLabels(List.of(label));
+        change.addPullRequest(pr);
+        change.normalize(IssueType.ISSUE);
+        return change;
+    }
+}
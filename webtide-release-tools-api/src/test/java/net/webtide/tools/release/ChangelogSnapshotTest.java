@@ -0,0 +1,104 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangelogSnapshotTest
+{
+    @Test
+    public void testSaveLoad() throws IOException
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testSnapshotSaveLoad");
+        FS.ensureEmpty(testDir);
+        Path snapshotFile = testDir.resolve("snapshot.json");
+
+        ChangeCommit commit = new ChangeCommit();
+        commit.setSha("0123456789abcdef0123456789abcdef01234567");
+        commit.setTitle("Fix #1234");
+        commit.setCommitTime(ZonedDateTime.now());
+        commit.setAuthor(new Author("Test Author").email("test@webtide.com").github("test"));
+        commit.setFiles(List.of("src/main/Foo.java"));
+        commit.addIssueRef(1234);
+        commit.addSkipReason(Skip.EXCLUDED_BRANCH);
+        commit.setResolved();
+
+        ChangeIssue issue = new ChangeIssue(1234);
+        issue.setType(IssueType.PULL_REQUEST);
+        issue.setState("closed");
+        issue.addLabels(List.of("Bug", "Dependencies"));
+        issue.addCommit(commit.getSha());
+        issue.addSkipReason(Skip.NO_RELEVANT_COMMITS);
+        issue.setResolved();
+
+        ChangelogSnapshot snapshot = new ChangelogSnapshot();
+        snapshot.setKey("test-key");
+        snapshot.setHead(commit.getSha());
+        snapshot.setCommits(Map.of(commit.getSha(), commit));
+        snapshot.setIssues(Map.of(issue.getNum(), issue));
+        snapshot.setIssueResolvedTimes(Map.of(issue.getNum(), 42L));
+        snapshot.save(snapshotFile);
+        assertTrue(Files.isRegularFile(snapshotFile));
+
+        ChangelogSnapshot loaded = ChangelogSnapshot.load(snapshotFile);
+        assertNotNull(loaded);
+        assertThat(loaded.getKey(), is("test-key"));
+        assertThat(loaded.getHead(), is(commit.getSha()));
+        assertThat(loaded.getIssueResolvedTimes().get(1234), is(42L));
+
+        ChangeCommit loadedCommit = loaded.getCommits().get(commit.getSha());
+        assertNotNull(loadedCommit);
+        assertTrue(loadedCommit.isResolved());
+        assertThat(loadedCommit.getTitle(), is("Fix #1234"));
+        assertThat(loadedCommit.getAuthor().github(), is("test"));
+        assertThat(loadedCommit.getSkipSet(), contains(Skip.EXCLUDED_BRANCH));
+        assertThat(loadedCommit.getIssueRefs().toSortedArray(), is(new int[]{1234}));
+
+        ChangeIssue loadedIssue = loaded.getIssues().get(1234);
+        assertNotNull(loadedIssue);
+        assertTrue(loadedIssue.isResolved());
+        assertThat(loadedIssue.getNum(), is(1234));
+        assertThat(loadedIssue.getType(), is(IssueType.PULL_REQUEST));
+        assertThat(loadedIssue.getCommits(), containsInAnyOrder(commit.getId()));
+        assertTrue(loadedIssue.hasLabel("bug"), "labels are case insensitive");
+
+        loadedIssue.removeSkipReason(Skip.NO_RELEVANT_COMMITS);
+        assertFalse(loadedIssue.isSkipped());
+    }
+
+    @Test
+    public void testLoadMissing()
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testSnapshotLoadMissing");
+        assertNull(ChangelogSnapshot.load(testDir.resolve("missing.json")));
+        assertNull(ChangelogSnapshot.load(null));
+    }
+}
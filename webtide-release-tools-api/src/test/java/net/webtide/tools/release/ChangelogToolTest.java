@@ -12,15 +12,33 @@
 
 package net.webtide.tools.release;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import net.webtide.tools.github.gson.ISO8601TypeAdapter;
+import net.webtide.tools.github.gson.PathTypeAdapter;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenPaths;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.transport.RemoteConfig;
 import org.junit.jupiter.api.Test;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public class ChangelogToolTest
 {
     @Test
@@ -44,4 +62,106 @@ public class ChangelogToolTest
             }
         }
     }
+
+    /**
+     * The changes of the recorded 12.0.1 issues and commits are the same as with the original recursive grouping.
+     */
+    @Test
+    public void testResolveChangesSameAsLegacy() throws Exception
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testResolveChangesSameAsLegacy");
+        FS.ensureEmpty(testDir);
+
+        List<String> legacy = toGroups(new LegacyChangeResolver(loadIssues(), loadCommits()).resolveChanges());
+
+        List<String> actual;
+        try (Git ignored = Git.init().setDirectory(testDir.toFile()).setInitialBranch("main").call();
+             ChangelogTool tool = new ChangelogTool(testDir))
+        {
+            tool.resolveChanges(loadIssues(), loadCommits());
+            actual = toGroups(tool.getChangelog());
+        }
+
+        assertEquals(legacy, actual);
+    }
+
+    /**
+     * The one difference with the original grouping: a one-way issue reference, not backed by a commit.
+     */
+    @Test
+    public void testResolveChangesOneWayReference() throws Exception
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testResolveChangesOneWayReference");
+        FS.ensureEmpty(testDir);
+
+        // the legacy grouping starts from #200, without adding it, then #100 picks it up
+        assertEquals(List.of("0: issues=[] prs=[] commits=[]", "1: issues=[200] prs=[] commits=[]"),
+            toGroups(new LegacyChangeResolver(newOneWayIssues(), List.of()).resolveChanges()));
+
+        // linked issues are now always in the same change, with the issue a change starts from
+        try (Git ignored = Git.init().setDirectory(testDir.toFile()).setInitialBranch("main").call();
+             ChangelogTool tool = new ChangelogTool(testDir))
+        {
+            tool.resolveChanges(newOneWayIssues(), List.of());
+            assertEquals(List.of("0: issues=[100, 200] prs=[] commits=[]"), toGroups(tool.getChangelog()));
+        }
+    }
+
+    /**
+     * @return the issue #100, referencing the issue #200 which does not reference it back
+     */
+    private static List<ChangeIssue> newOneWayIssues()
+    {
+        ChangeIssue issue100 = new ChangeIssue(100);
+        issue100.setType(IssueType.ISSUE);
+        issue100.setTitle("Referencing issue");
+        issue100.getReferencedIssues().add(200);
+        ChangeIssue issue200 = new ChangeIssue(200);
+        issue200.setType(IssueType.ISSUE);
+        issue200.setTitle("Referenced issue");
+        return List.of(issue100, issue200);
+    }
+
+    private static List<String> toGroups(List<Change> changes)
+    {
+        return changes.stream()
+            .map((change) -> String.format("%d: issues=%s prs=%s commits=%s", change.getNumber(),
+                sorted(change.getIssues(), Change.NumTitle::getNumber),
+                sorted(change.getPullRequests(), Change.NumTitle::getNumber),
+                sorted(change.getCommits(), Change.RefTitle::getId)))
+            .toList();
+    }
+
+    private static <T, K extends Comparable<K>> Set<K> sorted(Set<T> values, Function<T, K> key)
+    {
+        return values == null ? Set.of() : values.stream().map(key).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static List<ChangeIssue> loadIssues() throws IOException
+    {
+        List<ChangeIssue> issues = List.of(load("changes-12_0_1/change-issues.json", ChangeIssue[].class));
+        // the recorded changes are grouped again
+        issues.forEach(ChangeRef::clearChangeRef);
+        return issues;
+    }
+
+    private static List<ChangeCommit> loadCommits() throws IOException
+    {
+        List<ChangeCommit> commits = List.of(load("changes-12_0_1/change-commits.json", ChangeCommit[].class));
+        commits.forEach(ChangeRef::clearChangeRef);
+        return commits;
+    }
+
+    private static <T> T load(String resource, Class<T> type) throws IOException
+    {
+        Gson gson = new GsonBuilder()
+            .registerTypeAdapter(ZonedDateTime.class, new ISO8601TypeAdapter())
+            .registerTypeHierarchyAdapter(Path.class, new PathTypeAdapter())
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
+        try (BufferedReader reader = Files.newBufferedReader(MavenPaths.findTestResourceFile(resource), UTF_8))
+        {
+            return gson.fromJson(reader, type);
+        }
+    }
 }
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.ZonedDateTime;
+import java.util.List;
 
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
@@ -28,6 +29,12 @@ import org.eclipse.jetty.toolchain.test.FS;
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.junit.jupiter.api.Test;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
 public class ConfigTest
 {
     @Test
@@ -56,4 +63,76 @@ public class ConfigTest
         }
         System.out.println("Wrote: " + outputFile);
     }
+
+    @Test
+    public void testForRange()
+    {
+        Config config = new Config();
+        config.setGithubRepoOwner("jetty");
+        config.setGithubRepoName("jetty.project");
+        config.setOutputPath(Path.of("target/changelogs"));
+        config.setLabelExclusions(List.of("test", "build"));
+        config.setBranchRegexExclusions(List.of(".*/jetty-9\\.3\\.x$"));
+        config.setSnapshotFile(Path.of("target/snapshot.json"));
+
+        Config.Range range10 = new Config.Range();
+        range10.setBranch("jetty-10.0.x");
+        range10.setTagVersionPrior("jetty-10.0.1");
+        range10.setRefVersionCurrent("jetty-10.0.2");
+
+        Config.Range range12 = new Config.Range();
+        range12.setBranch("jetty-12.0.x");
+        range12.setTagVersionPrior("jetty-12.0.1");
+        range12.setRefVersionCurrent("jetty-12.0.2");
+        range12.setBranchRegexExclusions(List.of(".*/jetty-9\\.4\\.x$"));
+        config.setRanges(List.of(range10, range12));
+
+        Config config10 = config.forRange(range10);
+        assertThat(config10.getGithubRepoOwner(), is("jetty"));
+        assertThat(config10.getBranch(), is("jetty-10.0.x"));
+        assertThat(config10.getTagVersionPrior(), is("jetty-10.0.1"));
+        assertThat(config10.getRefVersionCurrent(), is("jetty-10.0.2"));
+        assertThat(config10.getOutputPath(), is(Path.of("target/changelogs/jetty-10.0.x")));
+        assertThat(config10.getLabelExclusions(), contains("test", "build"));
+        assertThat(config10.getBranchRegexExclusions(), contains(".*/jetty-9\\.3\\.x$"));
+        assertThat(config10.getRanges(), is(empty()));
+        assertNull(config10.getSnapshotFile());
+
+        Config config12 = config.forRange(range12);
+        assertThat(config12.getBranch(), is("jetty-12.0.x"));
+        assertThat(config12.getBranchRegexExclusions(), contains(".*/jetty-9\\.4\\.x$"));
+        // the batch configuration is unchanged
+        assertThat(config.getBranchRegexExclusions(), contains(".*/jetty-9\\.3\\.x$"));
+    }
+
+    @Test
+    public void testForRepository()
+    {
+        Config config = new Config();
+        config.setOutputPath(Path.of("target/changelogs"));
+        config.setGitCacheDir(Path.of("target/git-cache"));
+        config.getOutputTypes().add(WriteOutput.Type.MARKDOWN);
+
+        Config jetty = new Config();
+        jetty.setRepoPath(Path.of("jetty.project"));
+        jetty.setGithubRepoOwner("jetty");
+        jetty.setGithubRepoName("jetty.project");
+
+        Config toolchain = new Config();
+        toolchain.setRepoPath(Path.of("jetty-toolchain"));
+        toolchain.setGithubRepoOwner("jetty");
+        toolchain.setGithubRepoName("jetty-toolchain");
+        toolchain.setOutputPath(Path.of("target/toolchain"));
+        config.setRepositories(List.of(jetty, toolchain));
+
+        Config jettyConfig = config.forRepository(jetty);
+        assertThat(jettyConfig.getRepoPath(), is(Path.of("jetty.project")));
+        assertThat(jettyConfig.getOutputPath(), is(Path.of("target/changelogs/jetty.project")));
+        assertThat(jettyConfig.getGitCacheDir(), is(Path.of("target/git-cache")));
+        assertThat(jettyConfig.getOutputTypes(), contains(WriteOutput.Type.MARKDOWN));
+
+        Config toolchainConfig = config.forRepository(toolchain);
+        assertThat(toolchainConfig.getOutputPath(), is(Path.of("target/toolchain")));
+        assertThat(toolchain.getOutputTypes(), is(empty()));
+    }
 }
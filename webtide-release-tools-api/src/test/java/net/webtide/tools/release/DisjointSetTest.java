@@ -0,0 +1,55 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DisjointSetTest
+{
+    @Test
+    public void testUnion()
+    {
+        DisjointSet set = new DisjointSet(6);
+        assertTrue(set.union(0, 1));
+        assertTrue(set.union(2, 1));
+        assertFalse(set.union(0, 2));
+        assertTrue(set.union(4, 5));
+
+        assertEquals(set.find(0), set.find(2));
+        assertEquals(set.find(4), set.find(5));
+        assertNotEquals(set.find(0), set.find(4));
+        assertEquals(3, set.find(3));
+    }
+
+    @Test
+    public void testLongChain()
+    {
+        // a chain of references that was too deep for the recursive clustering
+        int count = 1_000_000;
+        DisjointSet set = new DisjointSet(count);
+        for (int node = 1; node < count; node++)
+        {
+            set.union(node, node - 1);
+        }
+        int root = set.find(0);
+        for (int node = 0; node < count; node++)
+        {
+            assertEquals(root, set.find(node));
+        }
+    }
+}
@@ -12,12 +12,19 @@
 
 package net.webtide.tools.release;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.jupiter.api.Assumptions;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 public class GitUtil
 {
     public static Path findGitRoot()
@@ -34,4 +41,27 @@ public class GitUtil
             return path;
         return path.getParent();
     }
+
+    /**
+     * Write a file in the working tree of the provided git repository, and commit it.
+     *
+     * @param git the git repository
+     * @param path the path of the file (relative to the working tree)
+     * @param message the commit message (also used as the file contents)
+     * @return the new commit
+     */
+    public static RevCommit commitFile(Git git, String path, String message) throws IOException, GitAPIException
+    {
+        Path file = git.getRepository().getWorkTree().toPath().resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, message, UTF_8);
+        PersonIdent ident = new PersonIdent("Test Author", "test@webtide.com");
+        git.add().addFilepattern(path).call();
+        return git.commit()
+            .setMessage(message)
+            .setAuthor(ident)
+            .setCommitter(ident)
+            .setSign(false)
+            .call();
+    }
 }
@@ -0,0 +1,101 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import net.webtide.tools.github.cache.PersistentCache;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InputFingerprintTest
+{
+    @Test
+    public void testUpToDate() throws Exception
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testInputFingerprint");
+        FS.ensureEmpty(testDir);
+
+        try (Git git = Git.init().setDirectory(testDir.resolve("repo").toFile()).setInitialBranch("main").call())
+        {
+            GitUtil.commitFile(git, "src/main/Foo.java", "Initial source");
+            git.tag().setName("v1").setAnnotated(false).call();
+            GitUtil.commitFile(git, "src/main/Foo.java", "Update source");
+
+            Config config = new Config();
+            config.setRepoPath(testDir.resolve("repo"));
+            config.setBranch("main");
+            config.setTagVersionPrior("v1");
+            config.setOutputPath(testDir.resolve("output"));
+            config.setGitCacheDir(testDir.resolve("cache"));
+            config.setAuthorDirectoryFile(testDir.resolve("author-directory.json"));
+            config.getOutputTypes().add(WriteOutput.Type.MARKDOWN);
+            Path markdown = testDir.resolve("output").resolve(WriteMarkdown.FILENAME);
+
+            InputFingerprint fingerprint;
+            try (ChangelogTool tool = new ChangelogTool(config))
+            {
+                fingerprint = InputFingerprint.of(tool, config);
+                assertFalse(fingerprint.isUpToDate());
+                fingerprint.store();
+                // the outputs are not written
+                assertFalse(InputFingerprint.of(tool, config).isUpToDate());
+                Files.writeString(markdown, "# Changelog");
+                assertTrue(InputFingerprint.of(tool, config).isUpToDate());
+
+                // another release version
+                assertFalse(InputFingerprint.of(tool, config, "12.0.1").isUpToDate());
+
+                // a change of the author directory
+                Files.writeString(testDir.resolve("author-directory.json"), "{}");
+                assertFalse(InputFingerprint.of(tool, config).isUpToDate());
+                InputFingerprint.of(tool, config).store();
+                assertTrue(InputFingerprint.of(tool, config).isUpToDate());
+
+                // a deleted output
+                Files.delete(markdown);
+                assertFalse(InputFingerprint.of(tool, config).isUpToDate());
+                Files.writeString(markdown, "# Changelog");
+
+                // other outputs have their own fingerprint
+                config.getOutputTypes().add(WriteOutput.Type.VERSION_TXT);
+                assertNotEquals(fingerprint.getFile(), InputFingerprint.of(tool, config).getFile());
+                config.getOutputTypes().remove(WriteOutput.Type.VERSION_TXT);
+
+                // a change of the GitHub cache
+                assertEquals(0, PersistentCache.getGeneration(testDir.resolve("cache")));
+                PersistentCache cache = new PersistentCache(testDir.resolve("cache"));
+                cache.save("/repos/jetty/jetty.project/issues/1234", "{}");
+                cache.save("/repos/jetty/jetty.project/issues/5678", "{}");
+                assertEquals(1, PersistentCache.getGeneration(testDir.resolve("cache")));
+                assertFalse(InputFingerprint.of(tool, config).isUpToDate());
+                InputFingerprint.of(tool, config).store();
+            }
+
+            // a new commit
+            GitUtil.commitFile(git, "src/main/Foo.java", "Another update");
+            try (ChangelogTool tool = new ChangelogTool(config))
+            {
+                assertFalse(InputFingerprint.of(tool, config).isUpToDate());
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntMapTest
+{
+    @Test
+    public void testInsertionOrder()
+    {
+        IntMap<String> map = new IntMap<>(2);
+        List<String> expected = new ArrayList<>();
+        for (int num = 1000; num > 0; num -= 7)
+        {
+            assertNull(map.put(num, "issue-" + num));
+            expected.add("issue-" + num);
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, new ArrayList<>(map.values()));
+        assertEquals("issue-993", map.get(993));
+        assertNull(map.get(994));
+
+        // replacing keeps the position
+        assertEquals("issue-1000", map.put(1000, "replaced"));
+        assertEquals("replaced", map.values().iterator().next());
+        assertEquals(expected.size(), map.keys().length);
+
+        String created = map.computeIfAbsent(5, (num) -> "created-" + num);
+        assertSame(created, map.computeIfAbsent(5, (num) -> "again-" + num));
+        assertTrue(map.containsKey(5));
+        assertFalse(map.containsKey(7));
+    }
+
+    @Test
+    public void testIntSet()
+    {
+        Random random = new Random(42);
+        IntSet set = new IntSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++)
+        {
+            // a small range, to have many collisions and removals
+            int value = random.nextInt(512) - 8;
+            if (i == 10_000)
+                value = Integer.MIN_VALUE;
+            if (random.nextInt(3) == 0)
+                assertEquals(expected.remove(value), set.remove(value), "remove " + value);
+            else
+                assertEquals(expected.add(value), set.add(value), "add " + value);
+            assertEquals(expected.size(), set.size());
+        }
+
+        for (int value = -16; value < 520; value++)
+        {
+            assertEquals(expected.contains(value), set.contains(value), "contains " + value);
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).sorted().toArray(), set.toSortedArray());
+    }
+}
@@ -0,0 +1,133 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compare the {@link IssueScanner} with the {@link LegacyIssueScanner} on the recorded Jetty
+ * commit messages, issue titles and bodies of {@code changes-12_0_1}.
+ * <p>
+ * Run from the {@code webtide-release-tools-api} directory, after {@code mvn test-compile}, with
+ * {@code java -cp target/test-classes:target/classes:<test classpath> net.webtide.tools.release.IssueScannerBenchmark}
+ * (the test classpath from {@code mvn dependency:build-classpath -Dmdep.includeScope=test}).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssueScannerBenchmark
+{
+    private List<String> titles;
+    private List<String> bodies;
+
+    /**
+     * @return the recorded titles and bodies (titles at even indexes, bodies at odd indexes)
+     */
+    static List<String> loadMessages() throws IOException
+    {
+        List<String> messages = new ArrayList<>();
+        for (String resource : List.of("changes-12_0_1/change-commits.json", "changes-12_0_1/change-issues.json"))
+        {
+            Path json = MavenTestingUtils.getTestResourcePathFile(resource);
+            try (Reader reader = Files.newBufferedReader(json, UTF_8))
+            {
+                for (JsonElement element : JsonParser.parseReader(reader).getAsJsonArray())
+                {
+                    JsonObject change = element.getAsJsonObject();
+                    messages.add(getString(change, "title"));
+                    messages.add(getString(change, "body"));
+                }
+            }
+        }
+        return messages;
+    }
+
+    private static String getString(JsonObject change, String member)
+    {
+        JsonElement value = change.get(member);
+        return value == null || value.isJsonNull() ? "" : value.getAsString();
+    }
+
+    @Setup
+    public void setup() throws IOException
+    {
+        List<String> messages = loadMessages();
+        titles = new ArrayList<>();
+        bodies = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i += 2)
+        {
+            titles.add(messages.get(i));
+            bodies.add(messages.get(i + 1));
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole)
+    {
+        for (int i = 0; i < titles.size(); i++)
+        {
+            blackhole.consume(LegacyIssueScanner.scan(titles.get(i)));
+            blackhole.consume(LegacyIssueScanner.scanResolutions(bodies.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole)
+    {
+        for (int i = 0; i < titles.size(); i++)
+        {
+            blackhole.consume(IssueScanner.scan(titles.get(i)));
+            blackhole.consume(IssueScanner.scanResolutions(bodies.get(i)));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+            .include(IssueScannerBenchmark.class.getName())
+            .build();
+        new Runner(options).run();
+    }
+}
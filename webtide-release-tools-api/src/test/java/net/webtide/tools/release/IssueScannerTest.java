@@ -15,7 +15,10 @@ package net.webtide.tools.release;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.junit.jupiter.api.Test;
@@ -29,14 +32,14 @@ public class IssueScannerTest
     @Test
     public void testScanNoHits()
     {
-        Set<Integer> hits = IssueScanner.scan("Nothing here");
+        IntSet hits = IssueScanner.scan("Nothing here");
         assertEquals(0, hits.size());
     }
 
     @Test
     public void testScanSimpleSingleStart()
     {
-        Set<Integer> hits = IssueScanner.scan("#5555 - Example Issue");
+        IntSet hits = IssueScanner.scan("#5555 - Example Issue");
         int[] actual = toSortedArray(hits);
         int[] expected = {5555};
         assertArrayEquals(expected, actual);
@@ -45,7 +48,7 @@ public class IssueScannerTest
     @Test
     public void testScanSimpleSingleEnd()
     {
-        Set<Integer> hits = IssueScanner.scan("Example Issue (#4444)");
+        IntSet hits = IssueScanner.scan("Example Issue (#4444)");
         int[] actual = toSortedArray(hits);
         int[] expected = {4444};
         assertArrayEquals(expected, actual);
@@ -54,7 +57,7 @@ public class IssueScannerTest
     @Test
     public void testScanSimpleTwoReferences()
     {
-        Set<Integer> hits = IssueScanner.scan("#6666 - Example Issue (#4444)");
+        IntSet hits = IssueScanner.scan("#6666 - Example Issue (#4444)");
         int[] actual = toSortedArray(hits);
         int[] expected = {4444, 6666};
         assertArrayEquals(expected, actual);
@@ -63,7 +66,7 @@ public class IssueScannerTest
     @Test
     public void testScanOutsideReferenceHtml()
     {
-        Set<Integer> hits = IssueScanner.scan("<a href=\"https://github-redirect.dependabot.com/spring-projects/spring-framework/issues/25769\">#25769</a>");
+        IntSet hits = IssueScanner.scan("<a href=\"https://github-redirect.dependabot.com/spring-projects/spring-framework/issues/25769\">#25769</a>");
         int[] actual = toSortedArray(hits);
         int[] expected = {};
         assertArrayEquals(expected, actual);
@@ -72,7 +75,7 @@ public class IssueScannerTest
     @Test
     public void testScanOutsideReferenceMarkdown()
     {
-        Set<Integer> hits = IssueScanner.scan("spring-projects/spring-framework#25769");
+        IntSet hits = IssueScanner.scan("spring-projects/spring-framework#25769");
         int[] actual = toSortedArray(hits);
         int[] expected = {};
         assertArrayEquals(expected, actual);
@@ -81,7 +84,7 @@ public class IssueScannerTest
     @Test
     public void testScanMultiLineThreeReferences()
     {
-        Set<Integer> hits = IssueScanner.scan("Example Issue\n" +
+        IntSet hits = IssueScanner.scan("Example Issue\n" +
             "#5555 - Fixing problem\n" +
             "#5555 - Addressing missing copyright\n" +
             "#5555 - Oops, forgot this file too.\n");
@@ -93,7 +96,7 @@ public class IssueScannerTest
     @Test
     public void testScanAwkwardReference()
     {
-        Set<Integer> hits = IssueScanner.scan("Issue 7777 - Example Issue");
+        IntSet hits = IssueScanner.scan("Issue 7777 - Example Issue");
         int[] actual = toSortedArray(hits);
         int[] expected = {7777};
         assertArrayEquals(expected, actual);
@@ -105,14 +108,63 @@ public class IssueScannerTest
         Path dependabotIssue = MavenTestingUtils.getTestResourcePathFile("github/dependabot-issue-body.txt");
         String body = Files.readString(dependabotIssue, UTF_8);
         // Should result in no hits, as this is a dependabot body
-        Set<Integer> hits = IssueScanner.scan(body);
+        IntSet hits = IssueScanner.scan(body);
         int[] actual = toSortedArray(hits);
         int[] expected = {};
         assertArrayEquals(expected, actual);
     }
 
-    private int[] toSortedArray(Set<Integer> hits)
+    @Test
+    public void testScanResolutions()
+    {
+        IntSet hits = IssueScanner.scanResolutions("Fixes #1234\nCloses 2345, Resolved #3456 and Fix 45678\nFixed #12 Closes #1234567");
+        int[] actual = toSortedArray(hits);
+        int[] expected = {1234, 2345, 3456, 45678, 123456};
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testScanLimit()
+    {
+        String body = "Example Issue (#4444)\n" + "x".repeat(1000) + "\nFixes #5555 (#6666)";
+        assertArrayEquals(new int[]{4444, 5555, 6666}, toSortedArray(IssueScanner.scan(body)));
+        assertArrayEquals(new int[]{5555}, toSortedArray(IssueScanner.scanResolutions(body)));
+
+        IssueScanner scanner = new IssueScanner(1000);
+        assertArrayEquals(new int[]{4444}, toSortedArray(scanner.findReferences(body)));
+        assertArrayEquals(new int[]{}, toSortedArray(scanner.findResolutions(body)));
+
+        // a reference starting before the limit is read past it
+        String across = "x".repeat(995) + " (#1234567) Fixes #123456";
+        assertArrayEquals(new int[]{1234567}, toSortedArray(new IssueScanner(1000).findReferences(across)));
+        assertArrayEquals(new int[]{123456}, toSortedArray(new IssueScanner(1008).findResolutions(across)));
+        assertArrayEquals(new int[]{}, toSortedArray(new IssueScanner(997).findReferences(across)));
+    }
+
+    @Test
+    public void testSameAsLegacy() throws IOException
+    {
+        List<String> messages = IssueScannerBenchmark.loadMessages();
+        messages.add(Files.readString(MavenTestingUtils.getTestResourcePathFile("github/dependabot-issue-body.txt"), UTF_8));
+        messages.addAll(List.of(
+            "#123 too short at start", "#12345678 too long at start", "x(#12345678)", "##1234", "a#1234",
+            ">#1234", "\u00e9#1234", "MyIssue 12345", "Issue Issue 1234", "Issue 123", "#1234#5678 (#999)",
+            "Closes #12", "Closes ##123", "Fix Fixes 1234", "Resolve 1234", "Fixesd 1234", "Closes 1234567"));
+
+        for (String message : messages)
+        {
+            assertEquals(new TreeSet<>(LegacyIssueScanner.scan(message)), toSet(IssueScanner.scan(message)), message);
+            assertEquals(new TreeSet<>(LegacyIssueScanner.scanResolutions(message)), toSet(IssueScanner.scanResolutions(message)), message);
+        }
+    }
+
+    private Set<Integer> toSet(IntSet hits)
+    {
+        return hits.stream().boxed().collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private int[] toSortedArray(IntSet hits)
     {
-        return hits.stream().mapToInt(Integer::intValue).sorted().toArray();
+        return hits.toSortedArray();
     }
 }
@@ -0,0 +1,109 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * The original (recursive) grouping of the issues and commits into changes, the baseline of
+ * {@link ChangelogToolTest#testResolveChangesSameAsLegacy()}.
+ */
+public class LegacyChangeResolver
+{
+    private final Map<Integer, ChangeIssue> issueMap = new TreeMap<>();
+    private final Map<ObjectId, ChangeCommit> commitMap = new LinkedHashMap<>();
+
+    public LegacyChangeResolver(Collection<ChangeIssue> issues, Collection<ChangeCommit> commits)
+    {
+        issues.forEach((issue) -> issueMap.put(issue.getNum(), issue));
+        commits.forEach((commit) -> commitMap.put(commit.getId(), commit));
+    }
+
+    public List<Change> resolveChanges()
+    {
+        List<Change> changelog = new ArrayList<>();
+        int changeId = 0;
+        List<ChangeIssue> relevantIssues = issueMap.values().stream()
+            .filter((issue) -> !issue.isSkipped())
+            .sorted(Comparator.comparing(ChangeIssue::getNum).reversed())
+            .toList();
+        for (ChangeIssue issue : relevantIssues)
+        {
+            if (issue.isSkipped() || issue.hasChangeRef())
+                continue;
+
+            Change change = new Change(changeId++);
+            // add commits
+            issue.getCommits().forEach((commitSha) -> updateChangeCommit(change, commitSha));
+            // add issues & pull requests
+            issue.getReferencedIssues().forEach((issueNum) -> updateChangeIssues(change, issueNum));
+            changelog.add(change);
+        }
+
+        changelog.forEach((change) -> change.normalize(IssueType.ISSUE));
+        return changelog;
+    }
+
+    private void updateChangeCommit(Change change, ObjectId commitId)
+    {
+        ChangeCommit commit = this.commitMap.get(commitId);
+        if (commit != null)
+        {
+            if (commit.hasChangeRef() || commit.isSkipped())
+                return;
+
+            commit.setChangeRef(change);
+            change.addCommit(commit);
+            change.addAuthor(commit.getAuthor());
+
+            if (commit.getIssueRefs() != null)
+                commit.getIssueRefs().forEach((ref) -> updateChangeIssues(change, ref));
+            if (commit.getPullRequestRefs() != null)
+                commit.getPullRequestRefs().forEach((ref) -> updateChangeIssues(change, ref));
+        }
+    }
+
+    private void updateChangeIssues(Change change, int issueNum)
+    {
+        ChangeIssue issue = this.issueMap.get(issueNum);
+        if (issue != null)
+        {
+            if (issue.isSkipped() || issue.hasChangeRef())
+                return;
+
+            issue.setChangeRef(change);
+            switch (issue.getType())
+            {
+                case ISSUE:
+                    change.addIssue(issue);
+                    break;
+                case PULL_REQUEST:
+                    change.addPullRequest(issue);
+                    break;
+                default:
+                    break;
+            }
+
+            issue.getReferencedIssues().forEach((ref) -> updateChangeIssues(change, ref));
+            issue.getCommits().forEach((commitId) -> updateChangeCommit(change, commitId));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class LocalPullRequestsTest
+{
+    @Test
+    public void testFindCommits() throws IOException, GitAPIException
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testLocalPullRequests");
+        FS.ensureEmpty(testDir);
+
+        try (Git git = Git.init().setDirectory(testDir.resolve("repo").toFile()).setInitialBranch("main").call())
+        {
+            GitUtil.commitFile(git, "src/main/Foo.java", "Initial source");
+            git.branchCreate().setName("feature").call();
+            GitUtil.commitFile(git, "src/main/Foo.java", "Update on main");
+
+            git.checkout().setName("feature").call();
+            RevCommit pr1 = GitUtil.commitFile(git, "src/main/Bar.java", "First PR commit");
+            RevCommit pr2 = GitUtil.commitFile(git, "src/main/Bar.java", "Second PR commit");
+            git.checkout().setName("main").call();
+
+            createRef(git, "refs/pull/10/head", pr2);
+            createRef(git, "refs/remotes/origin/pr/11", pr1);
+
+            LocalPullRequests localPullRequests = new LocalPullRequests(git.getRepository());
+            // not merged yet
+            assertThat(localPullRequests.findCommits(10, "main"), contains(pr2.getName(), pr1.getName()));
+            assertThat(localPullRequests.findCommits(11, "main"), contains(pr1.getName()));
+            // no local ref
+            assertNull(localPullRequests.findCommits(12, "main"));
+            // no base branch
+            assertNull(localPullRequests.findCommits(10, "unknown"));
+
+            git.merge()
+                .include(pr2)
+                .setFastForward(MergeCommand.FastForwardMode.NO_FF)
+                .setMessage("Merge PR #10")
+                .call();
+            GitUtil.commitFile(git, "src/main/Foo.java", "Update on main after merge");
+
+            // merged
+            localPullRequests = new LocalPullRequests(git.getRepository());
+            List<String> commits = localPullRequests.findCommits(10, "main");
+            assertThat(commits, contains(pr2.getName(), pr1.getName()));
+        }
+    }
+
+    private static void createRef(Git git, String name, ObjectId objectId) throws IOException
+    {
+        RefUpdate refUpdate = git.getRepository().updateRef(name);
+        refUpdate.setNewObjectId(objectId);
+        refUpdate.forceUpdate();
+    }
+}
@@ -0,0 +1,96 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PackAccessTest
+{
+    @Test
+    public void testDefaults()
+    {
+        // nothing to install, the JVM wide JGit settings are left untouched
+        assertFalse(PackAccess.isConfigured(new Config()));
+
+        WindowCacheConfig defaults = new WindowCacheConfig();
+        WindowCacheConfig windowCacheConfig = PackAccess.toWindowCacheConfig(new Config());
+        assertFalse(windowCacheConfig.isPackedGitMMAP(), "mmap by default");
+        assertThat(windowCacheConfig.getPackedGitLimit(), is(defaults.getPackedGitLimit()));
+        assertThat(windowCacheConfig.getDeltaBaseCacheLimit(), is(defaults.getDeltaBaseCacheLimit()));
+
+        Config config = new Config();
+        config.setPackedGitMmap(true);
+        assertTrue(PackAccess.isConfigured(config));
+        assertTrue(PackAccess.toWindowCacheConfig(config).isPackedGitMMAP(), "mmap explicitly enabled");
+    }
+
+    @Test
+    public void testMmapForLargeRepositories() throws Exception
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testMmapForLargeRepositories");
+        FS.ensureEmpty(testDir);
+        Path repoPath = testDir.resolve("repo");
+        Git.init().setDirectory(repoPath.toFile()).call().close();
+
+        Config config = new Config();
+        assertFalse(PackAccess.enableMmapForLargeRepositories(config, List.of(repoPath)), "small repository");
+        assertNull(config.getPackedGitMmap());
+
+        // a sparse pack is enough to make the repository large
+        try (RandomAccessFile pack = new RandomAccessFile(repoPath.resolve(".git/objects/pack/pack-large.pack").toFile(), "rw"))
+        {
+            pack.setLength(PackAccess.LARGE_REPOSITORY_SIZE);
+        }
+        assertTrue(PackAccess.enableMmapForLargeRepositories(config, List.of(repoPath)), "large repository");
+        assertTrue(config.getPackedGitMmap());
+        assertTrue(PackAccess.isConfigured(config));
+
+        config = new Config();
+        config.setPackedGitMmap(false);
+        assertFalse(PackAccess.enableMmapForLargeRepositories(config, List.of(repoPath)), "explicitly disabled");
+        assertFalse(config.getPackedGitMmap());
+    }
+
+    @Test
+    public void testConfigured()
+    {
+        Config config = new Config();
+        config.setPackedGitLimit(256L * WindowCacheConfig.MB);
+        config.setPackedGitWindowSize(64L * WindowCacheConfig.KB);
+        config.setPackedGitMmap(false);
+        config.setDeltaBaseCacheLimit(64L * WindowCacheConfig.MB);
+        config.setStreamFileThreshold(16L * WindowCacheConfig.MB);
+
+        WindowCacheConfig windowCacheConfig = PackAccess.toWindowCacheConfig(config);
+        assertTrue(PackAccess.isConfigured(config));
+        assertFalse(windowCacheConfig.isPackedGitMMAP(), "mmap explicitly disabled");
+        assertThat(windowCacheConfig.getPackedGitLimit(), is(256L * WindowCacheConfig.MB));
+        assertThat(windowCacheConfig.getPackedGitWindowSize(), is(64 * WindowCacheConfig.KB));
+        assertThat(windowCacheConfig.getDeltaBaseCacheLimit(), is(64 * WindowCacheConfig.MB));
+        assertThat(windowCacheConfig.getStreamFileThreshold(), is(16 * WindowCacheConfig.MB));
+    }
+}
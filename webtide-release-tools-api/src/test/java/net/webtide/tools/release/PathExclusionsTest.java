@@ -0,0 +1,98 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PathExclusionsTest
+{
+    private static final List<String> REGEXES = List.of(
+        ".*/src/test/.*",
+        ".*/src/main/webapp/.*",
+        "^\\.git.*",
+        "^/dev/.*",
+        "^Jenkins.*",
+        "^documentation/.*",
+        ".*/pom\\.xml$",
+        ".*\\.md$",
+        ".*\\.txt$",
+        ".*\\.properties$",
+        ".*\\.jpg$",
+        ".*\\.png$"
+    );
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "jetty-core/jetty-server/src/main/java/org/eclipse/jetty/server/Server.java",
+        "jetty-core/jetty-server/src/test/java/org/eclipse/jetty/server/ServerTest.java",
+        "jetty-core/jetty-server/pom.xml",
+        "pom.xml",
+        ".github/workflows/ci.yml",
+        ".gitignore",
+        "Jenkinsfile",
+        "README.md",
+        "VERSION.txt",
+        "documentation/jetty/modules/ROOT/nav.adoc",
+        "doc/notes.adoc",
+        "jetty-ee10/jetty-ee10-demos/src/main/webapp/index.html",
+        "jetty-core/jetty-util/src/main/resources/jetty-util.properties"
+    })
+    public void testMatchesRegexSemantics(String path)
+    {
+        PathExclusions exclusions = new PathExclusions();
+        REGEXES.forEach(exclusions::addRegex);
+
+        boolean expected = REGEXES.stream().anyMatch(path::matches);
+        assertEquals(expected, exclusions.isExcluded(path), "Exclusion of " + path);
+    }
+
+    @Test
+    public void testLiteralPrefix()
+    {
+        assertEquals("documentation/", PathExclusions.toLiteralPrefix("^documentation/.*"));
+        assertEquals(".git", PathExclusions.toLiteralPrefix("^\\.git.*"));
+        assertEquals("Jenkins", PathExclusions.toLiteralPrefix("^Jenkins.*"));
+        assertNull(PathExclusions.toLiteralPrefix(".*/src/test/.*"));
+        assertNull(PathExclusions.toLiteralPrefix("^docs?/.*"));
+        assertNull(PathExclusions.toLiteralPrefix("^\\d+/.*"));
+        assertNull(PathExclusions.toLiteralPrefix("^build\\.*"));
+    }
+
+    @Test
+    public void testExcludedTree()
+    {
+        PathExclusions exclusions = new PathExclusions();
+        REGEXES.forEach(exclusions::addRegex);
+
+        assertTrue(exclusions.isExcludedTree("documentation"));
+        assertTrue(exclusions.isExcludedTree(".github"));
+        assertFalse(exclusions.isExcludedTree("doc"));
+        assertFalse(exclusions.isExcludedTree("jetty-core"));
+        // only literal prefixes can exclude whole trees
+        assertFalse(exclusions.isExcludedTree("jetty-core/jetty-server/src/test"));
+
+        assertTrue(exclusions.isExcludedEntry("documentation/"));
+        assertTrue(exclusions.isExcludedEntry("README.md"));
+        assertFalse(exclusions.isExcludedEntry("jetty-core/"));
+        assertFalse(exclusions.isExcludedEntry("build.sh"));
+    }
+}
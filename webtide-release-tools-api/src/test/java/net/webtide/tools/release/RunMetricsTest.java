@@ -0,0 +1,67 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RunMetricsTest
+{
+    @Test
+    public void testCostCenters() throws Exception
+    {
+        RunMetrics metrics = new RunMetrics("jetty/jetty.project", "jetty-12.0.0..jetty-12.0.1", 2_000_000_000L, 1_000_000_000L);
+        metrics.setCounts(500, 200, 50);
+        metrics.addPhase("crawl", 900_000_000L);
+        metrics.addTier(RunMetrics.SESSION_TIER, 30, 70);
+
+        // an umbrella issue, the issues it references, and many cheap commits
+        List<RunMetrics.CostCenter> all = new ArrayList<>();
+        all.add(new RunMetrics.CostCenter("#1000", "Umbrella", 1, 40, 0, 40, Set.of(Skip.EXCLUDED_LABEL)));
+        IntStream.range(0, 40).forEach((i) ->
+            all.add(new RunMetrics.CostCenter("#" + (2000 + i), "Referenced " + i, 2, 3, 1, 3, Set.of(Skip.EXCLUDED_LABEL, Skip.NOT_CLOSED))));
+        IntStream.range(0, 100).forEach((i) ->
+            all.add(new RunMetrics.CostCenter(String.format("%040x", i), "Commit " + i, 0, 1, 0, 1, Set.of())));
+        metrics.setCostCenters(all);
+
+        assertEquals(RunMetrics.TOP_COST_CENTERS, metrics.getCostCenters().size());
+        assertEquals("#1000", metrics.getCostCenters().get(0).source());
+        assertEquals("#2000", metrics.getCostCenters().get(1).source());
+        assertEquals(Map.of(0, 100, 1, 40, 2, 120), metrics.getRateUsedByDepth());
+        assertEquals(Map.of(Skip.EXCLUDED_LABEL, 160, Skip.NOT_CLOSED, 120), metrics.getRateUsedBySkip());
+
+        Path testDir = MavenTestingUtils.getTargetTestingPath("testCostCenters");
+        FS.ensureEmpty(testDir);
+        Path file = testDir.resolve(RunMetrics.FILENAME);
+        metrics.write(file);
+        JsonObject json = JsonParser.parseString(Files.readString(file, UTF_8)).getAsJsonObject();
+        assertEquals(30, json.getAsJsonObject("cacheTiers").getAsJsonObject(RunMetrics.SESSION_TIER).get("hits").getAsInt());
+        assertEquals(500.0, json.get("commitsPerSecond").getAsDouble());
+        assertEquals(160, json.getAsJsonObject("rateUsedBySkip").get("EXCLUDED_LABEL").getAsInt());
+        assertEquals("Umbrella", json.getAsJsonArray("costCenters").get(0).getAsJsonObject().get("title").getAsString());
+    }
+}
@@ -0,0 +1,76 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class VersionTextTest
+{
+    private static final String PRIOR = """
+        12.0.0 - 01 August 2023
+         + 1000 Some prior change
+
+        11.0.0 - 01 July 2023
+         + 900 Older change
+        """;
+
+    @Test
+    public void testUpdate() throws Exception
+    {
+        Path dir = MavenTestingUtils.getTargetTestingPath("testVersionTextUpdate");
+        FS.ensureEmpty(dir);
+        Path versionText = dir.resolve("VERSION.txt");
+        Files.writeString(versionText, PRIOR, UTF_8);
+        Path section = dir.resolve("version-tag.txt");
+        Files.writeString(section, "12.0.1 - 01 September 2023\n + 1234 New change\n", UTF_8);
+
+        VersionText.update(versionText, section, dir.resolve("VERSION.txt.tmp"));
+        String expected = "12.0.1 - 01 September 2023\n + 1234 New change\n\n" + PRIOR;
+        assertEquals(expected, Files.readString(versionText, UTF_8));
+
+        // updating again for the same version replaces its section
+        Files.writeString(section, "12.0.1 - 02 September 2023\n + 1234 New change\n + 1235 Another change\n", UTF_8);
+        VersionText.update(versionText, section, dir.resolve("VERSION.txt.tmp"));
+        expected = "12.0.1 - 02 September 2023\n + 1234 New change\n + 1235 Another change\n\n" + PRIOR;
+        assertEquals(expected, Files.readString(versionText, UTF_8));
+    }
+
+    @Test
+    public void testNoChanges() throws Exception
+    {
+        Path dir = MavenTestingUtils.getTargetTestingPath("testVersionTextNoChanges");
+        FS.ensureEmpty(dir);
+        Path versionText = dir.resolve("VERSION.txt");
+        Files.writeString(versionText, PRIOR, UTF_8);
+        Path section = dir.resolve("version-tag.txt");
+        Files.writeString(section, "", UTF_8);
+
+        VersionText.update(versionText, section, dir.resolve("VERSION.txt.tmp"));
+        assertEquals(PRIOR, Files.readString(versionText, UTF_8));
+    }
+
+    @Test
+    public void testGetVersion()
+    {
+        assertEquals("12.0.1", VersionText.getVersion("12.0.1 - 01 September 2023"));
+        assertEquals("12.0.1", VersionText.getVersion("12.0.1"));
+    }
+}
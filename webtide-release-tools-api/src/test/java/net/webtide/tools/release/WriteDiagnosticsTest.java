@@ -0,0 +1,100 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class WriteDiagnosticsTest
+{
+    @Test
+    public void testWriteJson() throws Exception
+    {
+        Path outputDir = MavenTestingUtils.getTargetTestingPath("testWriteJson");
+        FS.ensureEmpty(outputDir);
+
+        Authors authors = Authors.load();
+        List<ChangeIssue> issues = List.of(new ChangeIssue(1234), new ChangeIssue(5678));
+        Map<WriteDiagnostics.Artifact, Iterable<?>> artifacts = new EnumMap<>(WriteDiagnostics.Artifact.class);
+        artifacts.put(WriteDiagnostics.Artifact.AUTHORS, authors);
+        artifacts.put(WriteDiagnostics.Artifact.ISSUES, issues);
+        WriteDiagnostics diagnostics = new WriteDiagnostics(outputDir, WriteDiagnostics.Format.JSON, false);
+        diagnostics.write(artifacts);
+
+        Path authorsFile = outputDir.resolve("authors-scan.json");
+        assertEquals(authorsFile, diagnostics.getPath(WriteDiagnostics.Artifact.AUTHORS));
+        try (Reader reader = Files.newBufferedReader(authorsFile, UTF_8))
+        {
+            JsonArray array = JsonParser.parseReader(reader).getAsJsonArray();
+            assertEquals(authors.size(), array.size());
+        }
+        try (Reader reader = Files.newBufferedReader(outputDir.resolve("change-issues.json"), UTF_8))
+        {
+            JsonArray array = JsonParser.parseReader(reader).getAsJsonArray();
+            assertEquals(2, array.size());
+            assertEquals(5678, array.get(1).getAsJsonObject().get("num").getAsInt());
+        }
+        assertFalse(Files.exists(outputDir.resolve("change-commits.json")));
+    }
+
+    @Test
+    public void testWriteJsonLinesGzip() throws Exception
+    {
+        Path outputDir = MavenTestingUtils.getTargetTestingPath("testWriteJsonLinesGzip");
+        FS.ensureEmpty(outputDir);
+
+        List<ChangeIssue> issues = List.of(new ChangeIssue(1234), new ChangeIssue(5678));
+        WriteDiagnostics diagnostics = new WriteDiagnostics(outputDir, WriteDiagnostics.Format.JSON_LINES, true);
+        diagnostics.write(WriteDiagnostics.Artifact.RELEVANT_ISSUES, issues);
+
+        Path file = outputDir.resolve("change-issues-relevant.jsonl.gz");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), UTF_8)))
+        {
+            List<String> lines = reader.lines().toList();
+            assertEquals(2, lines.size());
+            assertEquals(1234, JsonParser.parseString(lines.get(0)).getAsJsonObject().get("num").getAsInt());
+            assertEquals(5678, JsonParser.parseString(lines.get(1)).getAsJsonObject().get("num").getAsInt());
+        }
+    }
+
+    @Test
+    public void testParseDiagnostics()
+    {
+        assertThat(Config.parseDiagnostics("none"), is(empty()));
+        assertThat(Config.parseDiagnostics("authors, change-groups"),
+            contains(WriteDiagnostics.Artifact.AUTHORS, WriteDiagnostics.Artifact.CHANGE_GROUPS));
+        assertThat(Config.parseDiagnostics("relevant_issues"), contains(WriteDiagnostics.Artifact.RELEVANT_ISSUES));
+        assertEquals(WriteDiagnostics.Artifact.values().length, Config.parseDiagnostics("all").size());
+    }
+}
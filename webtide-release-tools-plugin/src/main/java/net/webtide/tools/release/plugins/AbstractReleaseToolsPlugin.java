@@ -18,14 +18,21 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
 
+import net.webtide.tools.release.Args;
 import net.webtide.tools.release.ChangeMetadata;
+import net.webtide.tools.release.ChangelogDiscovery;
 import net.webtide.tools.release.ChangelogTool;
 import net.webtide.tools.release.Config;
 import net.webtide.tools.release.FS;
+import net.webtide.tools.release.InputFingerprint;
+import net.webtide.tools.release.WriteDiagnostics;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.eclipse.jgit.api.Git;
 
 public abstract class AbstractReleaseToolsPlugin extends AbstractMojo
 {
@@ -39,6 +46,9 @@ public abstract class AbstractReleaseToolsPlugin extends AbstractMojo
     private Path configFile;
     @Parameter(readonly = true, defaultValue = "${project.build.directory}")
     protected File projectBuildDirectory;
+    // identifies the build, as the discovered changes are only shared by the goals of a build
+    @Parameter(readonly = true, defaultValue = "${session.request.startTime}")
+    private Date buildStartTime;
     @Parameter(property = "webtide.release.tools.refVersionCurrent")
     private String refVersionCurrent;
     @Parameter(property = "webtide.release.tools.tagVersionPrior")
@@ -51,32 +61,164 @@ public abstract class AbstractReleaseToolsPlugin extends AbstractMojo
     @Parameter(property = "webtide.release.tools.releaseVersion", defaultValue = "${project.version}")
     protected String releaseVersion;
 
+    /**
+     * Maximum bytes of git pack data held in the JGit window cache, with an optional {@code k}, {@code m}
+     * or {@code g} suffix (eg: {@code 256m}).
+     * <p>
+     * The JGit window cache is JVM wide: when any of the pack access parameters ({@code packedGitLimit},
+     * {@code packedGitWindowSize}, {@code packedGitMmap}, {@code deltaBaseCacheLimit} and {@code streamFileThreshold})
+     * is set, they replace the JGit settings of the whole Maven JVM, including for the other plugins using JGit.
+     * When none is set, the JGit settings are left untouched (a large repository is only reported).
+     * </p>
+     */
+    @Parameter(property = "webtide.release.tools.packedGitLimit")
+    private String packedGitLimit;
+
+    /**
+     * Size of each window read from a git pack (power of 2), with an optional {@code k}, {@code m} or {@code g} suffix.
+     * JVM wide, see {@code packedGitLimit}.
+     */
+    @Parameter(property = "webtide.release.tools.packedGitWindowSize")
+    private String packedGitWindowSize;
+
+    /**
+     * Use memory-mapped git pack reading (the JGit default is disabled).
+     * JVM wide, see {@code packedGitLimit}.
+     * <p>
+     * Unlike the command line, which enables it for large repositories, the plugin leaves it disabled unless set:
+     * the mapped packs would be held by the window cache of the whole Maven JVM, and only unmapped by the
+     * garbage collector, for the other plugins of the build as well.
+     * </p>
+     */
+    @Parameter(property = "webtide.release.tools.packedGitMmap")
+    private Boolean packedGitMmap;
+
+    /**
+     * Maximum size of the JGit delta base cache, with an optional {@code k}, {@code m} or {@code g} suffix.
+     * JVM wide, see {@code packedGitLimit}.
+     */
+    @Parameter(property = "webtide.release.tools.deltaBaseCacheLimit")
+    private String deltaBaseCacheLimit;
+
+    /**
+     * Git objects larger than this are streamed instead of loaded into memory, with an optional
+     * {@code k}, {@code m} or {@code g} suffix.  JVM wide, see {@code packedGitLimit}.
+     */
+    @Parameter(property = "webtide.release.tools.streamFileThreshold")
+    private String streamFileThreshold;
+
+    /**
+     * Number of days after which a resolved issue of the snapshot is resolved again from GitHub (7 by default).
+     */
+    @Parameter(property = "webtide.release.tools.snapshotIssueExpiryDays")
+    private Integer snapshotIssueExpiryDays;
+
+    /**
+     * Number of threads resolving commits and issues (1 to resolve serially).
+     */
+    @Parameter(property = "webtide.release.tools.resolveThreads")
+    private Integer resolveThreads;
+
+    /**
+     * File holding the email to GitHub login mappings learned from GitHub
+     * (defaults to ~/.cache/git-changelog/author-directory.json).
+     */
+    @Parameter(property = "webtide.release.tools.authorDirectoryFile")
+    private File authorDirectoryFile;
+
+    /**
+     * Diagnostic artifacts to write (AUTHORS, ISSUES, RELEVANT_ISSUES, COMMITS, CHANGE_GROUPS),
+     * all of them by default.
+     */
+    @Parameter(property = "webtide.release.tools.diagnostics")
+    private List<WriteDiagnostics.Artifact> diagnostics;
+
+    /**
+     * Format of the diagnostic artifacts (JSON or JSON_LINES).
+     */
+    @Parameter(property = "webtide.release.tools.diagnosticsFormat")
+    private WriteDiagnostics.Format diagnosticsFormat;
+
+    /**
+     * Gzip the diagnostic artifacts.
+     */
+    @Parameter(property = "webtide.release.tools.diagnosticsGzip")
+    private Boolean diagnosticsGzip;
+
+    /**
+     * Skip the generation when its inputs are unchanged since the last one (enabled by default).
+     */
+    @Parameter(property = "webtide.release.tools.upToDateCheck")
+    private Boolean upToDateCheck;
+
+    /**
+     * Write the metrics of the run to {@code metrics.json} in the output directory (enabled by default).
+     */
+    @Parameter(property = "webtide.release.tools.metrics")
+    private Boolean metrics;
 
     public void doExecute() throws MojoExecutionException
     {
         Config config = buildConfig();
 
+        String projectVersion = releaseVersion == null ? config.getRefVersionCurrent() : releaseVersion;
         try (ChangelogTool tool = new ChangelogTool(config))
         {
-            tool.discoverChanges();
+            InputFingerprint fingerprint = config.isUpToDateCheck() ? InputFingerprint.of(tool, config, projectVersion) : null;
+            if (fingerprint != null && fingerprint.isUpToDate())
+            {
+                getLog().info("Changelog is up to date: " + fingerprint.getFile());
+                return;
+            }
+
+            // the goals of a release build share the changes discovered by the first one, but not
+            // the later builds: the key does not cover the authors nor the GitHub cache
+            Path discoveryDir = projectBuildDirectory.toPath().resolve("webtide-release-tools");
+            String discoveryKey = buildStartTime == null ? null : tool.getDiscoveryKey();
+            if (discoveryKey != null)
+                discoveryKey += "\nbuild=" + buildStartTime.getTime();
+            ChangelogDiscovery discovery = discoveryKey == null ? null : ChangelogDiscovery.find(discoveryKey, discoveryDir);
+            boolean reused = discovery != null;
+            if (reused)
+            {
+                getLog().info("Reusing the discovered changes: " + ChangelogDiscovery.getFile(discoveryDir, discoveryKey));
+            }
+            else
+            {
+                tool.discoverChanges();
+
+                System.out.printf("Found %,d commit entries%n", tool.getCommits().size());
+                System.out.printf("Found %,d issue/pr references%n", tool.getIssues().size());
+                System.out.printf("Found %,d changes%n", tool.getChangelog().size());
 
-            System.out.printf("Found %,d commit entries%n", tool.getCommits().size());
-            System.out.printf("Found %,d issue/pr references%n", tool.getIssues().size());
-            System.out.printf("Found %,d changes%n", tool.getChangelog().size());
+                discovery = new ChangelogDiscovery(discoveryKey, tool.getCurrentVersionCommitterWhen(), tool.getChangelog());
+            }
 
             FS.ensureDirectoryExists(config.getOutputPath());
 
-            String projectVersion = releaseVersion == null ? config.getRefVersionCurrent() : releaseVersion;
-            ZonedDateTime versionDate = tool.getCurrentVersionCommitterWhen();
+            ZonedDateTime versionDate = discovery.getCurrentVersionCommitterWhen();
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd MMMM yyyy");
             String date = formatter.format(versionDate);
 
             ChangeMetadata saveRequest = new ChangeMetadata(config,
                 projectVersion,
                 date,
-                tool.getChangelog());
+                discovery.getChangelog());
 
-            tool.save(saveRequest);
+            if (reused)
+            {
+                // only the outputs of this goal
+                tool.writeOutputs(saveRequest);
+            }
+            else
+            {
+                tool.save(saveRequest);
+                if (discoveryKey != null)
+                    discovery.store(discoveryDir);
+            }
+            // after the generation, which may have changed the GitHub cache
+            if (fingerprint != null)
+                InputFingerprint.of(tool, config, projectVersion).store();
         }
         catch (Exception e)
         {
@@ -84,6 +226,12 @@ public abstract class AbstractReleaseToolsPlugin extends AbstractMojo
         }
     }
 
+    protected String getCurrentBranch() throws MojoExecutionException, IOException {
+        try (Git git = Git.open(buildConfig().getRepoPath().toAbsolutePath().toFile())) {
+            return git.getRepository().getBranch();
+        }
+    }
+
     protected Config buildConfig() throws MojoExecutionException
     {
         if (this.config == null)
@@ -98,6 +246,32 @@ public abstract class AbstractReleaseToolsPlugin extends AbstractMojo
                 if(gitCacheDir != null) {
                     this.config.setGitCacheDir(gitCacheDir.toPath());
                 }
+                if (packedGitLimit != null)
+                    this.config.setPackedGitLimit(parseSize("packedGitLimit", packedGitLimit));
+                if (packedGitWindowSize != null)
+                    this.config.setPackedGitWindowSize(parseSize("packedGitWindowSize", packedGitWindowSize));
+                if (packedGitMmap != null)
+                    this.config.setPackedGitMmap(packedGitMmap);
+                if (deltaBaseCacheLimit != null)
+                    this.config.setDeltaBaseCacheLimit(parseSize("deltaBaseCacheLimit", deltaBaseCacheLimit));
+                if (streamFileThreshold != null)
+                    this.config.setStreamFileThreshold(parseSize("streamFileThreshold", streamFileThreshold));
+                if (snapshotIssueExpiryDays != null)
+                    this.config.setSnapshotIssueExpiryDays(snapshotIssueExpiryDays);
+                if (resolveThreads != null)
+                    this.config.setResolveThreads(resolveThreads);
+                if (authorDirectoryFile != null)
+                    this.config.setAuthorDirectoryFile(authorDirectoryFile.toPath());
+                if (diagnostics != null)
+                    this.config.setDiagnostics(diagnostics);
+                if (diagnosticsFormat != null)
+                    this.config.setDiagnosticsFormat(diagnosticsFormat);
+                if (diagnosticsGzip != null)
+                    this.config.setDiagnosticsGzip(diagnosticsGzip);
+                if (upToDateCheck != null)
+                    this.config.setUpToDateCheck(upToDateCheck);
+                if (metrics != null)
+                    this.config.setMetrics(metrics);
             }
             catch (IOException e)
             {
@@ -106,4 +280,16 @@ public abstract class AbstractReleaseToolsPlugin extends AbstractMojo
         }
         return config;
     }
+
+    private static long parseSize(String name, String value) throws MojoExecutionException
+    {
+        try
+        {
+            return Args.parseSize(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new MojoExecutionException("Invalid size for " + name + ": " + value, e);
+        }
+    }
 }
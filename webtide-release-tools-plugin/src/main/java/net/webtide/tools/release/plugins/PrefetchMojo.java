@@ -0,0 +1,50 @@
+//
+// ========================================================================
+// Copyright (c) Webtide LLC and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: Apache-2.0
+// ========================================================================
+//
+
+package net.webtide.tools.release.plugins;
+
+import net.webtide.tools.release.ChangelogTool;
+import net.webtide.tools.release.Config;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Warm the GitHub cache and the git commit index (diff paths, branch membership) for the
+ * configured range, up to the branch head, without producing any output.
+ * Meant to be run ahead of the release (eg: nightly or on every push) so that the release build is fully warm.
+ */
+@Mojo(name = "prefetch", threadSafe = true)
+public class PrefetchMojo extends AbstractReleaseToolsPlugin
+{
+    @Parameter(property = "webtide.release.tools.branch")
+    private String branch;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException
+    {
+        Config config = buildConfig();
+        try
+        {
+            config.setBranch(branch == null ? getCurrentBranch() : branch);
+            try (ChangelogTool tool = new ChangelogTool(config))
+            {
+                tool.prefetch();
+            }
+        }
+        catch (Exception e)
+        {
+            throw new MojoExecutionException("Failed to prefetch changelog data", e);
+        }
+    }
+}
@@ -20,9 +20,6 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.eclipse.jgit.api.Git;
-
-import java.io.IOException;
 
 /**
  * Produce a target/version-tag.txt which represents the changes
@@ -53,10 +50,4 @@ public class TagMojo extends AbstractReleaseToolsPlugin
             throw new MojoExecutionException("Failed to tag changelog", e);
         }
     }
-
-    protected String getCurrentBranch() throws MojoExecutionException, IOException {
-        try (Git git = Git.open(buildConfig().getRepoPath().toAbsolutePath().toFile())) {
-            return git.getRepository().getBranch();
-        }
-    }
 }
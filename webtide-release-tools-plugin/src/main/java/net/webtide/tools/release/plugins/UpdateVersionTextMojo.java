@@ -14,14 +14,9 @@ package net.webtide.tools.release.plugins;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
-import java.util.List;
-import java.util.stream.Collectors;
 
+import net.webtide.tools.release.VersionText;
 import net.webtide.tools.release.WriteVersionTagText;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -40,7 +35,7 @@ public class UpdateVersionTextMojo extends TagMojo
     protected File originalVersionTextOutputFile;
 
     /**
-     * The generated VERSION.txt file.
+     * The generated VERSION.txt file (replacing the original VERSION.txt once written).
      */
     @Parameter(property = "version.text.output.file", defaultValue = "${project.build.directory}/VERSION.txt")
     protected File versionTextOutputFile;
@@ -51,13 +46,8 @@ public class UpdateVersionTextMojo extends TagMojo
         super.execute();
         try
         {
-            Files.deleteIfExists(versionTextOutputFile.toPath());
             Path versionTagOutputFile = projectBuildDirectory.toPath().resolve(WriteVersionTagText.FILENAME);
-            Files.write(versionTextOutputFile.toPath(), Files.readAllBytes(versionTagOutputFile), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
-            Files.writeString(versionTextOutputFile.toPath(), "\n", StandardOpenOption.APPEND);
-            Files.write(versionTextOutputFile.toPath(), Files.readAllBytes(originalVersionTextOutputFile.toPath()), StandardOpenOption.APPEND);
-            Files.move(versionTextOutputFile.toPath(), originalVersionTextOutputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-
+            VersionText.update(originalVersionTextOutputFile.toPath(), versionTagOutputFile, versionTextOutputFile.toPath());
         }
         catch (IOException e)
         {